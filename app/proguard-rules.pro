@@ -15,3 +15,13 @@
 #-keepclassmembers class fqcn.of.javascript.interface.for.webview {
 #   public *;
 #}
+
+# Strip the SpiderMenu logs and trace calls, along with the computation of their arguments
+-assumenosideeffects class com.abysmel.spidermenu.Logger {
+    public static void e(...);
+    public static void w(...);
+    public static void i(...);
+    public static void d(...);
+    public static void v(...);
+    public static void trace(...);
+}
@@ -0,0 +1,89 @@
+package com.abysmel.spidermenu;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.test.AndroidTestCase;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Checks that the radial children hidden behind the center child are not drawn, wherever the center child is in the
+ * child array
+ */
+public class SpiderMenuCullingTest extends AndroidTestCase {
+	private static final int MENU_SIZE = 600;
+
+	public void testChildrenBehindTheCenterAreSkippedWithTheCenterFirst() throws Exception {
+		SpiderMenu menu = new SpiderMenu( getContext() );
+		addChild( menu, SpiderMenu.LayoutParams.CENTER );
+		for(int nCtr = 0; nCtr < 4; ++nCtr)
+			addChild( menu, SpiderMenu.LayoutParams.RADIAL );
+
+		drawCollapsed( menu );
+		assertEquals( 1, menu.getDrawnChildCount() );
+		assertEquals( 4, menu.getSkippedChildCount() );
+	}
+
+	public void testGoneChildDoesNotShiftTheCulling() throws Exception {
+		SpiderMenu menu = new SpiderMenu( getContext() );
+		addChild( menu, SpiderMenu.LayoutParams.RADIAL ).setVisibility( View.GONE );
+		addChild( menu, SpiderMenu.LayoutParams.RADIAL );
+		addChild( menu, SpiderMenu.LayoutParams.CENTER );
+		addChild( menu, SpiderMenu.LayoutParams.RADIAL );
+
+		drawCollapsed( menu );
+		assertEquals( 1, menu.getDrawnChildCount() );
+		assertEquals( 2, menu.getSkippedChildCount() );
+	}
+
+	public void testChildOutsideTheCenterIsDrawn() throws Exception {
+		SpiderMenu menu = new SpiderMenu( getContext() );
+		addChild( menu, SpiderMenu.LayoutParams.CENTER );
+		addChild( menu, SpiderMenu.LayoutParams.RADIAL );
+
+		layout( menu );
+		draw( menu );
+		draw( menu );
+		assertEquals( 2, menu.getDrawnChildCount() );
+		assertEquals( 0, menu.getSkippedChildCount() );
+	}
+
+	private View addChild( SpiderMenu menu, int nMenuType ) {
+		View child = new RoundedShadowImageView( getContext(), R.drawable.car );
+		menu.addView( child, new SpiderMenu.LayoutParams( ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT, nMenuType ) );
+		return child;
+	}
+
+	private static void layout( SpiderMenu menu ) {
+		int nSpec = View.MeasureSpec.makeMeasureSpec( MENU_SIZE, View.MeasureSpec.EXACTLY );
+		menu.measure( nSpec, nSpec );
+		menu.layout( 0, 0, MENU_SIZE, MENU_SIZE );
+	}
+
+	/**
+	 * Shrink the radial children into the middle of the center child, as at the start of the open animation, and
+	 * draw twice: the center child only knows its opaque disc once it has drawn its bitmap
+	 */
+	private static void drawCollapsed( SpiderMenu menu ) {
+		layout( menu );
+		for(int nCtr = 0; nCtr < menu.getChildCount(); ++nCtr) {
+			View child = menu.getChildAt( nCtr );
+			if(((SpiderMenu.LayoutParams) child.getLayoutParams()).getMenuType() == SpiderMenu.LayoutParams.CENTER)
+				continue;
+
+			child.setTranslationX( MENU_SIZE / 2f - (child.getLeft() + child.getRight()) / 2f );
+			child.setTranslationY( MENU_SIZE / 2f - (child.getTop() + child.getBottom()) / 2f );
+			child.setScaleX( 0.1f );
+			child.setScaleY( 0.1f );
+		}
+
+		draw( menu );
+		draw( menu );
+	}
+
+	private static void draw( SpiderMenu menu ) {
+		Bitmap bitmap = Bitmap.createBitmap( MENU_SIZE, MENU_SIZE, Bitmap.Config.ARGB_8888 );
+		menu.draw( new Canvas( bitmap ) );
+		bitmap.recycle();
+	}
+}
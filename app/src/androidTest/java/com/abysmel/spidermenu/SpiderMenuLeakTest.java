@@ -0,0 +1,56 @@
+package com.abysmel.spidermenu;
+
+import android.test.ActivityInstrumentationTestCase2;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+
+/**
+ * Checks that a SpiderMenu removed mid animation does not leak through its runnables, animations or springs
+ */
+public class SpiderMenuLeakTest extends ActivityInstrumentationTestCase2<MainActivity> {
+	public SpiderMenuLeakTest() {
+		super( MainActivity.class );
+	}
+
+	public void testMenuIsCollectableAfterDetach() throws Throwable {
+		final MainActivity activity = getActivity();
+		final ArrayList<WeakReference<View>> references = new ArrayList<>();
+
+		/*
+		Remove the menu while the open animation is still pending
+		 */
+		runTestOnUiThread( new Runnable() {
+			@Override
+			public void run() {
+				SpiderMenu menu = activity.spiderMenu;
+				references.add( new WeakReference<View>( menu ) );
+				for(int nCtr = 0; nCtr < menu.getChildCount(); ++nCtr)
+					references.add( new WeakReference<>( menu.getChildAt( nCtr ) ) );
+
+				((ViewGroup) menu.getParent()).removeView( menu );
+				activity.spiderMenu = null;
+			}
+		} );
+		getInstrumentation().waitForIdleSync();
+
+		for(int nAttempt = 0; (nAttempt < 10) && !isCollected( references ); ++nAttempt) {
+			Runtime.getRuntime().gc();
+			System.runFinalization();
+			Thread.sleep( 100 );
+		}
+
+		assertTrue( "The menu or its items leaked after detach", isCollected( references ) );
+	}
+
+	private static boolean isCollected( ArrayList<WeakReference<View>> references ) {
+		for(WeakReference<View> reference : references) {
+			if(reference.get() != null)
+				return false;
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,236 @@
+package com.abysmel.spidermenu;
+
+/**
+ * Picks the render quality of a SpiderMenu from the frame times of its animations. On a device that keeps missing the
+ * frame deadlines, the quality steps down one level at a time:
+ * 1. {@link #QUALITY_FLAT_SHADOWS}: the shadows are drawn with a flat offset instead of the software BlurMaskFilter
+ * 2. {@link #QUALITY_ALIASED_MOTION}: on top of that, the items are not anti-aliased while they move
+ * 3. {@link #QUALITY_SHORT_ANIMATIONS}: on top of that, the animations take half the time
+ *
+ * The frames are counted in windows of {@link #WINDOW_FRAMES}. A frame that is more than one and a half frame budgets
+ * after the previous one missed a deadline, and a fifth of such frames in a window steps the quality down right away.
+ * A few windows in a row without missed frames step it back up. If the quality has to step down again in the window
+ * right after it stepped up, the menu is at its limit, and it waits twice as long before the next try.
+ *
+ * The level can also be set manually, which stops the adaptation till it is set back to {@link #QUALITY_AUTO}. The
+ * steps the adaptation takes down and up are counted. Must be used from the main thread only.
+ */
+public final class AdaptiveQualityController {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * The quality levels, from the best to the cheapest, and the value that resumes the adaptation
+	 */
+	public static final int QUALITY_AUTO = -1;
+	public static final int QUALITY_FULL = 0;
+	public static final int QUALITY_FLAT_SHADOWS = 1;
+	public static final int QUALITY_ALIASED_MOTION = 2;
+	public static final int QUALITY_SHORT_ANIMATIONS = 3;
+
+	/**
+	 * The frames in a window
+	 */
+	static final int WINDOW_FRAMES = 30;
+
+	/**
+	 * A frame that comes later than this many frame budgets after the previous one missed a deadline
+	 */
+	private static final float MISSED_FRAME_FACTOR = 1.5f;
+
+	/**
+	 * The missed frames in a window that step the quality down, and the most a clean window may have
+	 */
+	private static final int STEP_DOWN_MISSED_FRAMES = WINDOW_FRAMES / 5;
+	private static final int CLEAN_WINDOW_MISSED_FRAMES = 0;
+
+	/**
+	 * The clean windows in a row that step the quality up, at first and at most
+	 */
+	private static final int STEP_UP_WINDOWS = 2;
+	private static final int MAX_STEP_UP_WINDOWS = 32;
+
+	/**
+	 * A gap between frames longer than this is a pause of the animations, not a frame
+	 */
+	private static final long MAX_FRAME_GAP_NANOS = 250000000L;
+
+	/**
+	 * The default frame budget, of a 60 Hz display
+	 */
+	private static final long DEFAULT_FRAME_BUDGET_NANOS = 1000000000L / 60;
+
+	/**
+	 * The duration scale of the short animations
+	 */
+	private static final float SHORT_ANIMATION_SCALE = 0.5f;
+
+	private long mnFrameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS;
+	private int mnLevel = QUALITY_FULL;
+	private boolean mbAdaptive = true;
+
+	/**
+	 * The time of the previous frame, or 0 if there is none since the animations started
+	 */
+	private long mnLastFrameTimeNanos = 0;
+
+	/**
+	 * The current window, the clean windows in a row, and the clean windows it takes to step up
+	 */
+	private int mnWindowFrames = 0;
+	private int mnWindowMissedFrames = 0;
+	private int mnCleanWindows = 0;
+	private int mnStepUpWindows = STEP_UP_WINDOWS;
+
+	/**
+	 * True from a step up till the end of the window after it
+	 */
+	private boolean mbSteppedUp = false;
+
+	/**
+	 * The steps the adaptation took down and up so far
+	 */
+	private int mnStepDownCount = 0;
+	private int mnStepUpCount = 0;
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Set the frame budget, from the refresh rate of the display
+	 *
+	 * @param nRefreshRate
+	 *      The refresh rate, in frames per second. Ignored if not positive
+	 */
+	void setRefreshRate( float nRefreshRate ) {
+		if(nRefreshRate > 0)
+			mnFrameBudgetNanos = (long) (1000000000L / nRefreshRate);
+	}
+
+	/**
+	 * Count a frame of the animations
+	 *
+	 * @param nFrameTimeNanos
+	 *      The frame time, as given to a Choreographer frame callback
+	 * @return
+	 *      true if the quality level changed
+	 */
+	boolean onFrame( long nFrameTimeNanos ) {
+		long nLastFrameTimeNanos = mnLastFrameTimeNanos;
+		mnLastFrameTimeNanos = nFrameTimeNanos;
+		if(!mbAdaptive || (nLastFrameTimeNanos == 0))
+			return false;
+
+		long nFrameNanos = nFrameTimeNanos - nLastFrameTimeNanos;
+		if((nFrameNanos <= 0) || (nFrameNanos > MAX_FRAME_GAP_NANOS))
+			return false;
+
+		mnWindowFrames++;
+		if(nFrameNanos > (mnFrameBudgetNanos * MISSED_FRAME_FACTOR))
+			mnWindowMissedFrames++;
+
+		if(mnWindowMissedFrames >= STEP_DOWN_MISSED_FRAMES)
+			return stepDown();
+
+		if(mnWindowFrames < WINDOW_FRAMES)
+			return false;
+
+		/*
+		A full window. Step up after enough clean ones
+		 */
+		boolean bClean = (mnWindowMissedFrames <= CLEAN_WINDOW_MISSED_FRAMES);
+		mnWindowFrames = mnWindowMissedFrames = 0;
+		mbSteppedUp = false;
+		mnCleanWindows = (bClean) ? (mnCleanWindows + 1) : 0;
+		if((mnCleanWindows < mnStepUpWindows) || (mnLevel == QUALITY_FULL))
+			return false;
+
+		mnLevel--;
+		mnCleanWindows = 0;
+		mbSteppedUp = true;
+		mnStepUpCount++;
+		return true;
+	}
+
+	/**
+	 * Step the quality down, if it is not at the lowest level already, and start a new window
+	 */
+	private boolean stepDown() {
+		mnWindowFrames = mnWindowMissedFrames = 0;
+		mnCleanWindows = 0;
+		if(mbSteppedUp)
+			mnStepUpWindows = Math.min( mnStepUpWindows * 2, MAX_STEP_UP_WINDOWS );
+		mbSteppedUp = false;
+
+		if(mnLevel == QUALITY_SHORT_ANIMATIONS)
+			return false;
+
+		mnLevel++;
+		mnStepDownCount++;
+		return true;
+	}
+
+	/**
+	 * The animations stopped. The next frame starts a new run, so that the pause is not taken for a long frame
+	 */
+	void onMotionEnd() {
+		mnLastFrameTimeNanos = 0;
+	}
+
+	/**
+	 * Set the quality level manually, or resume the adaptation from the current level
+	 *
+	 * @param nLevel
+	 *      One of the QUALITY_* values
+	 */
+	void setLevel( int nLevel ) {
+		if((nLevel < QUALITY_AUTO) || (nLevel > QUALITY_SHORT_ANIMATIONS))
+			throw new IllegalArgumentException( "Unknown quality level " + nLevel );
+
+		mbAdaptive = (nLevel == QUALITY_AUTO);
+		if(!mbAdaptive)
+			mnLevel = nLevel;
+		mnWindowFrames = mnWindowMissedFrames = 0;
+		mnCleanWindows = 0;
+		mbSteppedUp = false;
+	}
+
+	int getLevel() {
+		return mnLevel;
+	}
+
+	boolean isAdaptive() {
+		return mbAdaptive;
+	}
+
+	int getStepDownCount() {
+		return mnStepDownCount;
+	}
+
+	int getStepUpCount() {
+		return mnStepUpCount;
+	}
+
+	/**
+	 * Check if the shadows are blurred at the current level
+	 */
+	boolean isShadowBlurred() {
+		return mnLevel < QUALITY_FLAT_SHADOWS;
+	}
+
+	/**
+	 * Check if the items are anti-aliased while they move at the current level
+	 */
+	boolean isAntiAliasedInMotion() {
+		return mnLevel < QUALITY_ALIASED_MOTION;
+	}
+
+	/**
+	 * Scale an animation duration for the current level
+	 *
+	 * @param nDuration
+	 *      The configured duration
+	 * @return
+	 *      The duration to animate with
+	 */
+	long scaleDuration( long nDuration ) {
+		return (mnLevel >= QUALITY_SHORT_ANIMATIONS) ? (long) (nDuration * SHORT_ANIMATION_SCALE) : nDuration;
+	}
+}
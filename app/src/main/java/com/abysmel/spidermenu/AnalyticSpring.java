@@ -0,0 +1,271 @@
+package com.abysmel.spidermenu;
+
+/**
+ * A spring that moves from 0 to 1, at rest at first, evaluated in closed form. The physics are the ones of a
+ * Rebound spring with the same tension and friction (unit mass, acceleration = tension * (1 - x) - friction * v),
+ * but the position is computed directly from the elapsed time instead of being integrated frame by frame. The
+ * result only depends on the time, so it is the same however the frames fall.
+ *
+ * The time at which the spring comes to rest is computed once, up front. Like Rebound, the spring is at rest as soon
+ * as both the displacement and the speed are within the rest thresholds, and it then snaps to the end value. The
+ * decay of the oscillation bounds that time, and the trajectory is searched up to the bound, at the step of the
+ * Rebound solver. A spring without friction never rests, so the settle time is capped.
+ */
+final class AnalyticSpring {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * The rest thresholds, as in Rebound
+	 */
+	static final double REST_DISPLACEMENT_THRESHOLD = 0.005;
+	static final double REST_SPEED_THRESHOLD = 0.005;
+
+	/**
+	 * The longest a spring is let run, in seconds
+	 */
+	static final double MAX_SETTLE_TIME = 10;
+
+	/**
+	 * The step of the search for the rest time, as the one of the Rebound solver, and the precision it is refined
+	 * to, in seconds
+	 */
+	private static final double SETTLE_SEARCH_STEP = 0.001;
+	private static final double SETTLE_PRECISION = 1e-5;
+
+	/**
+	 * The damping regimes
+	 */
+	private static final int UNDERDAMPED = 0;
+	private static final int CRITICALLY_DAMPED = 1;
+	private static final int OVERDAMPED = 2;
+
+	/**
+	 * How close to 1 the damping ratio is taken as critical
+	 */
+	private static final double CRITICAL_TOLERANCE = 1e-6;
+
+	private final int mnRegime;
+
+	/**
+	 * The natural frequency, and the decay rate and the damped frequency of an underdamped spring
+	 */
+	private final double mnOmega;
+	private final double mnDecay;
+	private final double mnDampedOmega;
+
+	/**
+	 * The displacement from the end value is c1 * f1(t) + c2 * f2(t), with f depending on the regime: the cosine and
+	 * the sine of an underdamped spring, 1 and t of a critically damped one, and the two exponentials (with the
+	 * roots r1 and r2) of an overdamped one
+	 */
+	private final double mnCoefficient1;
+	private final double mnCoefficient2;
+	private final double mnRoot1;
+	private final double mnRoot2;
+
+	/**
+	 * The time at which the spring is at rest, in seconds
+	 */
+	private final double mnSettleTime;
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Constructor
+	 *
+	 * @param nTension
+	 *      The tension, as in a Rebound SpringConfig
+	 * @param nFriction
+	 *      The friction, as in a Rebound SpringConfig
+	 */
+	AnalyticSpring( double nTension, double nFriction ) {
+		mnOmega = Math.sqrt( Math.max( nTension, 0 ) );
+		double nDampingRatio = (mnOmega > 0) ? (nFriction / (2 * mnOmega)) : Double.POSITIVE_INFINITY;
+
+		if((mnOmega > 0) && (nDampingRatio < 1 - CRITICAL_TOLERANCE)) {
+			mnRegime = UNDERDAMPED;
+			mnDecay = nDampingRatio * mnOmega;
+			mnDampedOmega = mnOmega * Math.sqrt( 1 - (nDampingRatio * nDampingRatio) );
+			mnCoefficient1 = -1;
+			mnCoefficient2 = -mnDecay / mnDampedOmega;
+			mnRoot1 = mnRoot2 = 0;
+		}
+		else if((mnOmega > 0) && (nDampingRatio <= 1 + CRITICAL_TOLERANCE)) {
+			mnRegime = CRITICALLY_DAMPED;
+			mnDecay = mnOmega;
+			mnDampedOmega = 0;
+			mnCoefficient1 = -1;
+			mnCoefficient2 = -mnOmega;
+			mnRoot1 = mnRoot2 = -mnOmega;
+		}
+		else if(mnOmega > 0) {
+			mnRegime = OVERDAMPED;
+			mnDecay = mnDampedOmega = 0;
+			double nRootDistance = mnOmega * Math.sqrt( (nDampingRatio * nDampingRatio) - 1 );
+			mnRoot1 = (-nDampingRatio * mnOmega) + nRootDistance;        //The slow root
+			mnRoot2 = (-nDampingRatio * mnOmega) - nRootDistance;
+			mnCoefficient1 = mnRoot2 / (mnRoot1 - mnRoot2);
+			mnCoefficient2 = -1 - mnCoefficient1;
+		}
+		else {
+			/*
+			No tension: the spring does not move
+			 */
+			mnRegime = OVERDAMPED;
+			mnDecay = mnDampedOmega = 0;
+			mnRoot1 = mnRoot2 = 0;
+			mnCoefficient1 = -1;
+			mnCoefficient2 = 0;
+		}
+
+		double nSettleBound = calculateSettleTime();
+		mnSettleTime = (nSettleBound >= MAX_SETTLE_TIME) ? MAX_SETTLE_TIME : findRestTime( nSettleBound );
+	}
+
+	/**
+	 * Get the position of the spring
+	 *
+	 * @param nTime
+	 *      The time since the spring started, in seconds
+	 * @return
+	 *      The position. 1 once the spring is at rest
+	 */
+	double getValue( double nTime ) {
+		if(nTime <= 0)
+			return 0;
+		if(nTime >= mnSettleTime)
+			return 1;
+		return 1 + getDisplacement( nTime );
+	}
+
+	/**
+	 * Get the velocity of the spring
+	 *
+	 * @param nTime
+	 *      The time since the spring started, in seconds
+	 * @return
+	 *      The velocity, per second. 0 once the spring is at rest
+	 */
+	double getVelocity( double nTime ) {
+		if((nTime <= 0) || (nTime >= mnSettleTime))
+			return 0;
+		return getDisplacementVelocity( nTime );
+	}
+
+	/**
+	 * Get the time at which the spring comes to rest
+	 *
+	 * @return
+	 *      The settle time, in seconds
+	 */
+	double getSettleTime() {
+		return mnSettleTime;
+	}
+
+	/**
+	 * Get the rate of change of the displacement, i.e. the velocity
+	 */
+	private double getDisplacementVelocity( double nTime ) {
+		switch ( mnRegime ) {
+			case UNDERDAMPED: {
+				double nAngle = mnDampedOmega * nTime;
+				double nCos = Math.cos( nAngle );
+				double nSin = Math.sin( nAngle );
+				return Math.exp( -mnDecay * nTime ) * (((mnCoefficient2 * mnDampedOmega) - (mnDecay * mnCoefficient1)) * nCos -
+						((mnCoefficient1 * mnDampedOmega) + (mnDecay * mnCoefficient2)) * nSin);
+			}
+			case CRITICALLY_DAMPED:
+				return Math.exp( -mnDecay * nTime ) * (mnCoefficient2 - (mnDecay * (mnCoefficient1 + (mnCoefficient2 * nTime))));
+			default:
+				return (mnCoefficient1 * mnRoot1 * Math.exp( mnRoot1 * nTime )) + (mnCoefficient2 * mnRoot2 * Math.exp( mnRoot2 * nTime ));
+		}
+	}
+
+	/**
+	 * Get the displacement from the end value, i.e. the position - 1
+	 */
+	private double getDisplacement( double nTime ) {
+		switch ( mnRegime ) {
+			case UNDERDAMPED: {
+				double nAngle = mnDampedOmega * nTime;
+				return Math.exp( -mnDecay * nTime ) * ((mnCoefficient1 * Math.cos( nAngle )) + (mnCoefficient2 * Math.sin( nAngle )));
+			}
+			case CRITICALLY_DAMPED:
+				return Math.exp( -mnDecay * nTime ) * (mnCoefficient1 + (mnCoefficient2 * nTime));
+			default:
+				return (mnCoefficient1 * Math.exp( mnRoot1 * nTime )) + (mnCoefficient2 * Math.exp( mnRoot2 * nTime ));
+		}
+	}
+
+	/**
+	 * Search the trajectory for the first time both the displacement and the speed are within the rest thresholds
+	 *
+	 * @param nBound
+	 *      A time after which the spring is known to stay within the thresholds
+	 * @return
+	 *      The settle time, in seconds
+	 */
+	private double findRestTime( double nBound ) {
+		for(double nTime = SETTLE_SEARCH_STEP; nTime < nBound; nTime += SETTLE_SEARCH_STEP) {
+			if(!isWithinRestThresholds( nTime ))
+				continue;
+
+			double nLow = nTime - SETTLE_SEARCH_STEP;
+			double nHigh = nTime;
+			while((nHigh - nLow) > SETTLE_PRECISION) {
+				double nMiddle = (nLow + nHigh) / 2;
+				if(isWithinRestThresholds( nMiddle ))
+					nHigh = nMiddle;
+				else
+					nLow = nMiddle;
+			}
+			return nHigh;
+		}
+
+		return nBound;
+	}
+
+	private boolean isWithinRestThresholds( double nTime ) {
+		return (Math.abs( getDisplacement( nTime ) ) <= REST_DISPLACEMENT_THRESHOLD) && (Math.abs( getDisplacementVelocity( nTime ) ) <= REST_SPEED_THRESHOLD);
+	}
+
+	/**
+	 * Find a time after which the displacement and the speed stay below the rest thresholds. An underdamped or
+	 * overdamped spring is bounded by a single decaying exponential, so the time is solved for directly. The bound of
+	 * a critically damped spring has a polynomial factor, and is bisected
+	 */
+	private double calculateSettleTime() {
+		switch ( mnRegime ) {
+			case UNDERDAMPED: {
+				if(mnDecay <= 0)
+					return MAX_SETTLE_TIME;
+
+				double nAmplitude = Math.hypot( mnCoefficient1, mnCoefficient2 );
+				double nDisplacementTime = Math.log( nAmplitude / REST_DISPLACEMENT_THRESHOLD ) / mnDecay;
+				double nSpeedTime = Math.log( (mnOmega * nAmplitude) / REST_SPEED_THRESHOLD ) / mnDecay;
+				return Math.max( 0, Math.max( nDisplacementTime, nSpeedTime ) );
+			}
+			case CRITICALLY_DAMPED: {
+				double nLow = 1 / mnOmega;              //The speed only decays after its peak
+				double nHigh = MAX_SETTLE_TIME;
+				while((nHigh - nLow) > 1e-4) {
+					double nMiddle = (nLow + nHigh) / 2;
+					if((Math.abs( getDisplacement( nMiddle ) ) <= REST_DISPLACEMENT_THRESHOLD) && (Math.abs( getDisplacementVelocity( nMiddle ) ) <= REST_SPEED_THRESHOLD))
+						nHigh = nMiddle;
+					else
+						nLow = nMiddle;
+				}
+				return nHigh;
+			}
+			default: {
+				if(mnRoot1 >= 0)
+					return MAX_SETTLE_TIME;
+
+				double nDisplacementBound = Math.abs( mnCoefficient1 ) + Math.abs( mnCoefficient2 );
+				double nSpeedBound = Math.abs( mnCoefficient1 * mnRoot1 ) + Math.abs( mnCoefficient2 * mnRoot2 );
+				double nDisplacementTime = Math.log( nDisplacementBound / REST_DISPLACEMENT_THRESHOLD ) / -mnRoot1;
+				double nSpeedTime = Math.log( nSpeedBound / REST_SPEED_THRESHOLD ) / -mnRoot1;
+				return Math.max( 0, Math.max( nDisplacementTime, nSpeedTime ) );
+			}
+		}
+	}
+}
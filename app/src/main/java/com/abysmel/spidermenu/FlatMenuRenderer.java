@@ -0,0 +1,550 @@
+package com.abysmel.spidermenu;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.support.v4.content.ContextCompat;
+import android.util.SparseIntArray;
+
+import com.abysmel.spidermenu.SpiderMenu.SpiderMenuItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Draws the items of a SpiderMenu in the flat render mode, where the menu has no child views at all. The state of
+ * the items lives in primitive arrays indexed by the item position, the icons are shared shader bitmaps (one per
+ * drawable resource) and the shadows are blurred once into a bitmap per item style and size, so that the menu can be
+ * drawn with hardware acceleration.
+ *
+ * The radial items sit on equal sectors of the circle, and move out from the center along the middle of their sector,
+ * so a touch is resolved to its item through the sector index in O(1), whatever the number of items, and checked
+ * against where the item is drawn at that time.
+ */
+final class FlatMenuRenderer {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * No item
+	 */
+	static final int NO_ITEM = -1;
+
+	/**
+	 * The part of the open animation taken by the center item, and by every radial item
+	 */
+	private static final float CENTER_ITEM_PROGRESS = 0.3f;
+	static final float RADIAL_ITEM_PROGRESS = 0.4f;
+
+	/**
+	 * The first radial item is at the top, like in the view mode
+	 */
+	private static final double START_ANGLE = 270;
+
+	/**
+	 * The item state
+	 */
+	private int mnItemCount = 0;
+	private int[] mItemIDs = new int[0];
+	private boolean[] mbCenterItems = new boolean[0];
+	private int[] mBitmapIndices = new int[0];
+	private int[] mDrawableResourceIDs = new int[0];
+	private CharSequence[] mTitles = new CharSequence[0];
+	private float[] mCenterX = new float[0];
+	private float[] mCenterY = new float[0];
+
+	/**
+	 * The radial item of every sector, and the center item
+	 */
+	private int[] mSectorItems = new int[0];
+	private int mnCenterItem = NO_ITEM;
+
+	/**
+	 * The geometry of the last layout
+	 */
+	private float mnMenuCenter = 0;
+	private float mnRadialRadius = 0;
+	private float mnCenterRadius = 0;
+
+	/**
+	 * The open animation progress [0, 1]
+	 */
+	private float mnProgress = 1;
+
+	/**
+	 * The shared icon bitmaps and their shaders, and the bitmap index of every drawable resource. Only the icons of
+	 * the current items are kept
+	 */
+	private ArrayList<Bitmap> mBitmaps = new ArrayList<>();
+	private ArrayList<BitmapShader> mShaders = new ArrayList<>();
+	private SparseIntArray mBitmapIndexByResource = new SparseIntArray();
+
+	/**
+	 * The context the icons are loaded with, and whether they have to be loaded again after being released
+	 */
+	private Context mContext = null;
+	private boolean mbBitmapsReleased = false;
+
+	/**
+	 * The blurred shadows of the radial and the center items, for the current sizes
+	 */
+	private Bitmap mRadialShadow = null;
+	private Bitmap mCenterShadow = null;
+	private SpiderMenuItemStyle mRadialShadowStyle = null;
+	private SpiderMenuItemStyle mCenterShadowStyle = null;
+
+	/**
+	 * The paints. Their alpha changes per item, so they are not shared with the item styles
+	 */
+	private final Paint mBitmapPaint = new Paint( Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG );
+	private final Paint mBackgroundPaint = new Paint( Paint.ANTI_ALIAS_FLAG );
+	private final Paint mShadowPaint = new Paint( Paint.FILTER_BITMAP_FLAG );
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Set the items. The icons are loaded once per drawable resource, and the icons of the previous items that are
+	 * not used anymore are dropped
+	 *
+	 * @param context
+	 *      The context
+	 * @param items
+	 *      The items
+	 */
+	void setItems( Context context, List<SpiderMenuItem> items ) {
+		mnItemCount = items.size();
+		if(mItemIDs.length < mnItemCount) {
+			mItemIDs = new int[mnItemCount];
+			mbCenterItems = new boolean[mnItemCount];
+			mBitmapIndices = new int[mnItemCount];
+			mDrawableResourceIDs = new int[mnItemCount];
+			mTitles = new CharSequence[mnItemCount];
+			mCenterX = new float[mnItemCount];
+			mCenterY = new float[mnItemCount];
+		}
+
+		mContext = context;
+		int nRadialCount = 0;
+		mnCenterItem = NO_ITEM;
+		for(int nCtr = 0; nCtr < mnItemCount; ++nCtr) {
+			SpiderMenuItem item = items.get( nCtr );
+			mItemIDs[nCtr] = item.getID();
+			mTitles[nCtr] = item.getTitle();
+			mDrawableResourceIDs[nCtr] = item.getDrawableResourceID();
+			mbCenterItems[nCtr] = (item.getMenuType() == SpiderMenu.LayoutParams.CENTER) && (mnCenterItem == NO_ITEM);
+			if(mbCenterItems[nCtr])
+				mnCenterItem = nCtr;
+			else
+				nRadialCount++;
+		}
+
+		/*
+		The sector index. Radial items take the sectors in order
+		 */
+		mSectorItems = new int[nRadialCount];
+		int nSector = 0;
+		for(int nCtr = 0; nCtr < mnItemCount; ++nCtr) {
+			if(!mbCenterItems[nCtr])
+				mSectorItems[nSector++] = nCtr;
+		}
+
+		loadBitmaps();
+	}
+
+	/**
+	 * Point the items at their icons. The icons already loaded are reused, and the others are loaded
+	 */
+	private void loadBitmaps() {
+		ArrayList<Bitmap> oldBitmaps = mBitmaps;
+		ArrayList<BitmapShader> oldShaders = mShaders;
+		SparseIntArray oldBitmapIndexByResource = mBitmapIndexByResource;
+		mBitmaps = new ArrayList<>();
+		mShaders = new ArrayList<>();
+		mBitmapIndexByResource = new SparseIntArray();
+
+		for(int nCtr = 0; nCtr < mnItemCount; ++nCtr) {
+			int nDrawableResourceID = mDrawableResourceIDs[nCtr];
+			int nOldIndex = oldBitmapIndexByResource.get( nDrawableResourceID, NO_ITEM );
+			if((nOldIndex != NO_ITEM) && (mBitmapIndexByResource.get( nDrawableResourceID, NO_ITEM ) == NO_ITEM)) {
+				mBitmaps.add( oldBitmaps.get( nOldIndex ) );
+				mShaders.add( oldShaders.get( nOldIndex ) );
+				mBitmapIndexByResource.put( nDrawableResourceID, mBitmaps.size() - 1 );
+			}
+			mBitmapIndices[nCtr] = getBitmapIndex( mContext, nDrawableResourceID );
+		}
+		mbBitmapsReleased = false;
+	}
+
+	/**
+	 * Get the index of the shared bitmap of a drawable resource, loading it the first time
+	 *
+	 * @return
+	 *      The bitmap index, or NO_ITEM if there is no bitmap
+	 */
+	private int getBitmapIndex( Context context, int nDrawableResourceID ) {
+		if(nDrawableResourceID == 0)
+			return NO_ITEM;
+
+		int nIndex = mBitmapIndexByResource.get( nDrawableResourceID, NO_ITEM );
+		if(nIndex != NO_ITEM)
+			return nIndex;
+
+		Bitmap bitmap = getBitmapFromDrawable( ContextCompat.getDrawable( context, nDrawableResourceID ) );
+		if(bitmap == null)
+			return NO_ITEM;
+
+		mBitmaps.add( bitmap );
+		mShaders.add( new BitmapShader( bitmap, BitmapShader.TileMode.CLAMP, BitmapShader.TileMode.CLAMP ) );
+		nIndex = mBitmaps.size() - 1;
+		mBitmapIndexByResource.put( nDrawableResourceID, nIndex );
+		return nIndex;
+	}
+
+	/**
+	 * Create a bitmap from a drawable
+	 */
+	private static Bitmap getBitmapFromDrawable( Drawable drawable ) {
+		if(drawable == null)
+			return null;
+		else if(drawable instanceof BitmapDrawable)
+			return ((BitmapDrawable) drawable).getBitmap();
+
+		int nWidth = drawable.getIntrinsicWidth();
+		int nHeight = drawable.getIntrinsicHeight();
+		if((nWidth <= 0) || (nHeight <= 0))
+			return null;
+
+		try {
+			Bitmap bitmap = Bitmap.createBitmap( nWidth, nHeight, Bitmap.Config.ARGB_8888 );
+			Canvas canvas = new Canvas( bitmap );
+			drawable.setBounds( 0, 0, nWidth, nHeight );
+			drawable.draw( canvas );
+			return bitmap;
+		}
+		catch ( OutOfMemoryError e ) {
+			Logger.d( "Out of memory exception when creating bitmap from drawable" );
+			return null;
+		}
+	}
+
+	/**
+	 * Place the items, blur the shadows again if the item sizes or styles changed, and load the icons again if they
+	 * were released
+	 *
+	 * @param nMenuCenter
+	 *      The center of the menu, on both axes
+	 * @param nOrbitRadius
+	 *      The distance of the radial item centers from the menu center
+	 * @param nRadialRadius
+	 *      The radius of the radial items
+	 * @param nCenterRadius
+	 *      The radius of the center item
+	 * @param radialStyle
+	 *      The style of the radial items
+	 * @param centerStyle
+	 *      The style of the center item
+	 */
+	void layout( float nMenuCenter, float nOrbitRadius, float nRadialRadius, float nCenterRadius, SpiderMenuItemStyle radialStyle, SpiderMenuItemStyle centerStyle ) {
+		mnMenuCenter = nMenuCenter;
+		if(mbBitmapsReleased)
+			loadBitmaps();
+
+		float nRadialDiscRadius = getDiscRadius( nRadialRadius, radialStyle );
+		float nCenterDiscRadius = getDiscRadius( nCenterRadius, centerStyle );
+		if((mRadialShadow == null) || (nRadialDiscRadius != mnRadialRadius) || (radialStyle != mRadialShadowStyle))
+			mRadialShadow = createShadow( nRadialDiscRadius, radialStyle );
+		if((mCenterShadow == null) || (nCenterDiscRadius != mnCenterRadius) || (centerStyle != mCenterShadowStyle))
+			mCenterShadow = createShadow( nCenterDiscRadius, centerStyle );
+		mRadialShadowStyle = radialStyle;
+		mCenterShadowStyle = centerStyle;
+		mnRadialRadius = nRadialDiscRadius;
+		mnCenterRadius = nCenterDiscRadius;
+
+		double nSectorAngle = 360.0 / Math.max( 1, mSectorItems.length );
+		for(int nSector = 0; nSector < mSectorItems.length; ++nSector) {
+			double nAngle = Math.toRadians( START_ANGLE + nSectorAngle * nSector );
+			mCenterX[mSectorItems[nSector]] = (float) (nMenuCenter + nOrbitRadius * Math.cos( nAngle ));
+			mCenterY[mSectorItems[nSector]] = (float) (nMenuCenter + nOrbitRadius * Math.sin( nAngle ));
+		}
+
+		if(mnCenterItem != NO_ITEM) {
+			mCenterX[mnCenterItem] = nMenuCenter;
+			mCenterY[mnCenterItem] = nMenuCenter;
+		}
+	}
+
+	/**
+	 * Get the radius of the disc of an item, leaving room for its shadow offset like RoundedShadowImageView does
+	 */
+	private static float getDiscRadius( float nItemRadius, SpiderMenuItemStyle style ) {
+		return Math.max( 0, nItemRadius - Math.max( style.getHorizontalOffset(), style.getVerticalOffset() ) / 2f );
+	}
+
+	/**
+	 * Blur the shadow of a disc into a bitmap. Done in software, once per style and size, and shared through the
+	 * {@link ShaderBitmapCache}, so that a recreated menu does not blur it again
+	 *
+	 * @return
+	 *      The shadow, centered on the disc, or null if there is no disc
+	 */
+	private static Bitmap createShadow( float nDiscRadius, SpiderMenuItemStyle style ) {
+		if(nDiscRadius <= 0)
+			return null;
+
+		String key = "shadow/" + nDiscRadius + "/" + style.getShadowRadius() + "/" + style.getShadowPaint().getColor();
+		Bitmap shadow = ShaderBitmapCache.get( key );
+		if(shadow != null)
+			return shadow;
+
+		int nSize = (int) Math.ceil( (nDiscRadius + style.getShadowRadius() * 2) * 2 );
+		try {
+			shadow = Bitmap.createBitmap( nSize, nSize, Bitmap.Config.ARGB_8888 );
+			new Canvas( shadow ).drawCircle( nSize / 2f, nSize / 2f, nDiscRadius, style.getShadowPaint() );
+			ShaderBitmapCache.put( key, shadow );
+			return shadow;
+		}
+		catch ( OutOfMemoryError e ) {
+			Logger.d( "Out of memory exception when creating the shadow bitmap" );
+			return null;
+		}
+	}
+
+	/**
+	 * Set the progress of the open animation. The center item grows first, and the radial items follow one after
+	 * the other, moving out from the center
+	 *
+	 * @param nProgress
+	 *      The progress [0, 1]. 1 is open
+	 */
+	void setProgress( float nProgress ) {
+		mnProgress = nProgress;
+	}
+
+	float getProgress() {
+		return mnProgress;
+	}
+
+	/**
+	 * Anti-alias the items or not. The shadows are blurred into bitmaps once, so the flat render mode has no blur to
+	 * drop at the lower adaptive quality levels
+	 *
+	 * @param bAntiAliased
+	 *      true to anti-alias the item backgrounds and icons
+	 */
+	void setAntiAliased( boolean bAntiAliased ) {
+		mBitmapPaint.setAntiAlias( bAntiAliased );
+		mBackgroundPaint.setAntiAlias( bAntiAliased );
+	}
+
+	/**
+	 * Get the eased progress of an item
+	 */
+	private float getItemProgress( int nItem, int nSector ) {
+		float nStart;
+		float nLength;
+		if(nItem == mnCenterItem) {
+			nStart = 0;
+			nLength = CENTER_ITEM_PROGRESS;
+		}
+		else {
+			float nStagger = (mSectorItems.length > 1) ? (1 - CENTER_ITEM_PROGRESS - RADIAL_ITEM_PROGRESS) / (mSectorItems.length - 1) : 0;
+			nStart = CENTER_ITEM_PROGRESS + nStagger * nSector;
+			nLength = RADIAL_ITEM_PROGRESS;
+		}
+
+		float nItemProgress = Math.max( 0, Math.min( 1, (mnProgress - nStart) / nLength ) );
+		return 1 - (1 - nItemProgress) * (1 - nItemProgress);        //Decelerate
+	}
+
+	/**
+	 * Draw the items. The radial items go first, so that they come out from below the center item
+	 *
+	 * @param canvas
+	 *      The canvas
+	 * @param radialStyle
+	 *      The style of the radial items
+	 * @param centerStyle
+	 *      The style of the center item
+	 * @return
+	 *      The number of items drawn
+	 */
+	int draw( Canvas canvas, SpiderMenuItemStyle radialStyle, SpiderMenuItemStyle centerStyle ) {
+		int nDrawnCount = 0;
+		for(int nSector = 0; nSector < mSectorItems.length; ++nSector) {
+			int nItem = mSectorItems[nSector];
+			float nItemProgress = getItemProgress( nItem, nSector );
+			if(nItemProgress <= 0)
+				continue;
+
+			float nX = mnMenuCenter + (mCenterX[nItem] - mnMenuCenter) * nItemProgress;
+			float nY = mnMenuCenter + (mCenterY[nItem] - mnMenuCenter) * nItemProgress;
+			drawItem( canvas, nItem, nX, nY, mnRadialRadius, nItemProgress, radialStyle, mRadialShadow );
+			nDrawnCount++;
+		}
+
+		if(mnCenterItem != NO_ITEM) {
+			float nItemProgress = getItemProgress( mnCenterItem, 0 );
+			if(nItemProgress > 0) {
+				drawItem( canvas, mnCenterItem, mnMenuCenter, mnMenuCenter, mnCenterRadius, nItemProgress, centerStyle, mCenterShadow );
+				nDrawnCount++;
+			}
+		}
+
+		return nDrawnCount;
+	}
+
+	/**
+	 * Draw an item: the shadow, the background fill and the icon
+	 */
+	private void drawItem( Canvas canvas, int nItem, float nX, float nY, float nRadius, float nScale, SpiderMenuItemStyle style, Bitmap shadow ) {
+		int nAlpha = (int) (255 * nScale);
+
+		if(shadow != null) {
+			float nShadowX = style.getHorizontalOffset() - ((style.isHorizontalOffsetRequired()) ? style.getShadowRadius() : 0);
+			float nShadowY = style.getVerticalOffset() - ((style.isVerticalOffsetRequired()) ? style.getShadowRadius() : 0);
+			mShadowPaint.setAlpha( nAlpha );
+			canvas.save();
+			canvas.translate( nX + nShadowX * nScale, nY + nShadowY * nScale );
+			canvas.scale( nScale, nScale );
+			canvas.drawBitmap( shadow, -shadow.getWidth() / 2f, -shadow.getHeight() / 2f, mShadowPaint );
+			canvas.restore();
+		}
+
+		int nBackgroundColor = style.getBackgroundColor();
+		if(Color.alpha( nBackgroundColor ) != 0) {
+			mBackgroundPaint.setColor( nBackgroundColor );
+			mBackgroundPaint.setAlpha( Color.alpha( nBackgroundColor ) * nAlpha / 255 );
+			canvas.drawCircle( nX, nY, nRadius * nScale, mBackgroundPaint );
+		}
+
+		/*
+		Draw the icon in bitmap space, so that the shared shader never changes
+		 */
+		int nBitmapIndex = mBitmapIndices[nItem];
+		if(nBitmapIndex == NO_ITEM)
+			return;
+
+		Bitmap bitmap = mBitmaps.get( nBitmapIndex );
+		float nBitmapRadius = Math.min( bitmap.getWidth(), bitmap.getHeight() ) / 2f;
+		float nBitmapScale = nRadius * nScale / nBitmapRadius;
+		mBitmapPaint.setShader( mShaders.get( nBitmapIndex ) );
+		mBitmapPaint.setAlpha( nAlpha );
+		canvas.save();
+		canvas.translate( nX, nY );
+		canvas.scale( nBitmapScale, nBitmapScale );
+		canvas.translate( -bitmap.getWidth() / 2f, -bitmap.getHeight() / 2f );
+		canvas.drawCircle( bitmap.getWidth() / 2f, bitmap.getHeight() / 2f, nBitmapRadius, mBitmapPaint );
+		canvas.restore();
+	}
+
+	/**
+	 * Find the item at a point, where the items are drawn at the current progress. The center item first, then the
+	 * radial item of the sector the point is in
+	 *
+	 * @param nX
+	 *      X in the menu
+	 * @param nY
+	 *      Y in the menu
+	 * @return
+	 *      The item position, or NO_ITEM
+	 */
+	int findItemAt( float nX, float nY ) {
+		float nDeltaX = nX - mnMenuCenter;
+		float nDeltaY = nY - mnMenuCenter;
+		if((mnCenterItem != NO_ITEM) && (Math.hypot( nDeltaX, nDeltaY ) <= mnCenterRadius * getItemProgress( mnCenterItem, 0 )))
+			return mnCenterItem;
+
+		if(mSectorItems.length == 0)
+			return NO_ITEM;
+
+		return findItemInDirection( MarkingMenuGesture.getAngle( nDeltaX, nDeltaY ), nX, nY );
+	}
+
+	/**
+	 * Find the radial item of the sector an angle is in
+	 *
+	 * @param nAngle
+	 *      The angle in degrees, clockwise from the positive X axis
+	 * @return
+	 *      The item position, or NO_ITEM if there are no radial items
+	 */
+	int findItemInDirection( float nAngle ) {
+		return findItemInDirection( nAngle, Float.NaN, Float.NaN );
+	}
+
+	/**
+	 * Find the radial item of the sector an angle is in, and check that the point (if any) is on it where it is drawn
+	 * at the current progress
+	 */
+	private int findItemInDirection( float nAngle, float nX, float nY ) {
+		if(mSectorItems.length == 0)
+			return NO_ITEM;
+
+		double nSectorAngle = 360.0 / mSectorItems.length;
+		double nRelativeAngle = ((nAngle - START_ANGLE) % 360 + 360) % 360;
+		int nSector = (int) Math.round( nRelativeAngle / nSectorAngle ) % mSectorItems.length;
+		int nItem = mSectorItems[nSector];
+
+		if(!Float.isNaN( nX )) {
+			float nItemProgress = getItemProgress( nItem, nSector );
+			float nItemX = mnMenuCenter + (mCenterX[nItem] - mnMenuCenter) * nItemProgress;
+			float nItemY = mnMenuCenter + (mCenterY[nItem] - mnMenuCenter) * nItemProgress;
+			if((nItemProgress <= 0) || (Math.hypot( nX - nItemX, nY - nItemY ) > mnRadialRadius * nItemProgress))
+				return NO_ITEM;
+		}
+
+		return nItem;
+	}
+
+	/**
+	 * Get the bounds of an item when open
+	 *
+	 * @param nItem
+	 *      The item position
+	 * @param bounds
+	 *      Set to the bounds
+	 */
+	void getItemBounds( int nItem, Rect bounds ) {
+		float nRadius = (nItem == mnCenterItem) ? mnCenterRadius : mnRadialRadius;
+		bounds.set( (int) (mCenterX[nItem] - nRadius), (int) (mCenterY[nItem] - nRadius),
+				(int) (mCenterX[nItem] + nRadius), (int) (mCenterY[nItem] + nRadius) );
+	}
+
+	int getItemCount() {
+		return mnItemCount;
+	}
+
+	int getCenterItem() {
+		return mnCenterItem;
+	}
+
+	int getRadialItemCount() {
+		return mSectorItems.length;
+	}
+
+	int getItemID( int nItem ) {
+		return mItemIDs[nItem];
+	}
+
+	CharSequence getItemTitle( int nItem ) {
+		return mTitles[nItem];
+	}
+
+	/**
+	 * Drop the shadows and the icons. They are blurred and loaded again on the next layout
+	 */
+	void releaseBitmaps() {
+		mRadialShadow = null;
+		mCenterShadow = null;
+		mBitmaps.clear();
+		mShaders.clear();
+		mBitmapIndexByResource.clear();
+		Arrays.fill( mBitmapIndices, NO_ITEM );
+		mbBitmapsReleased = true;
+	}
+}
@@ -2,26 +2,52 @@ package com.abysmel.spidermenu;
 
 import android.util.Log;
 
+import java.util.Locale;
+
 
 
 /**
  * Created by Melvin Lobo on 12/10/2015.
  *
  * Class for conditional logging. Uses Android Log internally
+ *
+ * Use the parameterized overloads on hot paths: the message is formatted only if logging is enabled, and the
+ * primitive overloads do not even box their arguments otherwise. Logging is compiled in only if
+ * BuildConfig.LOGGING_ENABLED is set (debug builds), and the release ProGuard / R8 rules strip the calls along with
+ * their arguments.
+ *
+ * The trace methods record events in an in-memory {@link TraceRingBuffer}, which can be dumped on demand.
  */
 public class Logger {
 
 	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
-	private static boolean mDevModeEnabled = true;
+	/**
+	 * The build-time switch. A compile time constant, so that the disabled branches are dropped by the compiler. Guard
+	 * the arguments of the trace calls that are not free to compute with it as well
+	 */
+	static final boolean LOGGING_COMPILED = BuildConfig.LOGGING_ENABLED;
+	private static final int TRACE_BUFFER_SIZE = 512;
+
+	private static volatile boolean mDevModeEnabled = true;
+	private static volatile boolean mTraceEnabled = false;
 	private static final String TAG = "SpiderMenu";
 
+	/**
+	 * The trace events
+	 */
+	private static final TraceRingBuffer mTraceBuffer = new TraceRingBuffer( TRACE_BUFFER_SIZE );
+
 	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
 	public static void e(String msg) {
 		e(TAG, msg);
 	}
 
 	public static void e(String tag, String msg) {
-		if (mDevModeEnabled) Log.e(tag, msg);
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.e(tag, msg);
+	}
+
+	public static void e(String fmt, Object a) {
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.e(TAG, format(fmt, a));
 	}
 
 	public static void w(String msg) {
@@ -29,7 +55,11 @@ public class Logger {
 	}
 
 	public static void w(String tag, String msg) {
-		if (mDevModeEnabled) Log.w(tag, msg);
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.w(tag, msg);
+	}
+
+	public static void w(String fmt, Object a) {
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.w(TAG, format(fmt, a));
 	}
 
 	public static void i(String msg) {
@@ -37,7 +67,11 @@ public class Logger {
 	}
 
 	public static void i(String tag, String msg) {
-		if (mDevModeEnabled) Log.i(tag, msg);
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.i(tag, msg);
+	}
+
+	public static void i(String fmt, Object a) {
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.i(TAG, format(fmt, a));
 	}
 
 	public static void d(String msg) {
@@ -45,7 +79,39 @@ public class Logger {
 	}
 
 	public static void d(String tag, String msg) {
-		if (mDevModeEnabled) Log.d(tag, msg);
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.d(tag, msg);
+	}
+
+	/**
+	 * Parameterized debug logs. The message is only formatted if logging is enabled. Note that a String argument
+	 * resolves to {@link #d(String, String)} (tag, message), so cast it to Object
+	 */
+	public static void d(String fmt, Object a) {
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.d(TAG, format(fmt, a));
+	}
+
+	public static void d(String fmt, Object a, Object b) {
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.d(TAG, format(fmt, a, b));
+	}
+
+	public static void d(String fmt, int a) {
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.d(TAG, format(fmt, a));
+	}
+
+	public static void d(String fmt, int a, int b) {
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.d(TAG, format(fmt, a, b));
+	}
+
+	public static void d(String fmt, long a) {
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.d(TAG, format(fmt, a));
+	}
+
+	public static void d(String fmt, float a) {
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.d(TAG, format(fmt, a));
+	}
+
+	public static void d(String fmt, boolean a) {
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.d(TAG, format(fmt, a));
 	}
 
 	public static void v(String msg) {
@@ -53,7 +119,31 @@ public class Logger {
 	}
 
 	public static void v(String tag, String msg) {
-		if (mDevModeEnabled) Log.v(tag, msg);
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.v(tag, msg);
+	}
+
+	/**
+	 * Parameterized verbose logs. The message is only formatted if logging is enabled. Note that a String argument
+	 * resolves to {@link #v(String, String)} (tag, message), so cast it to Object
+	 */
+	public static void v(String fmt, Object a) {
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.v(TAG, format(fmt, a));
+	}
+
+	public static void v(String fmt, Object a, Object b) {
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.v(TAG, format(fmt, a, b));
+	}
+
+	public static void v(String fmt, int a) {
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.v(TAG, format(fmt, a));
+	}
+
+	public static void v(String fmt, int a, int b) {
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.v(TAG, format(fmt, a, b));
+	}
+
+	public static void v(String fmt, float a) {
+		if (LOGGING_COMPILED && mDevModeEnabled) Log.v(TAG, format(fmt, a));
 	}
 
 	public static void enable() {
@@ -65,6 +155,49 @@ public class Logger {
 	}
 
 	public static boolean isEnabled() {
-		return mDevModeEnabled;
+		return LOGGING_COMPILED && mDevModeEnabled;
+	}
+
+	/**
+	 * Record a trace event in the ring buffer, if tracing is enabled
+	 *
+	 * @param nEventID
+	 *      One of the TraceRingBuffer.EVENT_* values
+	 * @param nArg1
+	 *      First argument
+	 * @param nArg2
+	 *      Second argument
+	 */
+	public static void trace(int nEventID, int nArg1, int nArg2) {
+		if (LOGGING_COMPILED && mTraceEnabled) mTraceBuffer.record(nEventID, nArg1, nArg2);
+	}
+
+	public static void enableTrace() {
+		mTraceEnabled = true;
+	}
+
+	public static void disableTrace() {
+		mTraceEnabled = false;
+	}
+
+	public static boolean isTraceEnabled() {
+		return LOGGING_COMPILED && mTraceEnabled;
+	}
+
+	public static TraceRingBuffer getTraceBuffer() {
+		return mTraceBuffer;
+	}
+
+	/**
+	 * Dump the trace events to the log, regardless of whether logging is enabled, since it is explicitly asked for
+	 */
+	public static void dumpTrace() {
+		for (String line : mTraceBuffer.dump().split("\n")) {
+			if (!line.isEmpty()) Log.d(TAG, line);
+		}
+	}
+
+	private static String format(String fmt, Object... args) {
+		return String.format(Locale.US, fmt, args);
 	}
 }
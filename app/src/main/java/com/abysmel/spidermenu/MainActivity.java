@@ -16,7 +16,7 @@ import android.widget.Toast;
 
 import java.util.ArrayList;
 
-public class MainActivity extends AppCompatActivity implements SpiderMenu.SpiderMenuClickListener {
+public class MainActivity extends AppCompatActivity implements SpiderMenu.SpiderMenuItemClickListener {
 	SpiderMenu spiderMenu;
 
 	@Override
@@ -25,34 +25,12 @@ public class MainActivity extends AppCompatActivity implements SpiderMenu.Spider
 		setContentView( R.layout.activity_main );
 
 		spiderMenu = (SpiderMenu) findViewById( R.id.spidermenu );
-		spiderMenu.setSpiderMenuClickListener( this );
+		spiderMenu.setSpiderMenuItemClickListener( this );
 	}
 
 	@Override
-	public void onSpiderMenuClick( int nID ) {
+	public void onSpiderMenuItemClick( SpiderMenu.SpiderMenuItem item ) {
 		Logger.d( "View clicked!!!");
-		String clickText = "Dunno what is clicked";
-		switch ( nID ) {
-			case R.id.menuitem1:
-				clickText = "Car";
-				break;
-			case R.id.menuitem2:
-				clickText = "Cloud";
-				break;
-			case R.id.menuitem3:
-				clickText = "Mountain";
-				break;
-			case R.id.menuitem4:
-				clickText = "Sun";
-				break;
-			case R.id.menuitem5:
-				clickText = "Trees";
-				break;
-			case R.id.menuitem6:
-				clickText = "Camera";
-				break;
-		}
-
-		Toast.makeText( this, clickText + " Clicked!", Toast.LENGTH_SHORT ).show();
+		Toast.makeText( this, item.getTitle() + " Clicked!", Toast.LENGTH_SHORT ).show();
 	}
 }
@@ -0,0 +1,234 @@
+package com.abysmel.spidermenu;
+
+import android.view.MotionEvent;
+
+/**
+ * Tracks a marking menu drag: a press on the center of the menu, followed by a drag towards an item. Reports the
+ * direction of the drag, and a velocity based prediction of where a quick flick is headed, so that an item can be
+ * picked on release even if the finger hardly moved.
+ *
+ * Processes every historical sample of the batched move events, and allocates nothing after construction: the
+ * samples go into a small fixed ring, and the velocity is taken over the last {@link #VELOCITY_WINDOW} milliseconds
+ * of it. The angles use the screen coordinates of the layout: degrees, clockwise from the positive X axis.
+ */
+public class MarkingMenuGesture {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * The number of samples kept for the velocity. A power of two
+	 */
+	private static final int SAMPLE_COUNT = 16;
+
+	/**
+	 * Milliseconds of samples used for the velocity
+	 */
+	private static final long VELOCITY_WINDOW = 100;
+
+	/**
+	 * Seconds to look ahead when predicting a flick
+	 */
+	private static final float PREDICTION_TIME = 0.1f;
+
+	/**
+	 * The origin of the drag
+	 */
+	private float mnOriginX = 0;
+	private float mnOriginY = 0;
+
+	/**
+	 * The sample ring
+	 */
+	private final float[] mSampleX = new float[SAMPLE_COUNT];
+	private final float[] mSampleY = new float[SAMPLE_COUNT];
+	private final long[] mSampleTime = new long[SAMPLE_COUNT];
+	private int mnSampleCount = 0;
+	private int mnNextSample = 0;
+
+	/**
+	 * The velocity in pixels per second, updated with every batch
+	 */
+	private float mnVelocityX = 0;
+	private float mnVelocityY = 0;
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Start a drag
+	 *
+	 * @param nOriginX
+	 *      X of the point the directions are measured from, usually the center of the menu
+	 * @param nOriginY
+	 *      Y of the origin
+	 * @param ev
+	 *      The down event
+	 */
+	public void start( float nOriginX, float nOriginY, MotionEvent ev ) {
+		start( nOriginX, nOriginY, ev.getX(), ev.getY(), ev.getEventTime() );
+	}
+
+	/**
+	 * Start a drag from a down sample
+	 */
+	void start( float nOriginX, float nOriginY, float nX, float nY, long nTime ) {
+		mnOriginX = nOriginX;
+		mnOriginY = nOriginY;
+		mnSampleCount = 0;
+		mnNextSample = 0;
+		mnVelocityX = 0;
+		mnVelocityY = 0;
+		addSample( nX, nY, nTime );
+	}
+
+	/**
+	 * Add the samples of a move or up event, including the batched historical ones
+	 *
+	 * @param ev
+	 *      The event
+	 */
+	public void addMovement( MotionEvent ev ) {
+		int nHistorySize = ev.getHistorySize();
+		for(int nCtr = 0; nCtr < nHistorySize; ++nCtr)
+			addSample( ev.getHistoricalX( nCtr ), ev.getHistoricalY( nCtr ), ev.getHistoricalEventTime( nCtr ) );
+
+		addMovement( ev.getX(), ev.getY(), ev.getEventTime() );
+	}
+
+	/**
+	 * Add the latest sample of a move or up event
+	 */
+	void addMovement( float nX, float nY, long nTime ) {
+		addSample( nX, nY, nTime );
+		updateVelocity();
+	}
+
+	/**
+	 * Get the distance of the latest sample from the origin
+	 *
+	 * @return
+	 *      The distance in pixels
+	 */
+	public float getDistance() {
+		return (float) Math.hypot( getLatestX() - mnOriginX, getLatestY() - mnOriginY );
+	}
+
+	/**
+	 * Get the direction of the latest sample from the origin
+	 *
+	 * @return
+	 *      The angle in degrees [0, 360)
+	 */
+	public float getAngle() {
+		return getAngle( getLatestX() - mnOriginX, getLatestY() - mnOriginY );
+	}
+
+	/**
+	 * Get the distance of the predicted position, where the finger would be shortly at the current velocity
+	 *
+	 * @return
+	 *      The distance in pixels
+	 */
+	public float getPredictedDistance() {
+		return (float) Math.hypot( getPredictedX() - mnOriginX, getPredictedY() - mnOriginY );
+	}
+
+	/**
+	 * Get the direction of the predicted position
+	 *
+	 * @return
+	 *      The angle in degrees [0, 360)
+	 */
+	public float getPredictedAngle() {
+		return getAngle( getPredictedX() - mnOriginX, getPredictedY() - mnOriginY );
+	}
+
+	/**
+	 * Get the speed of the drag
+	 *
+	 * @return
+	 *      The speed in pixels per second
+	 */
+	public float getSpeed() {
+		return (float) Math.hypot( mnVelocityX, mnVelocityY );
+	}
+
+	public float getVelocityX() {
+		return mnVelocityX;
+	}
+
+	public float getVelocityY() {
+		return mnVelocityY;
+	}
+
+	/**
+	 * Get the angle of a vector
+	 *
+	 * @return
+	 *      The angle in degrees [0, 360)
+	 */
+	public static float getAngle( float nDeltaX, float nDeltaY ) {
+		float nAngle = (float) Math.toDegrees( Math.atan2( nDeltaY, nDeltaX ) );
+		return (nAngle < 0) ? nAngle + 360 : nAngle;
+	}
+
+	/**
+	 * Get the smallest difference between two angles
+	 *
+	 * @return
+	 *      The difference in degrees [0, 180]
+	 */
+	public static float getAngleDifference( float nAngle1, float nAngle2 ) {
+		float nDifference = Math.abs( nAngle1 - nAngle2 ) % 360;
+		return (nDifference > 180) ? 360 - nDifference : nDifference;
+	}
+
+	private float getPredictedX() {
+		return getLatestX() + mnVelocityX * PREDICTION_TIME;
+	}
+
+	private float getPredictedY() {
+		return getLatestY() + mnVelocityY * PREDICTION_TIME;
+	}
+
+	private float getLatestX() {
+		return mSampleX[(mnNextSample - 1) & (SAMPLE_COUNT - 1)];
+	}
+
+	private float getLatestY() {
+		return mSampleY[(mnNextSample - 1) & (SAMPLE_COUNT - 1)];
+	}
+
+	/**
+	 * Add a sample to the ring
+	 */
+	private void addSample( float nX, float nY, long nTime ) {
+		mSampleX[mnNextSample] = nX;
+		mSampleY[mnNextSample] = nY;
+		mSampleTime[mnNextSample] = nTime;
+		mnNextSample = (mnNextSample + 1) & (SAMPLE_COUNT - 1);
+		mnSampleCount = Math.min( mnSampleCount + 1, SAMPLE_COUNT );
+	}
+
+	/**
+	 * Take the velocity between the latest sample and the oldest one within the velocity window. After a pause
+	 * longer than the window, the latest sample is alone in it and the finger is at rest
+	 */
+	private void updateVelocity() {
+		int nLatest = (mnNextSample - 1) & (SAMPLE_COUNT - 1);
+		int nOldest = nLatest;
+		for(int nCtr = 1; nCtr < mnSampleCount; ++nCtr) {
+			int nSample = (nLatest - nCtr) & (SAMPLE_COUNT - 1);
+			if(mSampleTime[nLatest] - mSampleTime[nSample] > VELOCITY_WINDOW)
+				break;
+			nOldest = nSample;
+		}
+
+		long nDuration = mSampleTime[nLatest] - mSampleTime[nOldest];
+		if(nDuration <= 0) {
+			mnVelocityX = 0;
+			mnVelocityY = 0;
+			return;
+		}
+
+		mnVelocityX = (mSampleX[nLatest] - mSampleX[nOldest]) * 1000f / nDuration;
+		mnVelocityY = (mSampleY[nLatest] - mSampleY[nOldest]) * 1000f / nDuration;
+	}
+}
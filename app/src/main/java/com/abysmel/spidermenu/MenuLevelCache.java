@@ -0,0 +1,174 @@
+package com.abysmel.spidermenu;
+
+import android.content.ComponentCallbacks2;
+import android.util.LruCache;
+import android.view.View;
+
+import com.abysmel.spidermenu.SpiderMenu.SpiderMenuItem;
+
+import java.util.List;
+
+/**
+ * The menu levels SpiderMenu navigated away from, kept ready to be shown again: the items, the children with their
+ * decoded and scaled bitmaps, and the fitted geometry. Going back to a cached level (or into it again) puts the
+ * children back as they are, instead of creating them, decoding their icons and fitting the radii again.
+ *
+ * The cache is bounded by the bytes of the bitmaps the children hold, plus a fixed overhead per level, and is keyed
+ * by the level id. The hits, misses and evictions are counted, in release builds too, and recorded as trace events
+ * in debug builds. Must be used from the main thread only.
+ */
+final class MenuLevelCache {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * The bytes a level is counted for besides its bitmaps: the items, the children and the geometry
+	 */
+	private static final int LEVEL_OVERHEAD_BYTES = 1024;
+
+	/**
+	 * The levels, by level id
+	 */
+	private final LruCache<Integer, MenuLevel> mLevels;
+
+	/**
+	 * The hits, misses and evictions so far
+	 */
+	private int mnHitCount = 0;
+	private int mnMissCount = 0;
+	private int mnEvictionCount = 0;
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Constructor
+	 *
+	 * @param nMaxBytes
+	 *      The memory budget of the cache
+	 */
+	MenuLevelCache( int nMaxBytes ) {
+		mLevels = new LruCache<Integer, MenuLevel>( nMaxBytes ) {
+			@Override
+			protected int sizeOf( Integer nLevelID, MenuLevel level ) {
+				return level.mnBytes;
+			}
+
+			@Override
+			protected void entryRemoved( boolean bEvicted, Integer nLevelID, MenuLevel oldLevel, MenuLevel newLevel ) {
+				if(bEvicted) {
+					mnEvictionCount++;
+					Logger.trace( TraceRingBuffer.EVENT_LEVEL_CACHE_EVICT, nLevelID, size() );
+				}
+			}
+		};
+	}
+
+	/**
+	 * Keep a level. A level that does not fit in the budget on its own is not kept
+	 *
+	 * @param level
+	 *      The level
+	 */
+	void put( MenuLevel level ) {
+		if(level.mnBytes <= mLevels.maxSize())
+			mLevels.put( level.mnLevelID, level );
+	}
+
+	/**
+	 * Take a level out of the cache, if it is there and shows the given items
+	 *
+	 * @param nLevelID
+	 *      The level id
+	 * @param items
+	 *      The items the level should show
+	 * @return
+	 *      The level, or null on a miss
+	 */
+	MenuLevel take( int nLevelID, List<SpiderMenuItem> items ) {
+		MenuLevel level = mLevels.remove( nLevelID );
+		if((level != null) && !level.shows( items ))
+			level = null;
+
+		if(level != null)
+			mnHitCount++;
+		else
+			mnMissCount++;
+		Logger.trace( (level != null) ? TraceRingBuffer.EVENT_LEVEL_CACHE_HIT : TraceRingBuffer.EVENT_LEVEL_CACHE_MISS, nLevelID, mLevels.size() );
+		return level;
+	}
+
+	/**
+	 * Shrink the cache when the system asks for memory. Halved when running low, emptied once memory is critical
+	 * or the UI is hidden
+	 *
+	 * @param nLevel
+	 *      The ComponentCallbacks2 trim level
+	 */
+	void onTrimMemory( int nLevel ) {
+		if(nLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL)
+			mLevels.evictAll();
+		else if(nLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)
+			mLevels.trimToSize( mLevels.maxSize() / 2 );
+	}
+
+	void clear() {
+		mLevels.evictAll();
+	}
+
+	int getHitCount() {
+		return mnHitCount;
+	}
+
+	int getMissCount() {
+		return mnMissCount;
+	}
+
+	int getEvictionCount() {
+		return mnEvictionCount;
+	}
+
+	////////////////////////////////////// INNER CLASSES ///////////////////////////////////////////
+	/**
+	 * A level of the menu as it was left: the items, the detached children (none in the flat render mode) and the
+	 * geometry they were fitted with
+	 */
+	static final class MenuLevel {
+		final int mnLevelID;
+		final List<SpiderMenuItem> mItems;
+		final View[] mChildren;
+		final SpiderMenu.SavedState mGeometry;
+		final int mnBytes;
+
+		MenuLevel( int nLevelID, List<SpiderMenuItem> items, View[] children, SpiderMenu.SavedState geometry ) {
+			mnLevelID = nLevelID;
+			mItems = items;
+			mChildren = children;
+			mGeometry = geometry;
+
+			int nBytes = LEVEL_OVERHEAD_BYTES;
+			for(View child : children) {
+				if(child instanceof RoundedShadowImageView)
+					nBytes += ((RoundedShadowImageView) child).getBitmapByteCount();
+			}
+			mnBytes = nBytes;
+		}
+
+		/**
+		 * Check if the level shows the given items: the same ids, icons, types and weights, in the same order
+		 */
+		boolean shows( List<SpiderMenuItem> items ) {
+			if(items == mItems)
+				return true;
+			if((items == null) || (mItems == null) || (items.size() != mItems.size()))
+				return false;
+
+			for(int nCtr = 0; nCtr < items.size(); ++nCtr) {
+				SpiderMenuItem item = items.get( nCtr );
+				SpiderMenuItem cachedItem = mItems.get( nCtr );
+				if((item.getID() != cachedItem.getID()) || (item.getDrawableResourceID() != cachedItem.getDrawableResourceID()) ||
+						(item.getMenuType() != cachedItem.getMenuType()) || (item.getWeight() != cachedItem.getWeight()))
+					return false;
+			}
+
+			return true;
+		}
+	}
+}
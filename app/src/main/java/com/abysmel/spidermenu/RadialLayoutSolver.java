@@ -0,0 +1,228 @@
+package com.abysmel.spidermenu;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fits radial items of different sizes on the virtual circumference. Every item has a weight, and its radius is the
+ * weight times a common item radius. The solver finds the largest common radius (up to the configured one) for
+ * which the items, with some spacing, fit around the circle, and then spreads them with equal gaps between their
+ * edges, starting from the top.
+ *
+ * The items are fitted by their angular sizes: an item of radius r on an orbit of radius C takes 2 * asin(r / C)
+ * of the circle. As with equal items, the items may take up to n / (n + 1) of the circle, leaving one item's worth of
+ * space for the gaps. The common radius is found by bisection, to half a pixel, so a solve is a few hundred asin
+ * calls for 50 items. The solutions are cached by the size, the configured radius and the weights.
+ */
+final class RadialLayoutSolver {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * The number of solutions to cache
+	 */
+	private static final int CACHE_SIZE = 32;
+
+	/**
+	 * The precision of the common radius, in pixels
+	 */
+	private static final double RADIUS_TOLERANCE = 0.5;
+
+	/**
+	 * The first item is at the top
+	 */
+	private static final double START_ANGLE = Math.toRadians( 270 );
+
+	/**
+	 * The cached solutions, least recently used first
+	 */
+	private static final LinkedHashMap<Key, Solution> sSolutions = new LinkedHashMap<Key, Solution>( CACHE_SIZE, 0.75f, true ) {
+		@Override
+		protected boolean removeEldestEntry( Map.Entry<Key, Solution> eldest ) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	private RadialLayoutSolver() {
+	}
+
+	/**
+	 * Get the layout of weighted radial items, from the cache if it was solved before
+	 *
+	 * @param nCanvasSize
+	 *      The size of the (square) menu
+	 * @param nItemRadius
+	 *      The configured radius of an item of weight 1
+	 * @param weights
+	 *      The weights of the radial items, in order. Must be positive
+	 * @param bFit
+	 *      true to shrink the items till they fit, false to keep the configured radius
+	 * @return
+	 *      The solution
+	 */
+	static Solution solve( int nCanvasSize, int nItemRadius, float[] weights, boolean bFit ) {
+		Key key = new Key( nCanvasSize, nItemRadius, weights, bFit );
+		synchronized ( sSolutions ) {
+			Solution solution = sSolutions.get( key );
+			if(solution != null)
+				return solution;
+		}
+
+		Solution solution = compute( nCanvasSize, nItemRadius, key.mWeights, bFit );
+		synchronized ( sSolutions ) {
+			sSolutions.put( key, solution );
+		}
+		return solution;
+	}
+
+	/**
+	 * Solve the layout, without the cache
+	 */
+	static Solution compute( int nCanvasSize, int nItemRadius, float[] weights, boolean bFit ) {
+		int nCount = weights.length;
+		double nHalfSize = nCanvasSize / 2.0;
+		double nMaxWeight = 0;
+		for(float nWeight : weights)
+			nMaxWeight = Math.max( nMaxWeight, nWeight );
+
+		if((nCount == 0) || (nMaxWeight <= 0))
+			return new Solution( nItemRadius, (int) nHalfSize - (2 * nItemRadius), new int[nCount], new float[nCount] );
+
+		/*
+		The largest item has to fit between the edge of the menu and the center. Shrink the common radius till the
+		items fit, if it is not fixed
+		 */
+		double nCommonRadius = nItemRadius;
+		if(bFit) {
+			double nHigh = Math.min( nItemRadius, nHalfSize / (2 * nMaxWeight) );
+			if(fits( nHigh, weights, nMaxWeight, nHalfSize )) {
+				nCommonRadius = nHigh;
+			}
+			else {
+				double nLow = 0;
+				while((nHigh - nLow) > RADIUS_TOLERANCE) {
+					double nMiddle = (nLow + nHigh) / 2;
+					if(fits( nMiddle, weights, nMaxWeight, nHalfSize ))
+						nLow = nMiddle;
+					else
+						nHigh = nMiddle;
+				}
+				nCommonRadius = nLow;
+			}
+		}
+
+		/*
+		All the items are centered on the orbit of the largest one, which touches the edge of the menu
+		 */
+		int nLargestRadius = Math.max( 1, (int) (nCommonRadius * nMaxWeight) );
+		double nOrbit = nHalfSize - nLargestRadius;
+		int[] radii = new int[nCount];
+		double[] halfAngles = new double[nCount];
+		double nTotalAngle = 0;
+		for(int nCtr = 0; nCtr < nCount; ++nCtr) {
+			radii[nCtr] = Math.max( 1, (int) (nCommonRadius * weights[nCtr]) );
+			halfAngles[nCtr] = getHalfAngle( radii[nCtr], nOrbit );
+			nTotalAngle += 2 * halfAngles[nCtr];
+		}
+
+		/*
+		Spread the items with equal gaps between their edges
+		 */
+		double nGap = ((2 * Math.PI) - nTotalAngle) / nCount;
+		float[] angles = new float[nCount];
+		double nAngle = START_ANGLE;
+		for(int nCtr = 0; nCtr < nCount; ++nCtr) {
+			if(nCtr > 0)
+				nAngle += halfAngles[nCtr - 1] + nGap + halfAngles[nCtr];
+			angles[nCtr] = (float) (Math.toDegrees( nAngle ) % 360);
+		}
+
+		return new Solution( nLargestRadius, (int) nHalfSize - (2 * nLargestRadius), radii, angles );
+	}
+
+	/**
+	 * Check if the items fit around the circle with the given common radius, leaving one item's worth of spacing
+	 */
+	private static boolean fits( double nCommonRadius, float[] weights, double nMaxWeight, double nHalfSize ) {
+		double nOrbit = nHalfSize - (nCommonRadius * nMaxWeight);
+		if(nOrbit <= 0)
+			return false;
+
+		double nTotalAngle = 0;
+		for(float nWeight : weights)
+			nTotalAngle += 2 * getHalfAngle( nCommonRadius * nWeight, nOrbit );
+		return (nTotalAngle * (weights.length + 1) / weights.length) <= (2 * Math.PI);
+	}
+
+	/**
+	 * Get half the angle an item takes on the orbit
+	 */
+	private static double getHalfAngle( double nRadius, double nOrbit ) {
+		return (nRadius >= nOrbit) ? (Math.PI / 2) : Math.asin( nRadius / nOrbit );
+	}
+
+	/**
+	 * Drop the cached solutions
+	 */
+	static void clearCache() {
+		synchronized ( sSolutions ) {
+			sSolutions.clear();
+		}
+	}
+
+	////////////////////////////////////// INNER CLASSES ///////////////////////////////////////////
+	/**
+	 * The layout of the radial items: the radius of the largest item and the virtual circumference it leaves (as in
+	 * the layout of equal items), and the radius and the angle (in degrees) of every item
+	 */
+	static final class Solution {
+		final int mnLargestRadius;
+		final int mnVirtualCircumferenceRadius;
+		final int[] mRadii;
+		final float[] mAngles;
+
+		Solution( int nLargestRadius, int nVirtualCircumferenceRadius, int[] radii, float[] angles ) {
+			mnLargestRadius = nLargestRadius;
+			mnVirtualCircumferenceRadius = nVirtualCircumferenceRadius;
+			mRadii = radii;
+			mAngles = angles;
+		}
+	}
+
+	/**
+	 * The inputs of a solution
+	 */
+	private static final class Key {
+		private final int mnCanvasSize;
+		private final int mnItemRadius;
+		private final float[] mWeights;
+		private final boolean mbFit;
+		private final int mnHashCode;
+
+		Key( int nCanvasSize, int nItemRadius, float[] weights, boolean bFit ) {
+			mnCanvasSize = nCanvasSize;
+			mnItemRadius = nItemRadius;
+			mWeights = weights.clone();
+			mbFit = bFit;
+			mnHashCode = (((((nCanvasSize * 31) + nItemRadius) * 31) + Arrays.hashCode( mWeights )) * 31) + (bFit ? 1 : 0);
+		}
+
+		@Override
+		public boolean equals( Object o ) {
+			if(this == o)
+				return true;
+			if(!(o instanceof Key))
+				return false;
+
+			Key key = (Key) o;
+			return (mnCanvasSize == key.mnCanvasSize) && (mnItemRadius == key.mnItemRadius) && (mbFit == key.mbFit) &&
+					Arrays.equals( mWeights, key.mWeights );
+		}
+
+		@Override
+		public int hashCode() {
+			return mnHashCode;
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package com.abysmel.spidermenu;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.provider.Settings;
+
+import java.util.ArrayList;
+
+/**
+ * Tells the SpiderMenus whether the user asked for less motion: the animator duration scale is off in the developer
+ * options (which the accessibility "remove animations" setting also turns off), or the device is in battery saver
+ * (from Lollipop). One settings observer and one power save receiver are shared by all the menus. They are reference
+ * counted like the {@link SharedSpringSystem}: menus acquire the monitor when they are attached to the window and
+ * release it when they are detached, and the observers are unregistered with the last reference.
+ *
+ * Must be used from the main thread only.
+ */
+final class ReducedMotionMonitor {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * The menus to tell about the changes
+	 */
+	private static final ArrayList<Listener> sListeners = new ArrayList<>();
+
+	/**
+	 * The application context the observers are registered with
+	 */
+	private static Context sContext = null;
+
+	private static ContentObserver sSettingsObserver = null;
+	private static BroadcastReceiver sPowerSaveReceiver = null;
+
+	/**
+	 * The last known state
+	 */
+	private static boolean sbReducedMotion = false;
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	private ReducedMotionMonitor() {
+	}
+
+	/**
+	 * Start listening to the changes. Must be balanced with {@link #release(Listener)}
+	 *
+	 * @param context
+	 *      The context
+	 * @param listener
+	 *      The listener
+	 * @return
+	 *      true if the motion is reduced right now
+	 */
+	static boolean acquire( Context context, Listener listener ) {
+		if(sListeners.isEmpty()) {
+			sContext = context.getApplicationContext();
+			register();
+			sbReducedMotion = readReducedMotion( sContext );
+		}
+
+		if(!sListeners.contains( listener ))
+			sListeners.add( listener );
+		return sbReducedMotion;
+	}
+
+	/**
+	 * Stop listening to the changes. The observers are unregistered with the last listener
+	 */
+	static void release( Listener listener ) {
+		if(!sListeners.remove( listener ) || !sListeners.isEmpty())
+			return;
+
+		sContext.getContentResolver().unregisterContentObserver( sSettingsObserver );
+		if(sPowerSaveReceiver != null)
+			sContext.unregisterReceiver( sPowerSaveReceiver );
+		sSettingsObserver = null;
+		sPowerSaveReceiver = null;
+		sContext = null;
+	}
+
+	/**
+	 * Read the settings
+	 *
+	 * @param context
+	 *      The context
+	 * @return
+	 *      true if the animator duration scale is off or the device is in battery saver
+	 */
+	static boolean readReducedMotion( Context context ) {
+		float nDurationScale = Settings.Global.getFloat( context.getContentResolver(), Settings.Global.ANIMATOR_DURATION_SCALE, 1 );
+		if(nDurationScale == 0)
+			return true;
+
+		if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+			PowerManager powerManager = (PowerManager) context.getSystemService( Context.POWER_SERVICE );
+			return (powerManager != null) && powerManager.isPowerSaveMode();
+		}
+
+		return false;
+	}
+
+	/**
+	 * Register the settings observer and, from Lollipop, the power save receiver
+	 */
+	private static void register() {
+		sSettingsObserver = new ContentObserver( new Handler( Looper.getMainLooper() ) ) {
+			@Override
+			public void onChange( boolean bSelfChange ) {
+				onSettingsChanged();
+			}
+		};
+		sContext.getContentResolver().registerContentObserver( Settings.Global.getUriFor( Settings.Global.ANIMATOR_DURATION_SCALE ), false, sSettingsObserver );
+
+		if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+			sPowerSaveReceiver = new BroadcastReceiver() {
+				@Override
+				public void onReceive( Context context, Intent intent ) {
+					onSettingsChanged();
+				}
+			};
+			sContext.registerReceiver( sPowerSaveReceiver, new IntentFilter( PowerManager.ACTION_POWER_SAVE_MODE_CHANGED ) );
+		}
+	}
+
+	/**
+	 * Read the settings again, and tell the listeners if the state changed
+	 */
+	private static void onSettingsChanged() {
+		if(sContext == null)
+			return;
+
+		boolean bReducedMotion = readReducedMotion( sContext );
+		if(bReducedMotion == sbReducedMotion)
+			return;
+
+		sbReducedMotion = bReducedMotion;
+		for(Listener listener : new ArrayList<>( sListeners ))
+			listener.onReducedMotionChanged( bReducedMotion );
+	}
+
+	//////////////////////////////////////////// INTERFACES ////////////////////////////////////////
+
+	/**
+	 * Reduced motion change listener
+	 */
+	interface Listener {
+		void onReducedMotionChanged(boolean bReducedMotion);
+	}
+}
@@ -1,17 +1,19 @@
 package com.abysmel.spidermenu;
 
 import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.BitmapShader;
-import android.graphics.BlurMaskFilter;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Matrix;
 import android.graphics.Paint;
+import android.graphics.PixelFormat;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.net.Uri;
 import android.os.Build;
 import android.support.v4.content.ContextCompat;
 import android.util.AttributeSet;
@@ -32,13 +34,34 @@ import android.widget.ImageView;
 public class RoundedShadowImageView extends ImageView implements View.OnClickListener {
 	/////////////////////////////////////// CLASS MEMBERS //////////////////////////////////////////
 	/**
-	 * Static definitions
+	 * Bitmap configs for the shader bitmap. Matches the bitmapConfig enum in attrs.xml
 	 */
-	private static final int DEFAULT_BLUR_RADIUS = 3;
-	private static final int DEFAULT_SHADOW_ELEVATION = 7;
-	private static final float MAX_ELEVATION_LEVELS = 10;
-	private static final int DEFAULT_BACKGROUND_COLOR = Color.parseColor( "#FFFFFF" );
-	private static final int DEFAULT_SHADOW_COLOR = Color.parseColor( "#555555" );
+	public static final int BITMAP_CONFIG_AUTO = 0;
+	public static final int BITMAP_CONFIG_ARGB_8888 = 1;
+	public static final int BITMAP_CONFIG_RGB_565 = 2;
+	public static final int BITMAP_CONFIG_HARDWARE = 3;
+
+	/**
+	 * Hardware bitmaps exist from O (26), but can be used as a shader source together with a
+	 * BlurMaskFilter on a hardware canvas only from P (28)
+	 */
+	private static final int HARDWARE_BITMAP_MIN_SDK = 28;
+
+	/**
+	 * How the bitmap is resized when shouldResizeBitmap is set. Matches the bitmapResizeMode enum in attrs.xml
+	 */
+	public static final int RESIZE_MODE_SCALED_COPY = 0;
+	public static final int RESIZE_MODE_SHADER_MATRIX = 1;
+
+	/**
+	 * Level of detail: full, half and quarter size of the shader bitmap, picked based on the scale of the view
+	 */
+	private static final int LOD_LEVEL_COUNT = 3;
+
+	/**
+	 * The android namespace, to read the source resource of the items inflated from xml
+	 */
+	private static final String ANDROID_NAMESPACE = "http://schemas.android.com/apk/res/android";
 
 	/**
 	 * The Bitmap Shader to draw the circular bitmap
@@ -51,19 +74,14 @@ public class RoundedShadowImageView extends ImageView implements View.OnClickLis
 	private Paint mBitmapPaint = new Paint( Paint.ANTI_ALIAS_FLAG );
 
 	/**
-	 * The Paint to draw the shadow
-	 */
-	private Paint mShadowPaint = new Paint( Paint.ANTI_ALIAS_FLAG );
-
-	/**
-	 * Background Fill Paint
+	 * The style of the item. Shared with all the items of the same style, along with its shadow and background paints
 	 */
-	private Paint mBackgroundPaint = new Paint( Paint.ANTI_ALIAS_FLAG );
+	private SpiderMenuItemStyle mStyle = SpiderMenuItemStyle.getDefault();
 
 	/**
-	 * The shadow radius
+	 * True if the item did not define a style of its own, so that it can inherit the style of its parent menu
 	 */
-	private int mnShadowRadius = 0;
+	private boolean mbIsStyleInherited = true;
 
 	/**
 	 * A reference of the drawable for this image view. Useful for us so that we do not initializeView the bitmap
@@ -72,19 +90,19 @@ public class RoundedShadowImageView extends ImageView implements View.OnClickLis
 	private Drawable mDrawable = null;
 
 	/**
-	 * The bitmap to be rendered
+	 * The resource of the drawable, if it was set from one. Keys the processed bitmaps in the {@link ShaderBitmapCache}
 	 */
-	private Bitmap mBitmap = null;
+	private int mnImageResourceID = 0;
 
 	/**
-	 * The horizontal offset of the shadow from the bitmap
+	 * The bitmap to be rendered
 	 */
-	private int mnHorizontalOffset = 0;
+	private Bitmap mBitmap = null;
 
 	/**
-	 * The vertical offset of the shadow from the bitmap
+	 * The bitmap that is actually fed to the shader (scaled and / or converted to the requested config)
 	 */
-	private int mnVerticalOffset = 0;
+	private Bitmap mShaderBitmap = null;
 
 	/**
 	 * The bitmap diameter
@@ -92,39 +110,38 @@ public class RoundedShadowImageView extends ImageView implements View.OnClickLis
 	private int mnBitmapDiameter = 0;
 
 	/**
-	 * The elevation of the shadow. The lower the number, the higher the object
+	 * The View Click Listener
 	 */
-	private float mnObjectElevation = 0;
+	private ViewClickListener mClickListener = null;
 
 	/**
-	 * Check if horizontal offset is required
+	 * The local matrix of the shader. Reused, since in the shader matrix mode it is updated on every resize
 	 */
-	private boolean mbIsHorizontalOffsetRequired = false;
+	private Matrix mShaderMatrix = new Matrix();
 
 	/**
-	 * Check if vertical offset is required
+	 * The bitmap diameter the shader was last set up for
 	 */
-	private boolean mbIsVerticalOffsetRequired = true;
+	private int mnShaderDiameter = 0;
 
 	/**
-	 * The background fill color
+	 * The level of detail bitmaps, their shaders and matrices. Level 0 is the shader bitmap itself and the levels are
+	 * created lazily, the first time that they are needed, and cached till the shader is refreshed
 	 */
-	private int mBackgroundColor = DEFAULT_BACKGROUND_COLOR;
+	private Bitmap[] mLodBitmaps = new Bitmap[LOD_LEVEL_COUNT];
+	private BitmapShader[] mLodShaders = new BitmapShader[LOD_LEVEL_COUNT];
+	private Matrix[] mLodMatrices = new Matrix[LOD_LEVEL_COUNT];
 
 	/**
-	 * The shadow color
+	 * The level of detail currently set on the bitmap paint
 	 */
-	private int mShadowColor = 0;
+	private int mnCurrentLodLevel = 0;
 
 	/**
-	 * The View Click Listener
+	 * The render quality set by the menu: whether the shadow is blurred, and whether the item is anti-aliased
 	 */
-	private ViewClickListener mClickListener = null;
-
-	/**
-	 * Indicates whether the bitmap should be resized or not. True by default
-	 */
-	private boolean mbShouldResizeBitmap = true;
+	private boolean mbShadowBlurred = true;
+	private boolean mbAntiAliased = true;
 
 	/////////////////////////////////////// CLASS METHODS //////////////////////////////////////////
 
@@ -147,6 +164,7 @@ public class RoundedShadowImageView extends ImageView implements View.OnClickLis
 	public RoundedShadowImageView(Context context, int nDrawableResourceID) {
 		this( context, null );
 		setImageDrawable( ContextCompat.getDrawable( context, nDrawableResourceID ) );
+		mnImageResourceID = nDrawableResourceID;
 		initializeView(context, null);
 	}
 
@@ -157,54 +175,46 @@ public class RoundedShadowImageView extends ImageView implements View.OnClickLis
 	}
 
 	/**
-	 * Initialize the Bitmap Shader and the paints
+	 * Initialize the style and the paints. The style is shared with all the items of the same style, so the
+	 * attributes are parsed and the shadow paints are created once per style
 	 *
 	 * @author Melvin Lobo
 	 */
 	private void initializeView(Context context, AttributeSet attrs) {
-		if(attrs != null) {
-			if(attrs != null) {
-				TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.RoundedShadowImageView, 0, 0);
-				mnShadowRadius = a.getDimensionPixelOffset( R.styleable.RoundedShadowImageView_shadowRadius, DEFAULT_BLUR_RADIUS );
-				mnObjectElevation = a.getDimensionPixelOffset( R.styleable.RoundedShadowImageView_shadowElevation, DEFAULT_SHADOW_ELEVATION );
-				mBackgroundColor = a.getColor( R.styleable.RoundedShadowImageView_backgroundFillColor, DEFAULT_BACKGROUND_COLOR );
-				mbIsHorizontalOffsetRequired = a.getBoolean( R.styleable.RoundedShadowImageView_horizontalShadowOffsetRequired, false );
-				mbIsVerticalOffsetRequired = a.getBoolean( R.styleable.RoundedShadowImageView_veticalShadowOffsetRequired, false );
-				mShadowColor = a.getColor( R.styleable.RoundedShadowImageView_shadowColor, DEFAULT_SHADOW_COLOR );
-				mbShouldResizeBitmap = a.getBoolean( R.styleable.RoundedShadowImageView_shouldResizeBitmap, true );
-
-				a.recycle();
-			}
-		}
-		mShadowPaint.setDither( true );
+		SpiderMenuItemStyle style = SpiderMenuItemStyle.obtain( context, attrs );
+		mbIsStyleInherited = (style == null);
 		mBitmapPaint.setDither( true );
-		mBackgroundPaint.setDither( true );
+		if((attrs != null) && (getDrawable() != null))
+			mnImageResourceID = attrs.getAttributeResourceValue( ANDROID_NAMESPACE, "src", 0 );
+		if(style == null)
+			style = (attrs != null) ? SpiderMenuItemStyle.getInflatedDefault() : mStyle;
+		applyStyle( style );
 
-		if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
-			setLayerType( LAYER_TYPE_SOFTWARE, mShadowPaint );
-			setLayerType( LAYER_TYPE_SOFTWARE, mBitmapPaint );
-			setLayerType( LAYER_TYPE_SOFTWARE, mBackgroundPaint );
-		}
-
-		/*
-		Set alpha and blur based on the elevation
-		 */
-		mShadowPaint.setColor( mShadowColor );
-		mShadowPaint.setAlpha( (int) (60 + 190 * (mnObjectElevation / MAX_ELEVATION_LEVELS)));
-		mShadowPaint.setMaskFilter( new BlurMaskFilter( mnShadowRadius, BlurMaskFilter.Blur.NORMAL ) );
-
-		/*
-		Calculate the offsets based on the elevation (at least 20% from the "ground").
-		The less the elevation is, the smaller the offset is since the object is closer to the "ground"
-		Also include the shadow radius in the offset so that we don't have to think about it in later calculations
-		 */
-		mnHorizontalOffset = (mbIsHorizontalOffsetRequired) ? (int)(((20 * (1 - mnObjectElevation / MAX_ELEVATION_LEVELS))) + (mnShadowRadius * 2)) : 0;
-		mnVerticalOffset = (mbIsVerticalOffsetRequired) ? (int)(((20 * (1 - mnObjectElevation / MAX_ELEVATION_LEVELS))) + (mnShadowRadius * 2)) : 0;
+		setOnClickListener( this );
+	}
 
-		mBackgroundPaint.setColor( mBackgroundColor );
+	/**
+	 * Remember the resource, so that the processed bitmap can be shared through the cache
+	 *
+	 * @param resId
+	 *      The drawable resource
+	 */
+	@Override
+	public void setImageResource( int resId ) {
+		super.setImageResource( resId );
+		mnImageResourceID = resId;
+	}
 
-		setOnClickListener( this );
+	@Override
+	public void setImageDrawable( Drawable drawable ) {
+		super.setImageDrawable( drawable );
+		mnImageResourceID = 0;
+	}
 
+	@Override
+	public void setImageURI( Uri uri ) {
+		super.setImageURI( uri );
+		mnImageResourceID = 0;
 	}
 
 	/**
@@ -229,6 +239,282 @@ public class RoundedShadowImageView extends ImageView implements View.OnClickLis
 		mClickListener = listener;
 	}
 
+	/**
+	 * Set the style of the item. The style is interned, so that equal styles share their paints
+	 *
+	 * @param style
+	 *      The style
+	 */
+	public void setItemStyle(SpiderMenuItemStyle style) {
+		mbIsStyleInherited = false;
+		applyStyle( SpiderMenuItemStyle.intern( style ) );
+	}
+
+	/**
+	 * Inherit the style of the parent menu. Ignored if the item defines a style of its own
+	 *
+	 * @param style
+	 *      The style of the parent
+	 */
+	public void inheritItemStyle(SpiderMenuItemStyle style) {
+		if(mbIsStyleInherited && (style != null))
+			applyStyle( SpiderMenuItemStyle.intern( style ) );
+	}
+
+	/**
+	 * Get the style of the item
+	 *
+	 * @return
+	 *      The shared style
+	 */
+	public SpiderMenuItemStyle getItemStyle() {
+		return mStyle;
+	}
+
+	/**
+	 * Get the radius of the opaque disc the view draws, which hides whatever is drawn below it. The disc is centered
+	 * at ({@link #getOpaqueDiscOffsetX()}, {@link #getOpaqueDiscOffsetY()}) from the center of the view
+	 *
+	 * @return
+	 *      The radius in pixels, or 0 if the view does not draw an opaque background
+	 */
+	public float getOpaqueDiscRadius() {
+		return ((mBitmap != null) && (Color.alpha( mStyle.getBackgroundColor() ) == 0xFF)) ? mnBitmapDiameter / 2f : 0;
+	}
+
+	public float getOpaqueDiscOffsetX() {
+		return -mStyle.getHorizontalOffset() / 2f;
+	}
+
+	public float getOpaqueDiscOffsetY() {
+		return -mStyle.getVerticalOffset() / 2f;
+	}
+
+	/**
+	 * Check if the item inherits the style of its parent
+	 *
+	 * @return
+	 *      true if the item has no style of its own
+	 */
+	public boolean isStyleInherited() {
+		return mbIsStyleInherited;
+	}
+
+	/**
+	 * Apply the (interned) style
+	 *
+	 * @param style
+	 *      The style to apply
+	 */
+	private void applyStyle(SpiderMenuItemStyle style) {
+		SpiderMenuItemStyle oldStyle = mStyle;
+		mStyle = style;
+		mBitmapPaint.setFilterBitmap( isShaderMatrixResize() );     //The shader samples the unscaled bitmap in this case
+		updateLayerType();
+
+		if(oldStyle == style)
+			return;
+
+		if((oldStyle.getHorizontalOffset() != style.getHorizontalOffset()) || (oldStyle.getVerticalOffset() != style.getVerticalOffset()))
+			requestLayout();
+
+		refreshShader();
+		invalidate();
+	}
+
+	/**
+	 * The blur needs a software layer, unless we render from a hardware bitmap, in which case the canvas has to
+	 * be hardware accelerated (The blur mask filter is supported there from P). A flat shadow needs no layer at all
+	 */
+	private void updateLayerType() {
+		if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB)
+			setLayerType( (isHardwareBitmapRequested() || !mbShadowBlurred) ? LAYER_TYPE_NONE : LAYER_TYPE_SOFTWARE, null );
+	}
+
+	/**
+	 * Set the render quality, as picked by the {@link AdaptiveQualityController} of the menu
+	 *
+	 * @param bShadowBlurred
+	 *      true to blur the shadow, false to draw it flat at its offset
+	 * @param bAntiAliased
+	 *      true to anti-alias the item
+	 */
+	void setRenderQuality(boolean bShadowBlurred, boolean bAntiAliased) {
+		if((mbShadowBlurred == bShadowBlurred) && (mbAntiAliased == bAntiAliased))
+			return;
+
+		boolean bLayerChanged = (mbShadowBlurred != bShadowBlurred);
+		mbShadowBlurred = bShadowBlurred;
+		mbAntiAliased = bAntiAliased;
+		mBitmapPaint.setAntiAlias( bAntiAliased );
+		if(bLayerChanged) {
+			updateLayerType();
+			updateLevelsOfDetail();
+		}
+		invalidate();
+	}
+
+	/**
+	 * Set the config of the bitmap fed to the shader. {@link #BITMAP_CONFIG_AUTO} uses RGB_565 for opaque sources,
+	 * {@link #BITMAP_CONFIG_RGB_565} flattens the source on the background fill color, so that the alpha channel
+	 * is not needed, and {@link #BITMAP_CONFIG_HARDWARE} keeps the pixels in graphics memory only (P and above,
+	 * falls back to auto otherwise).
+	 *
+	 * @param nBitmapConfig
+	 *      One of the BITMAP_CONFIG_* values
+	 */
+	public void setBitmapConfig(int nBitmapConfig) {
+		if(mStyle.getBitmapConfig() != nBitmapConfig)
+			setItemStyle( mStyle.buildUpon().setBitmapConfig( nBitmapConfig ).build() );
+	}
+
+	/**
+	 * Set how the bitmap is resized when it should be resized. {@link #RESIZE_MODE_SCALED_COPY} creates a scaled
+	 * copy of the bitmap, while {@link #RESIZE_MODE_SHADER_MATRIX} samples the original bitmap through the shader
+	 * matrix, which saves a bitmap allocation per item and turns a resize into a matrix update.
+	 *
+	 * @param nResizeMode
+	 *      One of the RESIZE_MODE_* values
+	 */
+	public void setBitmapResizeMode(int nResizeMode) {
+		if(mStyle.getResizeMode() != nResizeMode)
+			setItemStyle( mStyle.buildUpon().setResizeMode( nResizeMode ).build() );
+	}
+
+	/**
+	 * Get how the bitmap is resized
+	 *
+	 * @return
+	 *      One of the RESIZE_MODE_* values
+	 */
+	public int getBitmapResizeMode() {
+		return mStyle.getResizeMode();
+	}
+
+	/**
+	 * Enable or disable the level of detail bitmaps. When enabled, half and quarter size copies of the shader bitmap
+	 * are created along with the shader bitmap and used while the view is drawn at the respective scale, which
+	 * reduces the texture bandwidth during the scale animations at the cost of a third more bitmap memory. They are
+	 * not used while the shadow is blurred in a software layer, since the layer is drawn at full size anyway.
+	 *
+	 * @param bEnabled
+	 *      true to enable, false otherwise
+	 */
+	public void setLevelOfDetailEnabled(boolean bEnabled) {
+		if(mStyle.isLevelOfDetailEnabled() != bEnabled)
+			setItemStyle( mStyle.buildUpon().setLevelOfDetailEnabled( bEnabled ).build() );
+	}
+
+	/**
+	 * Check if the level of detail bitmaps are used
+	 *
+	 * @return
+	 *      true if enabled, false otherwise
+	 */
+	public boolean isLevelOfDetailEnabled() {
+		return mStyle.isLevelOfDetailEnabled();
+	}
+
+	/**
+	 * Redraw if the new scale needs another level of detail. Scale changes do not redraw the content by themselves
+	 *
+	 * @param scaleX
+	 *      The scale factor
+	 */
+	@Override
+	public void setScaleX( float scaleX ) {
+		super.setScaleX( scaleX );
+		onScaleChanged();
+	}
+
+	/**
+	 * Redraw if the new scale needs another level of detail. Scale changes do not redraw the content by themselves
+	 *
+	 * @param scaleY
+	 *      The scale factor
+	 */
+	@Override
+	public void setScaleY( float scaleY ) {
+		super.setScaleY( scaleY );
+		onScaleChanged();
+	}
+
+	/**
+	 * Redraw if the current scale needs another level of detail. A ViewPropertyAnimator changes the scale without
+	 * going through the setters, so the menu calls this on every frame of its scale animations. The level itself is
+	 * picked from the actual scale when the item is drawn
+	 */
+	void onScaleChanged() {
+		if((mStyle != null) && isLevelOfDetailUsed() && (getLevelOfDetail() != mnCurrentLodLevel))     //Null while in the super constructor
+			invalidate();
+	}
+
+	/**
+	 * Get the requested config of the shader bitmap
+	 *
+	 * @return
+	 *      One of the BITMAP_CONFIG_* values
+	 */
+	public int getBitmapConfig() {
+		return mStyle.getBitmapConfig();
+	}
+
+	/**
+	 * Decode the bitmap and set up the shader now rather than on the first draw, e.g. for an item that is likely to
+	 * be picked. Does nothing till the view is measured, or if it is done already
+	 */
+	public void prepareBitmap() {
+		if(mnBitmapDiameter > 0)
+			loadBitmap();
+	}
+
+	/**
+	 * Release memory when the system asks for it. The levels of detail go first, until the shader bitmap is built
+	 * again, and the shader bitmaps as well once memory is critical or the UI is hidden. These are rendered again on
+	 * the next draw
+	 *
+	 * @param nLevel
+	 *      The ComponentCallbacks2 trim level
+	 */
+	public void onTrimMemory( int nLevel ) {
+		if(nLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL)
+			releaseBitmaps();
+		else if(nLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)
+			clearLevelsOfDetail();
+	}
+
+	/**
+	 * Drop the bitmaps and the shader. The bitmaps are not recycled, since the drawable or a display list might
+	 * still hold on to them
+	 */
+	public void releaseBitmaps() {
+		clearLevelsOfDetail();
+		mBitmapPaint.setShader( null );
+		mBitmapShader = null;
+		mShaderBitmap = null;
+		mBitmap = null;
+		mDrawable = null;       //Loaded again on the next draw
+	}
+
+	/**
+	 * Get the memory held by the bitmaps of the item: the source bitmap, the shader bitmap and the levels of detail
+	 *
+	 * @return
+	 *      The size in bytes
+	 */
+	int getBitmapByteCount() {
+		int nBytes = getByteCount( mBitmap );
+		if(mShaderBitmap != mBitmap)
+			nBytes += getByteCount( mShaderBitmap );
+		for(Bitmap lodBitmap : mLodBitmaps)
+			nBytes += getByteCount( lodBitmap );
+		return nBytes;
+	}
+
+	private static int getByteCount( Bitmap bitmap ) {
+		return (bitmap != null) ? bitmap.getRowBytes() * bitmap.getHeight() : 0;
+	}
+
 	/**
 	 * Load the Bitmap
 	 *
@@ -256,23 +542,216 @@ public class RoundedShadowImageView extends ImageView implements View.OnClickLis
 		if(mBitmap == null)
 			return;
 
+		SpiderMenuTrace.beginSection( SpiderMenuTrace.SECTION_REFRESH_SHADER );
+
 		/*
-		Create the bitmap shader and offer it as a source to the paint
+		Create the bitmap shader and offer it as a source to the paint. Convert the bitmap to the requested config
+		even if it is not resized. In the shader matrix mode, the scaling is left to the shader matrix
 		 */
-		mBitmapShader = new BitmapShader( (mbShouldResizeBitmap) ? getScaledBitmap() : mBitmap, BitmapShader.TileMode.CLAMP, BitmapShader.TileMode.CLAMP );
+		String key = getShaderBitmapKey();
+		mShaderBitmap = (key != null) ? ShaderBitmapCache.get( key ) : null;
+		if(mShaderBitmap == null) {
+			mShaderBitmap = (mStyle.shouldResizeBitmap() && !isShaderMatrixResize()) ? getScaledBitmap() : renderBitmap( mBitmap, null, mBitmap.getWidth(), mBitmap.getHeight() );
+			if(key != null)
+				ShaderBitmapCache.put( key, mShaderBitmap );
+		}
+		mBitmapShader = new BitmapShader( mShaderBitmap, BitmapShader.TileMode.CLAMP, BitmapShader.TileMode.CLAMP );
+		clearLevelsOfDetail();
+		updateShaderMatrix();
+		updateLevelsOfDetail();
 
 		/*
-		 Apply translation to the shader matrix so that the resultant source pixels of the bitmap are centered
+		Set the shader as the source to the paint
 		 */
-		Matrix shaderMatrix = new Matrix();
+		mBitmapPaint.setShader( mBitmapShader );
+		SpiderMenuTrace.endSection();
+	}
+
+	/**
+	 * Get the key of the shader bitmap in the {@link ShaderBitmapCache}: the resource and everything the shader
+	 * bitmap is derived from. The scaled copies depend on the diameter, and the RGB_565 ones on the background fill
+	 *
+	 * @return
+	 *      The key, or null if the drawable was not set from a resource
+	 */
+	private String getShaderBitmapKey() {
+		if(mnImageResourceID == 0)
+			return null;
+
+		int nDiameter = (mStyle.shouldResizeBitmap() && !isShaderMatrixResize()) ? mnBitmapDiameter : 0;
+		return "icon/" + mnImageResourceID + "/" + getResources().getDisplayMetrics().densityDpi + "/" + nDiameter + "/" +
+				mStyle.getBitmapConfig() + "/" + mStyle.getBackgroundColor();
+	}
+
+	/**
+	 * Update the local matrix of the shader for the current bitmap diameter. Apply translation to the shader matrix
+	 * so that the resultant source pixels of the bitmap are centered. In the shader matrix mode, the matrix holds
+	 * the scaling as well.
+	 */
+	private void updateShaderMatrix() {
+		if(mBitmapShader == null)
+			return;
+
+		mShaderMatrix.reset();
+		if(isShaderMatrixResize()) {
+			float nScaleFactor = getScaleFactor();
+			mShaderMatrix.setScale( nScaleFactor, nScaleFactor );
+		}
+
 		float translateFactor = getTranslateFactor();
-		shaderMatrix.postTranslate( translateFactor, translateFactor );
-		mBitmapShader.setLocalMatrix( shaderMatrix );
+		mShaderMatrix.postTranslate( translateFactor, translateFactor );
+		mBitmapShader.setLocalMatrix( mShaderMatrix );
+		mnShaderDiameter = mnBitmapDiameter;
 
 		/*
-		Set the shader as the source to the paint
+		The levels of detail sample the same area, just from a smaller bitmap
 		 */
-		mBitmapPaint.setShader( mBitmapShader );
+		for(int nLevel = 1; nLevel < LOD_LEVEL_COUNT; ++nLevel) {
+			if(mLodShaders[nLevel] != null)
+				updateLevelOfDetailMatrix( nLevel );
+		}
+	}
+
+	/**
+	 * Get the level of detail for the current scale of the view. We pick the smallest level that is still at least as
+	 * large as the drawn size, so that we never sample up
+	 *
+	 * @return
+	 *      0 for the full size, 1 for half and 2 for quarter size
+	 */
+	private int getLevelOfDetail() {
+		float nScale = Math.max( Math.abs( getScaleX() ), Math.abs( getScaleY() ) );
+		if(nScale <= 0.25f)
+			return 2;
+		else if(nScale <= 0.5f)
+			return 1;
+		else
+			return 0;
+	}
+
+	/**
+	 * Check if the levels of detail are used. A software layer, as needed by the blurred shadow, is drawn at the full
+	 * size of the view and only scaled when composited, so a smaller level would just be sampled up into it
+	 *
+	 * @return
+	 *      true if used, false otherwise
+	 */
+	private boolean isLevelOfDetailUsed() {
+		return mStyle.isLevelOfDetailEnabled() && !isHardwareBitmapRequested() && (getLayerType() != LAYER_TYPE_SOFTWARE);
+	}
+
+	/**
+	 * Set the shader for the level of detail that fits the current scale on the bitmap paint. The levels are built
+	 * with the shader bitmap, so nothing is created on the draw path; a level that could not be built falls back to
+	 * the full size
+	 */
+	private void applyLevelOfDetail() {
+		int nLevel = isLevelOfDetailUsed() ? getLevelOfDetail() : 0;
+		if((nLevel > 0) && (mLodShaders[nLevel] == null))
+			nLevel = 0;
+
+		if(nLevel != mnCurrentLodLevel) {
+			mBitmapPaint.setShader( (nLevel == 0) ? mBitmapShader : mLodShaders[nLevel] );
+			mnCurrentLodLevel = nLevel;
+		}
+	}
+
+	/**
+	 * Create the bitmap and the shader for a level of detail by halving the shader bitmap for every level
+	 *
+	 * @param nLevel
+	 *      The level to create
+	 * @return
+	 *      true if created, false otherwise
+	 */
+	private boolean createLevelOfDetail(int nLevel) {
+		int nWidth = mShaderBitmap.getWidth() >> nLevel;
+		int nHeight = mShaderBitmap.getHeight() >> nLevel;
+		if((nWidth <= 0) || (nHeight <= 0))
+			return false;
+
+		try {
+			mLodBitmaps[nLevel] = Bitmap.createScaledBitmap( mShaderBitmap, nWidth, nHeight, true );
+		}
+		catch ( OutOfMemoryError e ) {
+			Logger.d( "Out of memory exception when creating the level of detail bitmap" );
+			return false;
+		}
+
+		mLodShaders[nLevel] = new BitmapShader( mLodBitmaps[nLevel], BitmapShader.TileMode.CLAMP, BitmapShader.TileMode.CLAMP );
+		mLodMatrices[nLevel] = new Matrix();
+		updateLevelOfDetailMatrix( nLevel );
+		return true;
+	}
+
+	/**
+	 * The local matrix of a level of detail is the shader matrix, scaled up by the size ratio of the level, so that
+	 * it maps to the same area as the full size bitmap
+	 *
+	 * @param nLevel
+	 *      The level to update
+	 */
+	private void updateLevelOfDetailMatrix(int nLevel) {
+		Matrix matrix = mLodMatrices[nLevel];
+		matrix.set( mShaderMatrix );
+		matrix.preScale( (float) mShaderBitmap.getWidth() / mLodBitmaps[nLevel].getWidth(),
+				(float) mShaderBitmap.getHeight() / mLodBitmaps[nLevel].getHeight() );
+		mLodShaders[nLevel].setLocalMatrix( matrix );
+	}
+
+	/**
+	 * Build the missing levels of detail from the current shader bitmap if they are used, or drop them otherwise
+	 */
+	private void updateLevelsOfDetail() {
+		if(!isLevelOfDetailUsed()) {
+			clearLevelsOfDetail();
+			return;
+		}
+
+		if(mShaderBitmap == null)
+			return;
+
+		for(int nLevel = 1; nLevel < LOD_LEVEL_COUNT; ++nLevel) {
+			if((mLodShaders[nLevel] == null) && !createLevelOfDetail( nLevel ))
+				break;
+		}
+	}
+
+	/**
+	 * Drop the levels of detail. They are rebuilt along with the next shader bitmap
+	 */
+	private void clearLevelsOfDetail() {
+		for(int nLevel = 1; nLevel < LOD_LEVEL_COUNT; ++nLevel) {
+			mLodBitmaps[nLevel] = null;     //Not recycled, a display list might still hold on to it
+			mLodShaders[nLevel] = null;
+			mLodMatrices[nLevel] = null;
+		}
+
+		if(mnCurrentLodLevel != 0) {
+			mBitmapPaint.setShader( mBitmapShader );
+			mnCurrentLodLevel = 0;
+		}
+	}
+
+	/**
+	 * The bitmap diameter changed since the shader was set up. A scaled copy has to be recreated, while in the
+	 * shader matrix mode or without resizing, only the matrix needs an update
+	 */
+	private void onBitmapDiameterChanged() {
+		if(mStyle.shouldResizeBitmap() && !isShaderMatrixResize())
+			refreshShader();
+		else
+			updateShaderMatrix();
+	}
+
+	/**
+	 * Check if the bitmap is resized via the shader matrix
+	 *
+	 * @return
+	 *      true if the bitmap should be resized and the shader matrix mode is set
+	 */
+	private boolean isShaderMatrixResize() {
+		return mStyle.shouldResizeBitmap() && (mStyle.getResizeMode() == RESIZE_MODE_SHADER_MATRIX);
 	}
 
 	/**
@@ -305,8 +784,8 @@ public class RoundedShadowImageView extends ImageView implements View.OnClickLis
 		Create a new bitmap and assign the drawable to it
 		 */
 		try {
-			Canvas canvas = new Canvas();
 			Bitmap bitmap = Bitmap.createBitmap( nWidth, nHeight, Bitmap.Config.ARGB_8888 );
+			Canvas canvas = new Canvas( bitmap );
 			mDrawable.setBounds( 0, 0, nWidth, nHeight );
 			mDrawable.draw( canvas );
 			return bitmap;
@@ -337,11 +816,113 @@ public class RoundedShadowImageView extends ImageView implements View.OnClickLis
 		/*
 		Create a scaled down bitmap with the matrix. Since the scaled down version reference is with respect to the
 		original bitmap #mBitmap, we use that size to create the scaled down bitmap so that scaling and translation
-		can be applied correctly
+		can be applied correctly. The copy is created directly in the requested config, so that we do not pay for
+		an intermediate ARGB_8888 copy
 		 */
-		Bitmap scaledBitmap = Bitmap.createBitmap( mBitmap, 0, 0, mBitmap.getWidth(), mBitmap.getHeight(), shaderMatrix, true );
+		int nScaledWidth = Math.max( 1, Math.round( mBitmap.getWidth() * nScaleFactor ) );
+		int nScaledHeight = Math.max( 1, Math.round( mBitmap.getHeight() * nScaleFactor ) );
 
-		return scaledBitmap;
+		return renderBitmap( mBitmap, shaderMatrix, nScaledWidth, nScaledHeight );
+	}
+
+	/**
+	 * Draw the source bitmap with the given matrix into a new bitmap of the resolved config. If there is nothing
+	 * to be done (no matrix and the config already matches), the source is returned as is.
+	 *
+	 * Configs without an alpha channel (RGB_565) are flattened on the background fill color first. Since the
+	 * circle clipping is done by the shader, the missing alpha does not matter as long as the transparent parts
+	 * of the icon were meant to show the background fill anyway.
+	 *
+	 * @param source
+	 *      The source bitmap
+	 * @param matrix
+	 *      The matrix to draw the source with. Can be null
+	 * @param nWidth
+	 *      The width of the resultant bitmap
+	 * @param nHeight
+	 *      The height of the resultant bitmap
+	 * @return
+	 *      The rendered bitmap, or the source if the rendering failed
+	 */
+	private Bitmap renderBitmap(Bitmap source, Matrix matrix, int nWidth, int nHeight) {
+		Bitmap.Config config = resolveBitmapConfig( source );
+		boolean bHardware = (config != Bitmap.Config.ARGB_8888) && (config != Bitmap.Config.RGB_565);
+
+		if((matrix == null) && (config == source.getConfig()))
+			return source;
+
+		/*
+		Hardware bitmaps cannot be drawn into, so draw into a software bitmap and upload that one later
+		 */
+		Bitmap.Config drawConfig = (bHardware) ? ((isOpaqueSource( source )) ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888) : config;
+
+		try {
+			Bitmap bitmap = Bitmap.createBitmap( nWidth, nHeight, drawConfig );
+			Canvas canvas = new Canvas( bitmap );
+			if(drawConfig == Bitmap.Config.RGB_565)
+				canvas.drawColor( mStyle.getBackgroundColor() | 0xFF000000 );      //No alpha channel, so flatten on an opaque background
+
+			canvas.drawBitmap( source, (matrix != null) ? matrix : new Matrix(), new Paint( Paint.FILTER_BITMAP_FLAG | Paint.DITHER_FLAG ) );
+
+			if(bHardware) {
+				Bitmap hardwareBitmap = bitmap.copy( config, false );
+				if(hardwareBitmap != null) {
+					bitmap.recycle();
+					bitmap = hardwareBitmap;
+				}
+			}
+
+			return bitmap;
+		}
+		catch ( OutOfMemoryError e ) {
+			Logger.d( "Out of memory exception when rendering the shader bitmap" );
+			return source;
+		}
+	}
+
+	/**
+	 * Resolve the config of the shader bitmap from the requested config and the source bitmap
+	 *
+	 * @param source
+	 *      The source bitmap
+	 * @return
+	 *      The config to be used for the shader bitmap
+	 */
+	private Bitmap.Config resolveBitmapConfig(Bitmap source) {
+		switch ( mStyle.getBitmapConfig() ) {
+			case BITMAP_CONFIG_ARGB_8888:
+				return Bitmap.Config.ARGB_8888;
+			case BITMAP_CONFIG_RGB_565:
+				return Bitmap.Config.RGB_565;
+			case BITMAP_CONFIG_HARDWARE:
+				if(Build.VERSION.SDK_INT >= HARDWARE_BITMAP_MIN_SDK)
+					return Bitmap.Config.valueOf( "HARDWARE" );     //Not in our compile SDK yet
+				//Fall through to auto
+			default:    //BITMAP_CONFIG_AUTO
+				return (isOpaqueSource( source )) ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+		}
+	}
+
+	/**
+	 * Check if the source has no transparent pixels, in which case the alpha channel is a waste
+	 *
+	 * @param source
+	 *      The source bitmap
+	 * @return
+	 *      true if opaque, false otherwise
+	 */
+	private boolean isOpaqueSource(Bitmap source) {
+		return (!source.hasAlpha()) || ((mDrawable != null) && (mDrawable.getOpacity() == PixelFormat.OPAQUE));
+	}
+
+	/**
+	 * Check if hardware bitmaps are requested and supported on this device
+	 *
+	 * @return
+	 *      true if the shader bitmap will be a hardware bitmap
+	 */
+	boolean isHardwareBitmapRequested() {
+		return (mStyle.getBitmapConfig() == BITMAP_CONFIG_HARDWARE) && (Build.VERSION.SDK_INT >= HARDWARE_BITMAP_MIN_SDK);
 	}
 
 	/**
@@ -375,7 +956,7 @@ public class RoundedShadowImageView extends ImageView implements View.OnClickLis
 	 * @author Melvin Lobo
 	 */
 	private float getTranslateFactor() {
-		if(mbShouldResizeBitmap)
+		if(mStyle.shouldResizeBitmap())
 			return ((mnBitmapDiameter - getInsetSquareForBitmapDiameter()) / 2) + 0.5f;
 		else {
 			int nDrawableSize = Math.min(mDrawable.getIntrinsicHeight(), mDrawable.getIntrinsicWidth());
@@ -427,9 +1008,11 @@ public class RoundedShadowImageView extends ImageView implements View.OnClickLis
 			int nWidth = MeasureSpec.getSize( widthMeasureSpec );
 			int nHeight = MeasureSpec.getSize( heightMeasureSpec );
 			mnBitmapDiameter = Math.min( nWidth, nHeight );
-			int nLargestOffset = Math.max( mnHorizontalOffset, mnVerticalOffset );      //Take the max offset as we have to work with s square
-			int nOptimalX = getOptimalValue( mnBitmapDiameter + mnHorizontalOffset, nWidth, MeasureSpec.getMode( widthMeasureSpec ));
-			int nOptimalY = getOptimalValue( mnBitmapDiameter + mnVerticalOffset, nHeight, MeasureSpec.getMode( heightMeasureSpec ) );
+			int nHorizontalOffset = mStyle.getHorizontalOffset();
+			int nVerticalOffset = mStyle.getVerticalOffset();
+			int nLargestOffset = Math.max( nHorizontalOffset, nVerticalOffset );      //Take the max offset as we have to work with s square
+			int nOptimalX = getOptimalValue( mnBitmapDiameter + nHorizontalOffset, nWidth, MeasureSpec.getMode( widthMeasureSpec ));
+			int nOptimalY = getOptimalValue( mnBitmapDiameter + nVerticalOffset, nHeight, MeasureSpec.getMode( heightMeasureSpec ) );
 			int nSmallestOptimalSize = Math.min(nOptimalX, nOptimalY);                  //Again, smaller value for a fitting square
 
 			/*
@@ -483,22 +1066,33 @@ public class RoundedShadowImageView extends ImageView implements View.OnClickLis
 	protected void onDraw( Canvas canvas ) {
 
 		/*
-		Load the bitmap first
+		Load the bitmap first and catch up with any size change since the shader was set up
 		 */
 		loadBitmap();
+		if((mBitmapShader != null) && (mnShaderDiameter != mnBitmapDiameter))
+			onBitmapDiameterChanged();
+
+		if(mBitmapShader != null)
+			applyLevelOfDetail();
 
 		/*
 		Draw the bitmap shader and the shadow.
 		 */
 		if(mBitmap != null) {
 			int nRadius = mnBitmapDiameter / 2;
-			int nCenterX = ( canvas.getWidth() - (mnBitmapDiameter + mnHorizontalOffset)) / 2;
-			int nCenterY = ( canvas.getHeight() - (mnBitmapDiameter + mnVerticalOffset)) / 2;
+			SpiderMenuItemStyle style = mStyle;
+			int nHorizontalOffset = style.getHorizontalOffset();
+			int nVerticalOffset = style.getVerticalOffset();
+			int nCenterX = ( canvas.getWidth() - (mnBitmapDiameter + nHorizontalOffset)) / 2;
+			int nCenterY = ( canvas.getHeight() - (mnBitmapDiameter + nVerticalOffset)) / 2;
 			canvas.translate( nCenterX, nCenterY );
-			canvas.drawCircle( nRadius + mnHorizontalOffset - ((mbIsHorizontalOffsetRequired) ? mnShadowRadius : 0), nRadius + mnVerticalOffset - ((mbIsVerticalOffsetRequired) ? mnShadowRadius : 0), nRadius, mShadowPaint );
+			SpiderMenuTrace.beginSection( SpiderMenuTrace.SECTION_DRAW_SHADOW );
+			Paint shadowPaint = (mbShadowBlurred) ? style.getShadowPaint() : ((mbAntiAliased) ? style.getFlatShadowPaint() : style.getAliasedShadowPaint());
+			canvas.drawCircle( nRadius + nHorizontalOffset - ((style.isHorizontalOffsetRequired()) ? style.getShadowRadius() : 0), nRadius + nVerticalOffset - ((style.isVerticalOffsetRequired()) ? style.getShadowRadius() : 0), nRadius, shadowPaint );
+			SpiderMenuTrace.endSection();
 
-			if(mBackgroundPaint.getColor() != Color.TRANSPARENT)
-				canvas.drawCircle( nRadius, nRadius, nRadius, mBackgroundPaint );
+			if(style.getBackgroundColor() != Color.TRANSPARENT)
+				canvas.drawCircle( nRadius, nRadius, nRadius, (mbAntiAliased) ? style.getBackgroundPaint() : style.getAliasedBackgroundPaint() );
 
 			canvas.drawCircle( nRadius, nRadius, nRadius, mBitmapPaint );
 
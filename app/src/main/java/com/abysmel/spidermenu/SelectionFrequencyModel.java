@@ -0,0 +1,285 @@
+package com.abysmel.spidermenu;
+
+import android.content.Context;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AtomicFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Counts how often every item is picked on every menu level, so that SpiderMenu can prepare the likely picks ahead
+ * of time. The counts are kept in a compact binary file in the app's files directory:
+ * a header (magic, version, entry count) followed by (level id, item id, count) int triplets.
+ *
+ * The file is read and written on the serial AsyncTask executor, never on the main thread. Picks are recorded
+ * right away, merged with the file once it is read, and written a couple of seconds after the last pick. When the
+ * model is full, all the counts are halved, so that old habits fade out.
+ */
+public class SelectionFrequencyModel {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * File format
+	 */
+	private static final int FILE_MAGIC = 0x53504D46;      //SPMF
+	private static final int FILE_VERSION = 1;
+
+	/**
+	 * Limits before the counts are aged
+	 */
+	private static final int MAX_ENTRIES = 1024;
+	private static final int MAX_COUNT = Integer.MAX_VALUE / 2;
+
+	/**
+	 * Delay before the picks are written to the file, in milliseconds
+	 */
+	private static final int SAVE_DELAY = 2000;
+
+	/**
+	 * The file
+	 */
+	private final AtomicFile mFile;
+
+	/**
+	 * The counts, keyed by the level id (high word) and the item id (low word). Guarded by this
+	 */
+	private final HashMap<Long, Integer> mCounts = new HashMap<>();
+
+	/**
+	 * Handler to schedule the writes
+	 */
+	private final Handler mHandler = new Handler( Looper.getMainLooper() );
+
+	/**
+	 * Writes the counts
+	 */
+	private final Runnable mSaveRunnable = new Runnable() {
+		@Override
+		public void run() {
+			AsyncTask.SERIAL_EXECUTOR.execute( new Runnable() {
+				@Override
+				public void run() {
+					save();
+				}
+			} );
+		}
+	};
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Constructor. Starts reading the file in the background
+	 *
+	 * @param context
+	 *      The context
+	 * @param fileName
+	 *      The name of the file in the app's files directory
+	 */
+	public SelectionFrequencyModel( Context context, String fileName ) {
+		mFile = new AtomicFile( new File( context.getFilesDir(), fileName ) );
+		AsyncTask.SERIAL_EXECUTOR.execute( new Runnable() {
+			@Override
+			public void run() {
+				load();
+			}
+		} );
+	}
+
+	/**
+	 * Record a pick
+	 *
+	 * @param nLevelID
+	 *      The menu level. The id of the item whose submenu is shown, or View.NO_ID for the top level
+	 * @param nItemID
+	 *      The picked item
+	 */
+	public void recordSelection( int nLevelID, int nItemID ) {
+		synchronized ( this ) {
+			add( getKey( nLevelID, nItemID ), 1 );
+		}
+
+		mHandler.removeCallbacks( mSaveRunnable );
+		mHandler.postDelayed( mSaveRunnable, SAVE_DELAY );
+	}
+
+	/**
+	 * Get the most picked items of a menu level
+	 *
+	 * @param nLevelID
+	 *      The menu level
+	 * @param nMaxCount
+	 *      The maximum number of items
+	 * @return
+	 *      The item ids, most picked first. Items that were never picked are not included
+	 */
+	public int[] getLikelyItems( int nLevelID, int nMaxCount ) {
+		ArrayList<long[]> candidates = new ArrayList<>();
+		synchronized ( this ) {
+			for(Map.Entry<Long, Integer> entry : mCounts.entrySet()) {
+				long nKey = entry.getKey();
+				if((int) (nKey >> 32) == nLevelID)
+					candidates.add( new long[] { nKey, entry.getValue() } );
+			}
+		}
+
+		Collections.sort( candidates, new Comparator<long[]>() {
+			@Override
+			public int compare( long[] lhs, long[] rhs ) {
+				return (lhs[1] < rhs[1]) ? 1 : ((lhs[1] > rhs[1]) ? -1 : 0);
+			}
+		} );
+
+		int[] itemIDs = new int[Math.min( nMaxCount, candidates.size() )];
+		for(int nCtr = 0; nCtr < itemIDs.length; ++nCtr)
+			itemIDs[nCtr] = (int) candidates.get( nCtr )[0];
+
+		return itemIDs;
+	}
+
+	/**
+	 * Get the number of times an item was picked
+	 *
+	 * @param nLevelID
+	 *      The menu level
+	 * @param nItemID
+	 *      The item
+	 * @return
+	 *      The count
+	 */
+	public synchronized int getSelectionCount( int nLevelID, int nItemID ) {
+		Integer nCount = mCounts.get( getKey( nLevelID, nItemID ) );
+		return (nCount != null) ? nCount : 0;
+	}
+
+	/**
+	 * Add to the count of an entry. Ages the counts if the model is full. Must hold the lock
+	 */
+	private void add( long nKey, int nCount ) {
+		Integer nOldCount = mCounts.get( nKey );
+		if(((nOldCount == null) && (mCounts.size() >= MAX_ENTRIES)) || ((nOldCount != null) && (nOldCount >= MAX_COUNT))) {
+			age();
+			nOldCount = mCounts.get( nKey );
+		}
+
+		mCounts.put( nKey, (nOldCount != null) ? nOldCount + nCount : nCount );
+	}
+
+	/**
+	 * Halve all the counts and drop the ones that fall to zero. Must hold the lock
+	 */
+	private void age() {
+		Iterator<Map.Entry<Long, Integer>> iterator = mCounts.entrySet().iterator();
+		while(iterator.hasNext()) {
+			Map.Entry<Long, Integer> entry = iterator.next();
+			int nCount = entry.getValue() / 2;
+			if(nCount == 0)
+				iterator.remove();
+			else
+				entry.setValue( nCount );
+		}
+	}
+
+	/**
+	 * Read the file and merge it with the picks recorded so far. Runs in the background
+	 */
+	private void load() {
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream( new BufferedInputStream( mFile.openRead() ) );
+			if((in.readInt() != FILE_MAGIC) || (in.readInt() != FILE_VERSION)) {
+				Logger.w( "Ignoring an unknown selection frequency file" );
+				return;
+			}
+
+			int nEntryCount = in.readInt();
+			synchronized ( this ) {
+				for(int nCtr = 0; nCtr < nEntryCount; ++nCtr) {
+					int nLevelID = in.readInt();
+					int nItemID = in.readInt();
+					add( getKey( nLevelID, nItemID ), in.readInt() );
+				}
+			}
+		}
+		catch ( FileNotFoundException e ) {
+			//Nothing picked yet
+		}
+		catch ( IOException e ) {
+			Logger.e( "Reading the selection frequencies failed: %s", e );
+		}
+		finally {
+			closeQuietly( in );
+		}
+	}
+
+	/**
+	 * Write the counts to the file. Runs in the background
+	 */
+	private void save() {
+		long[] keys;
+		int[] counts;
+		synchronized ( this ) {
+			keys = new long[mCounts.size()];
+			counts = new int[keys.length];
+			int nCtr = 0;
+			for(Map.Entry<Long, Integer> entry : mCounts.entrySet()) {
+				keys[nCtr] = entry.getKey();
+				counts[nCtr++] = entry.getValue();
+			}
+		}
+
+		FileOutputStream fileOut = null;
+		try {
+			fileOut = mFile.startWrite();
+			DataOutputStream out = new DataOutputStream( new BufferedOutputStream( fileOut ) );
+			out.writeInt( FILE_MAGIC );
+			out.writeInt( FILE_VERSION );
+			out.writeInt( keys.length );
+			for(int nCtr = 0; nCtr < keys.length; ++nCtr) {
+				out.writeInt( (int) (keys[nCtr] >> 32) );
+				out.writeInt( (int) keys[nCtr] );
+				out.writeInt( counts[nCtr] );
+			}
+			out.flush();
+			mFile.finishWrite( fileOut );
+		}
+		catch ( IOException e ) {
+			Logger.e( "Writing the selection frequencies failed: %s", e );
+			if(fileOut != null)
+				mFile.failWrite( fileOut );
+		}
+	}
+
+	/**
+	 * Get the key of an entry
+	 */
+	private static long getKey( int nLevelID, int nItemID ) {
+		return ((long) nLevelID << 32) | (nItemID & 0xFFFFFFFFL);
+	}
+
+	private static void closeQuietly( DataInputStream in ) {
+		if(in == null)
+			return;
+
+		try {
+			in.close();
+		}
+		catch ( IOException e ) {
+			//Nothing we can do
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.abysmel.spidermenu;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+/**
+ * A process wide cache of the bitmaps the menus derive from their icons: the scaled and converted shader bitmaps
+ * of RoundedShadowImageView and the blurred shadows of the flat render mode. It outlives the views, so a menu
+ * recreated after a configuration change (e.g. a rotation) picks its bitmaps up instead of rendering them again.
+ *
+ * The keys describe everything the bitmap is derived from (the drawable resource, the size and the style values
+ * involved), so equal items share a bitmap. The cache is bounded by bytes, and SpiderMenu trims it when the system
+ * runs low on memory. The LruCache is synchronized, so the menus built by SpiderMenuAsyncBuilder fill it from their
+ * background thread.
+ */
+final class ShaderBitmapCache {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * The share of the heap the cache may use
+	 */
+	private static final int HEAP_FRACTION = 16;
+
+	/**
+	 * The bitmaps, by key
+	 */
+	private static final LruCache<String, Bitmap> sBitmaps = new LruCache<String, Bitmap>( (int) (Runtime.getRuntime().maxMemory() / HEAP_FRACTION) ) {
+		@Override
+		protected int sizeOf( String key, Bitmap bitmap ) {
+			return bitmap.getRowBytes() * bitmap.getHeight();
+		}
+	};
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	private ShaderBitmapCache() {
+	}
+
+	/**
+	 * Get a bitmap
+	 *
+	 * @param key
+	 *      The key
+	 * @return
+	 *      The bitmap, or null if it is not cached
+	 */
+	static Bitmap get( String key ) {
+		return sBitmaps.get( key );
+	}
+
+	/**
+	 * Cache a bitmap. The bitmap is shared from now on, so it must not be drawn into or recycled
+	 *
+	 * @param key
+	 *      The key
+	 * @param bitmap
+	 *      The bitmap
+	 */
+	static void put( String key, Bitmap bitmap ) {
+		sBitmaps.put( key, bitmap );
+	}
+
+	/**
+	 * Shrink the cache when the system asks for memory. Halved when running low, emptied once memory is critical
+	 * or the UI is hidden
+	 *
+	 * @param nLevel
+	 *      The ComponentCallbacks2 trim level
+	 */
+	static void onTrimMemory( int nLevel ) {
+		if(nLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL)
+			sBitmaps.evictAll();
+		else if(nLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)
+			sBitmaps.trimToSize( sBitmaps.maxSize() / 2 );
+	}
+}
@@ -0,0 +1,63 @@
+package com.abysmel.spidermenu;
+
+import com.facebook.rebound.SpringSystem;
+
+/**
+ * A Rebound {@link SpringSystem} shared by all the SpiderMenus that opt in, so that a screen full of menus runs
+ * a single spring looper instead of one per menu. The system is reference counted: menus acquire it when they
+ * are attached to the window and release it when they are detached, and it is dropped with the last reference.
+ *
+ * The looper only posts frame callbacks while springs are active, so idle menus cost no frame callbacks.
+ * Must be used from the main thread only, like the springs themselves.
+ */
+public class SharedSpringSystem {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * The shared system
+	 */
+	private static SpringSystem sSpringSystem = null;
+
+	/**
+	 * The number of menus holding on to the shared system
+	 */
+	private static int snReferenceCount = 0;
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Acquire the shared system. Must be balanced with {@link #release()}
+	 *
+	 * @return
+	 *      The shared spring system
+	 */
+	public static SpringSystem acquire() {
+		if(sSpringSystem == null)
+			sSpringSystem = SpringSystem.create();
+
+		snReferenceCount++;
+		return sSpringSystem;
+	}
+
+	/**
+	 * Release the shared system. Dropped when the last reference is released
+	 */
+	public static void release() {
+		if(snReferenceCount == 0) {
+			Logger.w( "SharedSpringSystem released more often than acquired" );
+			return;
+		}
+
+		if(--snReferenceCount == 0)
+			sSpringSystem = null;
+	}
+
+	/**
+	 * Get the number of references
+	 *
+	 * @return
+	 *      The number of menus holding on to the shared system
+	 */
+	public static int getReferenceCount() {
+		return snReferenceCount;
+	}
+}
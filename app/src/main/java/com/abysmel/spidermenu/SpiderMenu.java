@@ -1,34 +1,59 @@
 package com.abysmel.spidermenu;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
 import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
 import android.os.Build;
-import android.os.Handler;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.annotation.IntDef;
 import android.support.v4.view.ViewCompat;
+import android.support.v4.view.ViewPropertyAnimatorCompat;
+import android.support.v4.view.ViewPropertyAnimatorUpdateListener;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
 import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.view.AbsSavedState;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.animation.AnimationUtils;
 import android.view.animation.DecelerateInterpolator;
+import android.view.animation.LinearInterpolator;
 
 import com.facebook.rebound.Spring;
 import com.facebook.rebound.SpringConfig;
 import com.facebook.rebound.SpringListener;
 import com.facebook.rebound.SpringSystem;
-import com.facebook.rebound.SpringUtil;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Created by Melvin Lobo on 4/18/2016.
  *
  * Radial Menu to display options in a radial. Children are
- * {@link com.abysmel.spidermenu.RoundedShadowImageView}
+ * {@link com.abysmel.spidermenu.RoundedShadowImageView}, unless the menu is in the flat render mode, where it draws
+ * the items itself through a {@link FlatMenuRenderer}
  *
  * The option when selected will move to the center of the menu and is used as a "back" button
  * to traverse in the reverse order
@@ -69,19 +94,17 @@ import java.util.ArrayList;
  *
  * Uses Facebook Rebound for interpolators
  * http://facebook.github.io/rebound/
+ *
+ * By default the scale bounces are not integrated by Rebound, frame by frame, but evaluated in closed form with an
+ * {@link AnalyticSpring} of the same tension and friction: every bounce is a start time, and one frame callback sets
+ * the scale of all the bouncing items from the frame time. See {@link SpiderMenuConfig#SPRING_MODE_ANALYTIC}
  */
 public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.ViewClickListener {
 	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
 	/**
 	 * Static Definitions
 	 */
-	private static final int DEFAULT_MENUITEM_RADIUS = 70;
-	private static final int DEFAULT_CENTER_MENU_RADIUS = 100;
 	private static final double FULL_CIRCLE_ANGLE = 360;
-	private static final double RADIAL_SCALE_TENSION = 200;
-	private static final double RADIAL_SCALE_FRICTION = 10;
-	private static final double CENTER_SCALE_TENSION = 400;
-	private static final double CENTER_SCALE_FRICTION = 10;
 
 	/**
 	 * The menu item children count
@@ -91,7 +114,7 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 	/**
 	 * The radius of the center Menu
 	 */
-	private int mnCenterMenuRadius = (int)Util.d2x( getContext(), DEFAULT_CENTER_MENU_RADIUS );
+	private int mnCenterMenuRadius = 0;
 
 	/**
 	 * The canvas size as a square
@@ -106,7 +129,12 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 	/**
 	 * The current radius of the menu item
 	 */
-	private int mnCurrentMenuItemRadius = (int)Util.d2x( getContext(), DEFAULT_MENUITEM_RADIUS );
+	private int mnCurrentMenuItemRadius = 0;
+
+	/**
+	 * The immutable configuration. Shared between the menus of the same style and density
+	 */
+	private SpiderMenuConfig mConfig = null;
 
 	/**
 	 * The animation transition value for the distance between the center circle item and the radial items
@@ -114,9 +142,136 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 	private float mnDistanceTransition = 0.0f;
 
 	/**
-	 * Add a spring system
+	 * The spring system, in the Rebound spring mode. Acquired when we are attached to the window, and released when
+	 * we are detached
+	 */
+	private SpringSystem mSpringSystem = null;
+
+	/**
+	 * The springs that have not come to rest yet. Destroyed if we are detached mid animation
+	 */
+	private ArrayList<Spring> mActiveSprings = new ArrayList<>(  );
+
+	/**
+	 * The analytic spring mode: the center and radial springs (they only depend on the config, so they are shared by
+	 * all the bounces), the bounces that have not come to rest yet, and whether a frame is posted for them
+	 */
+	private AnalyticSpring mCenterSpring = null;
+	private AnalyticSpring mRadialSpring = null;
+	private ArrayList<SpringBounce> mActiveBounces = new ArrayList<>(  );
+	private boolean mbBounceFramePosted = false;
+
+	/**
+	 * The adaptive quality: the controller fed with the frame times while the menu moves, its listener, whether a
+	 * frame callback is posted, and whether the items are set up for motion
+	 */
+	private final AdaptiveQualityController mQualityController = new AdaptiveQualityController();
+	private QualityLevelListener mQualityLevelListener = null;
+	private boolean mbQualityFramePosted = false;
+	private boolean mbInMotion = false;
+
+	/**
+	 * Whether the open or the close sequence is running. Set when a sequence starts and cleared on all the paths that
+	 * end it
+	 */
+	private boolean mbOpening = false;
+	private boolean mbClosing = false;
+
+	/**
+	 * Feeds the frame times to the quality controller
+	 */
+	private final Choreographer.FrameCallback mQualityFrameCallback = new Choreographer.FrameCallback() {
+		@Override
+		public void doFrame( long nFrameTimeNanos ) {
+			mbQualityFramePosted = false;
+			onQualityFrame( nFrameTimeNanos );
+		}
+	};
+
+	/**
+	 * The reduced motion mode (one of the SpiderMenuConfig.REDUCED_MOTION_* modes), the state of the system settings,
+	 * and whether we listen to their changes. In reduced motion, the menu opens and closes with one short cross-fade
+	 */
+	private static final int CROSS_FADE_DURATION = 150;
+	private int mnReducedMotion = SpiderMenuConfig.REDUCED_MOTION_AUTO;
+	private boolean mbSystemReducedMotion = false;
+	private boolean mbReducedMotionMonitored = false;
+
+	/**
+	 * Jumps to the end of the animations when the settings turn the motion off midway
+	 */
+	private final ReducedMotionMonitor.Listener mReducedMotionListener = new ReducedMotionMonitor.Listener() {
+		@Override
+		public void onReducedMotionChanged( boolean bReducedMotion ) {
+			mbSystemReducedMotion = bReducedMotion;
+			onReducedMotionChanged();
+		}
+	};
+
+	/**
+	 * Moves the analytic bounces to the frame time
 	 */
-	private SpringSystem mSpringSystem = SpringSystem.create();
+	private final Runnable mBounceFrameRunnable = new Runnable() {
+		@Override
+		public void run() {
+			mbBounceFramePosted = false;
+			onBounceFrame();
+		}
+	};
+
+	/**
+	 * Lets the items pick their level of detail on every frame of the scale animations, which do not go through
+	 * their scale setters
+	 */
+	private final ViewPropertyAnimatorUpdateListener mScaleUpdateListener = new ViewPropertyAnimatorUpdateListener() {
+		@Override
+		public void onAnimationUpdate( View view ) {
+			if(view instanceof RoundedShadowImageView)
+				((RoundedShadowImageView) view).onScaleChanged();
+		}
+	};
+
+	/**
+	 * The removed children that are still drawn while they animate out
+	 */
+	private ArrayList<View> mDisappearingChildren = new ArrayList<>(  );
+
+	/**
+	 * Releases memory when the system runs low. Registered while we are attached to the window
+	 */
+	private final MemoryCallbacks mMemoryCallbacks = new MemoryCallbacks();
+
+	/**
+	 * Starts the open animation. Posted once the children are about to be drawn
+	 */
+	private final Runnable mStartAnimationRunnable = new Runnable() {
+		@Override
+		public void run() {
+			startCenterAnimation();
+		}
+	};
+
+	/**
+	 * Bounces the center view in, after the open delay
+	 */
+	private final Runnable mBounceCenterRunnable = new Runnable() {
+		@Override
+		public void run() {
+			startQualityMonitor();
+			View centerView = getCenterView();
+			if(centerView == null) {
+				startRadialOutAnimationForNext( null );
+				return;
+			}
+
+			bounceView( centerView, new SpringAnimator( centerView, new SpringEndListener() {
+				@Override
+				public void onSpringRested() {
+					startRadialOutAnimationForNext( null );
+				}
+			} ) );
+		}
+	};
 
 	/**
 	 * ArrayList to sequentially run the radial animations
@@ -133,12 +288,207 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 	 */
 	private SpiderMenuClickListener mSpiderMenuClickListener = null;
 
+	/**
+	 * The item click listener
+	 */
+	private SpiderMenuItemClickListener mSpiderMenuItemClickListener = null;
+
+	/**
+	 * The items set via {@link #setItems(List)}, in child order. Null while the children come from the layout xml
+	 */
+	private ArrayList<SpiderMenuItem> mItems = null;
+
+	/**
+	 * The compiled menu resource set via {@link #setMenu(int)}, if any
+	 */
+	private SpiderMenuDefinition mMenuDefinition = null;
+
+	/**
+	 * Loads the submenus, if a provider is set
+	 */
+	private SubmenuLoader mSubmenuLoader = null;
+
+	/**
+	 * Gets the submenu of the clicked item
+	 */
+	private SubmenuLoader.SubmenuLoadListener mSubmenuLoadListener = null;
+
+	/**
+	 * The number of likely picks to prepare when the menu opens
+	 */
+	private static final int LIKELY_ITEM_COUNT = 3;
+
+	/**
+	 * Counts the picks, if set
+	 */
+	private SelectionFrequencyModel mSelectionModel = null;
+
+	/**
+	 * The menu level the picks are recorded for. The id of the item whose submenu is shown, or View.NO_ID for
+	 * the top level
+	 */
+	private int mnMenuLevelID = View.NO_ID;
+
+	/**
+	 * Animate the likely picks in first when the menu opens
+	 */
+	private boolean mbLikelyItemsFirst = false;
+
+	/**
+	 * Reused for the touch hit tests
+	 */
+	private final Rect mHitRect = new Rect();
+
+	/**
+	 * The drag to select (marking menu) gesture
+	 */
+	private final MarkingMenuGesture mDragGesture = new MarkingMenuGesture();
+	private boolean mbDragTracking = false;
+	private View mDragTarget = null;
+	private int mnTouchSlop = 0;
+	private int mnFlickVelocity = 0;
+
+	/**
+	 * The direction of every radial child from the center, in degrees, by child index. NaN for the center child.
+	 * Updated with the layout, so that a drag resolves its target even while the items animate in
+	 */
+	private float[] mRadialAngles = new float[0];
+
+	/**
+	 * The layout of the radial children when they have different weights, from {@link RadialLayoutSolver}, and the
+	 * weights it was solved for. Null while the weights are all the same
+	 */
+	private RadialLayoutSolver.Solution mWeightedLayout = null;
+	private float[] mRadialWeights = new float[0];
+
+	/**
+	 * The opaque disc of the center child in this frame, which hides the children drawn below it
+	 */
+	private View mOccluder = null;
+	private float mnOccluderX = 0;
+	private float mnOccluderY = 0;
+	private float mnOccluderRadius = 0;
+
+	/**
+	 * The children drawn and skipped in the last frame
+	 */
+	private int mnDrawnChildCount = 0;
+	private int mnSkippedChildCount = 0;
+
+	/**
+	 * The styles inherited by the radial and center items that do not define a style of their own
+	 */
+	private SpiderMenuItemStyle mRadialItemStyle = null;
+	private SpiderMenuItemStyle mCenterItemStyle = null;
+
+	/**
+	 * The flat render mode: the renderer that draws the items, the animator of the open and close progress, the
+	 * virtual views for accessibility and the item under the finger. The renderer is null in the views mode
+	 */
+	private FlatMenuRenderer mFlatRenderer = null;
+	private ValueAnimator mFlatAnimator = null;
+	private FlatAccessibilityHelper mFlatAccessibilityHelper = null;
+	private int mnFlatPressedItem = FlatMenuRenderer.NO_ITEM;
+
+	/**
+	 * Moves the children from where they were drawn to where the last layout put them, and grows the inserted ones
+	 * in. Translations and scales only, so there is no layout during the transition
+	 */
+	private ValueAnimator mItemTransition = null;
+	private final ArrayList<View> mTransitionChildren = new ArrayList<>(  );
+
+	/**
+	 * True once the menu opened, till an item is picked and it closes
+	 */
+	private boolean mbOpen = false;
+
+	/**
+	 * The listener that starts the open animation before the first draw. Null once it ran
+	 */
+	private PreDrawListener mPreDrawListener = null;
+
+	/**
+	 * The saved state to show on the first draw instead of playing the open animation, and the saved geometry to
+	 * use in the first measure pass, if the size is the same
+	 */
+	private SavedState mRestoredState = null;
+	private SavedState mRestoredGeometry = null;
+
+	/**
+	 * The levels navigated through with showSubmenu, and the levels that were left, ready to be shown again. The
+	 * cache is created on first use, with a share of the heap as its budget unless one is set
+	 */
+	private static final int LEVEL_CACHE_HEAP_FRACTION = 32;
+	private final ArrayList<BackStackEntry> mBackStack = new ArrayList<>(  );
+	private MenuLevelCache mLevelCache = null;
+	private int mnLevelCacheBytes = (int) (Runtime.getRuntime().maxMemory() / LEVEL_CACHE_HEAP_FRACTION);
+
+	/**
+	 * The snapshot mode: the stored picture of the open menu, the picture drawn instead of the children while they
+	 * get ready, and the one the load found, with its size
+	 */
+	private static final int SNAPSHOT_RETRY_DELAY = 100;
+	private SpiderMenuSnapshot mSnapshotStore = null;
+	private Bitmap mSnapshot = null;
+	private Bitmap mLoadedSnapshot = null;
+	private boolean mbSnapshotLoaded = false;
+	private int mnLoadedSnapshotWidth = 0;
+	private int mnLoadedSnapshotHeight = 0;
+	private int mnSnapshotPrepareIndex = 0;
+
+	/**
+	 * Takes the snapshot once the open menu is at rest
+	 */
+	private final Runnable mCaptureSnapshotRunnable = new Runnable() {
+		@Override
+		public void run() {
+			if(!mActiveSprings.isEmpty() || !mActiveBounces.isEmpty() || (mItemTransition != null)) {
+				if(mbOpen)
+					postDelayed( this, SNAPSHOT_RETRY_DELAY );
+				return;
+			}
+
+			if(mbOpen)
+				captureSnapshot();
+		}
+	};
+
+	/**
+	 * Gets the children ready one per frame while the snapshot is shown, and then drops the snapshot
+	 */
+	private final Runnable mPrepareSnapshotChildRunnable = new Runnable() {
+		@Override
+		public void run() {
+			if(mnSnapshotPrepareIndex < getChildCount()) {
+				View child = getChildAt( mnSnapshotPrepareIndex++ );
+				if(child instanceof RoundedShadowImageView)
+					((RoundedShadowImageView) child).prepareBitmap();
+				ViewCompat.postOnAnimation( SpiderMenu.this, this );
+				return;
+			}
+
+			mSnapshot = null;
+			invalidate();
+		}
+	};
+
+	/**
+	 * Flags for the async trace sections that span the open and close sequences
+	 */
+	private boolean mbOpenTraceActive = false;
+	private boolean mbCloseTraceActive = false;
+
 	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
 	/**
 	 * Constructors
 	 */
 	public SpiderMenu( Context context ) {
+		this( context, SpiderMenuConfig.getDefault( context ) );
+	}
+
+	public SpiderMenu( Context context, SpiderMenuConfig config ) {
 		super( context );
+		initializeMenu( config );
 	}
 
 	public SpiderMenu( Context context, AttributeSet attrs ) {
@@ -147,13 +497,15 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 
 	public SpiderMenu( Context context, AttributeSet attrs, int defStyleAttr ) {
 		super( context, attrs, defStyleAttr );
-		initializeMenu(attrs);
+		initializeMenu( SpiderMenuConfig.obtain( context, attrs ) );
+		initializeMenuResource( context, attrs );
 	}
 
 	@TargetApi( Build.VERSION_CODES.LOLLIPOP )
 	public SpiderMenu( Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes ) {
 		super( context, attrs, defStyleAttr, defStyleRes );
-		initializeMenu(attrs);
+		initializeMenu( SpiderMenuConfig.obtain( context, attrs ) );
+		initializeMenuResource( context, attrs );
 	}
 
 	/**
@@ -161,13 +513,30 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 	 *
 	 * @author Melvin Lobo
 	 */
-	private void initializeMenu( AttributeSet attrs ) {
-		if(attrs != null) {
-			TypedArray a = getContext().obtainStyledAttributes(attrs, R.styleable.SpiderMenu, 0, 0);
-			mnCurrentMenuItemRadius = a.getDimensionPixelOffset( R.styleable.SpiderMenu_radialMenuRadiusSize, DEFAULT_MENUITEM_RADIUS );
-			mnCenterMenuRadius = a.getDimensionPixelOffset( R.styleable.SpiderMenu_centerMenuRadiusSize, DEFAULT_CENTER_MENU_RADIUS );
+	private void initializeMenu( SpiderMenuConfig config ) {
+		mConfig = config;
+		mnCurrentMenuItemRadius = config.getRadialMenuRadius();
+		mnCenterMenuRadius = config.getCenterMenuRadius();
+		mRadialItemStyle = config.getRadialItemStyle();
+		mCenterItemStyle = config.getCenterItemStyle();
+
+		ViewConfiguration viewConfiguration = ViewConfiguration.get( getContext() );
+		mnTouchSlop = viewConfiguration.getScaledTouchSlop();
+		mnFlickVelocity = viewConfiguration.getScaledMinimumFlingVelocity() * 4;
+
+		if(config.getRenderMode() == SpiderMenuConfig.RENDER_MODE_FLAT) {
+			mFlatRenderer = new FlatMenuRenderer();
+			mFlatAccessibilityHelper = new FlatAccessibilityHelper();
+			ViewCompat.setAccessibilityDelegate( this, mFlatAccessibilityHelper );
+		}
+		else {
+			setChildrenDrawingOrderEnabled( true );     //The center child is drawn above the radial ones
+		}
 
-			a.recycle();
+		mnReducedMotion = config.getReducedMotion();
+		if(config.getSpringMode() == SpiderMenuConfig.SPRING_MODE_ANALYTIC) {
+			mCenterSpring = new AnalyticSpring( config.getCenterScaleTension(), config.getCenterScaleFriction() );
+			mRadialSpring = new AnalyticSpring( config.getRadialScaleTension(), config.getRadialScaleFriction() );
 		}
 
 		/*
@@ -175,7 +544,8 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 		 */
 		ViewTreeObserver observer = getViewTreeObserver();
 		if((observer != null) && (observer.isAlive())) {
-			observer.addOnPreDrawListener( new PreDrawListener() );
+			mPreDrawListener = new PreDrawListener();
+			observer.addOnPreDrawListener( mPreDrawListener );
 		}
 		else {
 			Logger.d( "Oops! No Predraw lIstener" );
@@ -183,6 +553,29 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 
 	}
 
+	/**
+	 * Apply the menu resource (app:menu), if any. An inline app:menu is read straight from the attributes, and
+	 * a TypedArray is only resolved when the menu can come from a style
+	 */
+	private void initializeMenuResource( Context context, AttributeSet attrs ) {
+		int nMenuResourceID = 0;
+		for(int nCtr = 0; nCtr < attrs.getAttributeCount(); ++nCtr) {
+			if(attrs.getAttributeNameResource( nCtr ) == R.attr.menu) {
+				nMenuResourceID = attrs.getAttributeResourceValue( nCtr, 0 );
+				break;
+			}
+		}
+
+		if((nMenuResourceID == 0) && (attrs.getStyleAttribute() != 0)) {
+			TypedArray a = context.obtainStyledAttributes( attrs, R.styleable.SpiderMenu );
+			nMenuResourceID = a.getResourceId( R.styleable.SpiderMenu_menu, 0 );
+			a.recycle();
+		}
+
+		if(nMenuResourceID != 0)
+			setMenu( nMenuResourceID );
+	}
+
 	/**
 	 * Set the click listener
 	 *
@@ -193,439 +586,2619 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 	}
 
 	/**
-	 * We do not scroll
-	 * @return
-	 *      false
+	 * Set the item click listener, which gets the clicked item resolved from the menu resource or the items
+	 */
+	public void setSpiderMenuItemClickListener(SpiderMenuItemClickListener listener) {
+		mSpiderMenuItemClickListener = listener;
+	}
+
+	/**
+	 * Set the provider that loads the submenus of the items in the background. The submenu of an item starts
+	 * loading as soon as the item is touched, and the loaded submenus are cached
 	 *
-	 * @author Melvin Lobo
+	 * @param provider
+	 *      The provider, or null to remove it
 	 */
-	@Override
-	public boolean shouldDelayChildPressedState() {
-		return false;
+	public void setSubmenuProvider(SubmenuLoader.SubmenuProvider provider) {
+		setSubmenuLoader( (provider != null) ? new SubmenuLoader( provider ) : null );
 	}
 
 	/**
-	 * Measure the view optimally and then the children accordingly as per the given radii.
-	 * The important part here is to measure the children and set their radii.
+	 * Set the submenu loader, e.g. to share it between menus or to use an executor or cache size of your own
 	 *
-	 * @param widthMeasureSpec
-	 *      The width MeasureSpec
-	 * @param heightMeasureSpec
-	 *      The height MeasureSpec
+	 * @param loader
+	 *      The loader, or null to remove it
+	 */
+	public void setSubmenuLoader(SubmenuLoader loader) {
+		if(mSubmenuLoader != null)
+			mSubmenuLoader.cancelPendingListeners();
+		mSubmenuLoader = loader;
+	}
+
+	/**
+	 * Set the listener that gets the submenu of the clicked item, once it is loaded
+	 */
+	public void setSubmenuLoadListener(SubmenuLoader.SubmenuLoadListener listener) {
+		mSubmenuLoadListener = listener;
+	}
+
+	/**
+	 * Set when the menu opens and closes with one short cross-fade, without springs or delays, instead of the full
+	 * animations. Overrides the reducedMotion attribute
 	 *
-	 * @author Melvin Lobo
+	 * @param nReducedMotion
+	 *      One of the SpiderMenuConfig.REDUCED_MOTION_* modes. {@link SpiderMenuConfig#REDUCED_MOTION_AUTO} follows the
+	 *      animator duration scale and the battery saver
 	 */
-	@Override
-	protected void onMeasure( int widthMeasureSpec, int heightMeasureSpec ) {
-		int nWidth = MeasureSpec.getSize( widthMeasureSpec );
-		int nHeight = MeasureSpec.getSize( heightMeasureSpec );
+	public void setReducedMotion(int nReducedMotion) {
+		if((nReducedMotion < SpiderMenuConfig.REDUCED_MOTION_AUTO) || (nReducedMotion > SpiderMenuConfig.REDUCED_MOTION_NEVER))
+			throw new IllegalArgumentException( "Unknown reduced motion mode " + nReducedMotion );
+
+		mnReducedMotion = nReducedMotion;
+		if(isAttachedToWindow())
+			updateReducedMotionMonitor();
+		onReducedMotionChanged();
+	}
 
-		/*
-		Get child count if not already done. Only Radial items
-		 */
-		if( mnRadialChildCount == 0) {
-			int nChildCount = 0;
-			for(int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
-				View view = getChildAt( nCtr );
-				if(((SpiderMenu.LayoutParams)view.getLayoutParams()).getMenuType() == LayoutParams.RADIAL)
-					nChildCount++;
-			}
-			mnRadialChildCount = nChildCount;
-		}
+	public int getReducedMotion() {
+		return mnReducedMotion;
+	}
 
-		/*
-		Pick the smaller size to make it a square
-		 */
-		mnCanvasSize = Math.min( nHeight, nWidth );
+	/**
+	 * Check if the menu animates in reduced motion right now, by the mode and the system settings
+	 */
+	public boolean isReducedMotion() {
+		switch ( mnReducedMotion ) {
+			case SpiderMenuConfig.REDUCED_MOTION_ALWAYS:
+				return true;
+			case SpiderMenuConfig.REDUCED_MOTION_NEVER:
+				return false;
+			default:
+				return mbSystemReducedMotion;
+		}
+	}
 
-		/*
-		Initialize default value for virtual Circumference the first time
-		 */
-		if(mnVirtualCircumferenceRadius == 0) {
-			mnVirtualCircumferenceRadius = (mnCanvasSize / 2) - (mnCurrentMenuItemRadius * 2);
+	/**
+	 * Listen to the system settings while attached in the auto mode only
+	 */
+	private void updateReducedMotionMonitor() {
+		boolean bMonitor = (mnReducedMotion == SpiderMenuConfig.REDUCED_MOTION_AUTO);
+		if(bMonitor && !mbReducedMotionMonitored) {
+			mbSystemReducedMotion = ReducedMotionMonitor.acquire( getContext(), mReducedMotionListener );
+			mbReducedMotionMonitored = true;
 		}
+		else if(!bMonitor && mbReducedMotionMonitored) {
+			ReducedMotionMonitor.release( mReducedMotionListener );
+			mbReducedMotionMonitored = false;
+		}
+	}
 
-		/*
-		Get the radii for the Radial, canter and virtual circumference along which the menu item circles will be drawn
-		along
-		 */
-		calculateRadialRadii();
-		calculateCenterRadii();
+	/**
+	 * The motion was turned off midway through the animations. Stop the springs and cross-fade to the end state
+	 */
+	private void onReducedMotionChanged() {
+		if(!isReducedMotion() || !isInMotion())
+			return;
 
-		int childSpecRadial = MeasureSpec.makeMeasureSpec( mnCurrentMenuItemRadius * 2, MeasureSpec.EXACTLY );
-		int childSpecCenter = MeasureSpec.makeMeasureSpec( mnCenterMenuRadius * 2, MeasureSpec.EXACTLY );
+		cancelSprings();
+		cancelItemTransition( true );
+		crossFade( mbOpen );
+	}
 
-		/*
-		Measure children
-		 */
-		for( int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
-			View child = getChildAt( nCtr );
-			if(((SpiderMenu.LayoutParams)child.getLayoutParams()).getMenuType() == LayoutParams.RADIAL ) {
-				child.measure( childSpecRadial, childSpecRadial );
-			}
-			else {
-				/*
-				Use this opportunity to bring the center child above all other children so that
-				we can use the animation effectively
-				 */
-				bringChildToFront( child );
-				/*
-				Hold on to the center child
-				 */
-				if(mCenterView == null)
-					mCenterView = new WeakReference<>( child );
+	/**
+	 * Get the render quality level. It steps down when the animations keep missing their frames, and back up when
+	 * they have headroom again, unless it was set manually
+	 *
+	 * @return
+	 *      One of the AdaptiveQualityController.QUALITY_* levels
+	 */
+	public int getQualityLevel() {
+		return mQualityController.getLevel();
+	}
 
-				child.measure( childSpecCenter, childSpecCenter );
-			}
-		}
+	/**
+	 * Set the render quality level manually, which stops the adaptation, or resume the adaptation
+	 *
+	 * @param nLevel
+	 *      One of the AdaptiveQualityController.QUALITY_* levels, or {@link AdaptiveQualityController#QUALITY_AUTO}
+	 *      to adapt from the current level
+	 */
+	public void setQualityLevel(int nLevel) {
+		int nOldLevel = mQualityController.getLevel();
+		mQualityController.setLevel( nLevel );
+		if(mQualityController.getLevel() != nOldLevel)
+			onQualityLevelChanged();
+	}
 
-		setMeasuredDimension( getOptimalValue( mnCanvasSize, nWidth, MeasureSpec.getMode( widthMeasureSpec ) ),
-				getOptimalValue( mnCanvasSize, nHeight, MeasureSpec.getMode( heightMeasureSpec ) ) );
+	public boolean isQualityAdaptive() {
+		return mQualityController.isAdaptive();
 	}
 
 	/**
-	 * Get the optimum desired values based on the Mode recommendation during onMeasure
+	 * Get the number of times the adaptation stepped the render quality down, because the animations kept missing
+	 * their frames. Counted in release builds too, unlike the quality events of the trace
 	 *
-	 * @param nDesiredValue
-	 *            The desired value that we calculated
-	 * @param nRecommendedValue
-	 *            The recommended value that is passed in an onMeasure Pass
-	 * @param nMode
-	 *            The Mode that is passed in onMeasure Pass
+	 * @return
+	 *      The number of steps down
+	 */
+	public int getQualityStepDownCount() {
+		return mQualityController.getStepDownCount();
+	}
+
+	/**
+	 * Get the number of times the adaptation stepped the render quality back up
 	 *
-	 * @return The optimal value to be used based on the Mode
+	 * @return
+	 *      The number of steps up
 	 */
-	private int getOptimalValue(int nDesiredValue, int nRecommendedValue, int nMode) {
-		int nFinalSize;
-		switch (nMode) {
-			case MeasureSpec.EXACTLY:
-				nFinalSize = nRecommendedValue; // No Choice
+	public int getQualityStepUpCount() {
+		return mQualityController.getStepUpCount();
+	}
+
+	/**
+	 * Set the listener that is told when the render quality level changes
+	 */
+	public void setQualityLevelListener(QualityLevelListener listener) {
+		mQualityLevelListener = listener;
+	}
+
+	/**
+	 * Set the model that counts the picks. When the menu opens, the bitmaps of the items that are picked the most on
+	 * the current level are decoded and their submenus prefetched
+	 *
+	 * @param model
+	 *      The model, or null to stop counting
+	 */
+	public void setSelectionFrequencyModel(SelectionFrequencyModel model) {
+		mSelectionModel = model;
+	}
+
+	/**
+	 * Set the menu level the picks are recorded for, e.g. when showing a submenu
+	 *
+	 * @param nLevelID
+	 *      The id of the item whose submenu is shown, or View.NO_ID for the top level
+	 */
+	public void setMenuLevelID(int nLevelID) {
+		mnMenuLevelID = nLevelID;
+	}
+
+	public int getMenuLevelID() {
+		return mnMenuLevelID;
+	}
+
+	/**
+	 * Show the submenu of an item, and put the current level on the back stack. The current children are kept in
+	 * the level cache as they are, so going back (see {@link #showPreviousLevel()}) or into a cached submenu again
+	 * only puts them back. Clicking the center item goes back as well, while there is a level to go back to
+	 *
+	 * @param nLevelID
+	 *      The id of the item whose submenu is shown
+	 * @param submenu
+	 *      The items of the submenu
+	 */
+	public void showSubmenu( int nLevelID, List<SpiderMenuItem> submenu ) {
+		BackStackEntry entry = new BackStackEntry( mnMenuLevelID, mItems );
+		MenuLevelCache.MenuLevel level = detachLevel();
+
+		/*
+		Children from the layout xml cannot be created again, so they stay with their entry instead of the cache
+		 */
+		if(mItems == null)
+			entry.mPinnedLevel = level;
+		else
+			getLevelCache().put( level );
+
+		mBackStack.add( entry );
+		showLevel( nLevelID, submenu );
+	}
+
+	/**
+	 * Go back to the previous level on the back stack. The current level is kept in the level cache
+	 *
+	 * @return
+	 *      true if there was a level to go back to
+	 */
+	public boolean showPreviousLevel() {
+		if(mBackStack.isEmpty())
+			return false;
+
+		BackStackEntry entry = mBackStack.remove( mBackStack.size() - 1 );
+		MenuLevelCache.MenuLevel level = detachLevel();
+		if(mItems != null)
+			getLevelCache().put( level );
+
+		if(entry.mPinnedLevel != null)
+			attachLevel( entry.mPinnedLevel );
+		else
+			showLevel( entry.mnLevelID, entry.mItems );
+		return true;
+	}
+
+	/**
+	 * Get the number of levels on the back stack
+	 */
+	public int getBackStackDepth() {
+		return mBackStack.size();
+	}
+
+	/**
+	 * Set the memory budget of the level cache. The levels cached so far are dropped
+	 *
+	 * @param nMaxBytes
+	 *      The budget in bytes, for the bitmaps of the cached children mostly
+	 */
+	public void setLevelCacheSize( int nMaxBytes ) {
+		if(mLevelCache != null)
+			mLevelCache.clear();
+		mLevelCache = null;
+		mnLevelCacheBytes = nMaxBytes;
+	}
+
+	/**
+	 * Get the number of times a level was shown again from the level cache. Counted in release builds too, unlike
+	 * the cache events of the trace. The counts start over when the cache size is set
+	 *
+	 * @return
+	 *      The number of cache hits
+	 */
+	public int getLevelCacheHitCount() {
+		return (mLevelCache != null) ? mLevelCache.getHitCount() : 0;
+	}
+
+	/**
+	 * Get the number of times a level was not in the level cache and had to be created
+	 *
+	 * @return
+	 *      The number of cache misses
+	 */
+	public int getLevelCacheMissCount() {
+		return (mLevelCache != null) ? mLevelCache.getMissCount() : 0;
+	}
+
+	/**
+	 * Get the number of levels evicted from the level cache, to keep it within its budget or to free memory
+	 *
+	 * @return
+	 *      The number of cache evictions
+	 */
+	public int getLevelCacheEvictionCount() {
+		return (mLevelCache != null) ? mLevelCache.getEvictionCount() : 0;
+	}
+
+	private MenuLevelCache getLevelCache() {
+		if(mLevelCache == null)
+			mLevelCache = new MenuLevelCache( mnLevelCacheBytes );
+		return mLevelCache;
+	}
+
+	/**
+	 * Show a level: put its children back if it is cached, else set its items
+	 */
+	private void showLevel( int nLevelID, List<SpiderMenuItem> items ) {
+		MenuLevelCache.MenuLevel level = getLevelCache().take( nLevelID, items );
+		if(level != null) {
+			attachLevel( level );
+			return;
+		}
+
+		mnMenuLevelID = nLevelID;
+		setItems( items );
+	}
+
+	/**
+	 * Take the current level out of the menu: the children are detached as they are, with their bitmaps, and the
+	 * geometry is saved with them. The menu is left empty
+	 *
+	 * @return
+	 *      The level
+	 */
+	private MenuLevelCache.MenuLevel detachLevel() {
+		cancelItemTransition( true );
+		mAnimationQueue.clear();
+
+		View[] children = new View[getChildCount()];
+		for(int nCtr = 0; nCtr < children.length; ++nCtr) {
+			children[nCtr] = getChildAt( nCtr );
+			ViewCompat.animate( children[nCtr] ).cancel();
+		}
+		removeAllViewsInLayout();
+		mCenterView = null;
+
+		SavedState geometry = new SavedState( AbsSavedState.EMPTY_STATE );
+		geometry.mnMenuLevelID = mnMenuLevelID;
+		geometry.mnCanvasSize = mnCanvasSize;
+		geometry.mnRadialChildCount = mnRadialChildCount;
+		geometry.mnMenuItemRadius = mnCurrentMenuItemRadius;
+		geometry.mnVirtualCircumferenceRadius = mnVirtualCircumferenceRadius;
+		geometry.mnCenterMenuRadius = mnCenterMenuRadius;
+		mnRadialChildCount = 0;
+
+		return new MenuLevelCache.MenuLevel( mnMenuLevelID, mItems, children, geometry );
+	}
+
+	/**
+	 * Put a detached level back in the empty menu, open or closed as the menu is, with the geometry it was fitted
+	 * with if the size is the same
+	 */
+	private void attachLevel( MenuLevelCache.MenuLevel level ) {
+		mnMenuLevelID = level.mnLevelID;
+		if(mFlatRenderer != null) {
+			setFlatItems( level.mItems );
+		}
+		else {
+			mItems = (level.mItems != null) ? new ArrayList<>( level.mItems ) : null;
+			for(View child : level.mChildren) {
+				addViewInLayout( child, -1, child.getLayoutParams(), true );
+				settleChild( child, mbOpen );
+				applyRenderQuality( child );
+			}
+		}
+
+		mnRadialChildCount = level.mGeometry.mnRadialChildCount;
+		mRestoredGeometry = level.mGeometry;
+		requestLayout();
+		invalidate();
+	}
+
+	/**
+	 * Check if an id is the id of the center item
+	 */
+	private boolean isCenterItem( int nID ) {
+		if(mFlatRenderer != null) {
+			int nCenterItem = mFlatRenderer.getCenterItem();
+			return (nCenterItem != FlatMenuRenderer.NO_ITEM) && (mFlatRenderer.getItemID( nCenterItem ) == nID);
+		}
+
+		View centerView = getCenterView();
+		return (centerView != null) && (centerView.getId() == nID);
+	}
+
+	/**
+	 * Animate the items that are picked the most in first when the menu opens. Needs a selection frequency model
+	 *
+	 * @param bLikelyItemsFirst
+	 *      true to animate the likely picks first, false to animate the items in order
+	 */
+	public void setLikelyItemsFirst(boolean bLikelyItemsFirst) {
+		mbLikelyItemsFirst = bLikelyItemsFirst;
+	}
+
+	/**
+	 * Get the configuration of the menu
+	 *
+	 * @return
+	 *      The immutable configuration
+	 */
+	public SpiderMenuConfig getConfig() {
+		return mConfig;
+	}
+
+	/**
+	 * Set the style inherited by the radial items that do not define a style of their own
+	 *
+	 * @param style
+	 *      The style
+	 */
+	public void setRadialItemStyle(SpiderMenuItemStyle style) {
+		mRadialItemStyle = style;
+		applyInheritedItemStyles();
+		if(mFlatRenderer != null)
+			requestLayout();
+	}
+
+	/**
+	 * Set the style inherited by the center item, if it does not define a style of its own
+	 *
+	 * @param style
+	 *      The style
+	 */
+	public void setCenterItemStyle(SpiderMenuItemStyle style) {
+		mCenterItemStyle = style;
+		applyInheritedItemStyles();
+		if(mFlatRenderer != null)
+			requestLayout();
+	}
+
+	/**
+	 * Pass the parent level styles on to the children that inherit them
+	 */
+	private void applyInheritedItemStyles() {
+		for(int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
+			View child = getChildAt( nCtr );
+			if(child instanceof RoundedShadowImageView)
+				inheritItemStyle( (RoundedShadowImageView) child, child.getLayoutParams() );
+		}
+	}
+
+	/**
+	 * Pass the parent level style for the menu type on to the child, if it inherits its style
+	 *
+	 * @param child
+	 *      The child
+	 * @param params
+	 *      The layout params of the child
+	 */
+	private void inheritItemStyle(RoundedShadowImageView child, ViewGroup.LayoutParams params) {
+		boolean bIsCenter = (params instanceof LayoutParams) && (((LayoutParams) params).getMenuType() == LayoutParams.CENTER);
+		child.inheritItemStyle( (bIsCenter) ? mCenterItemStyle : mRadialItemStyle );
+	}
+
+	/**
+	 * Children inherit the parent level item styles as they are added
+	 */
+	@Override
+	public void addView( View child, int index, ViewGroup.LayoutParams params ) {
+		if(child instanceof RoundedShadowImageView)
+			inheritItemStyle( (RoundedShadowImageView) child, params );
+		applyRenderQuality( child );
+
+		super.addView( child, index, params );
+	}
+
+	/**
+	 * Acquire the spring system as we are attached to the window, in the Rebound spring mode. The shared system is
+	 * reference counted, so that it is dropped with the last menu that uses it
+	 */
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+
+		if((mSpringSystem == null) && (mConfig.getSpringMode() == SpiderMenuConfig.SPRING_MODE_REBOUND))
+			mSpringSystem = (mConfig.isSharedSpringSystem()) ? SharedSpringSystem.acquire() : SpringSystem.create();
+
+		Display display = getDisplay();
+		if(display != null)
+			mQualityController.setRefreshRate( display.getRefreshRate() );
+		updateReducedMotionMonitor();
+
+		getContext().getApplicationContext().registerComponentCallbacks( mMemoryCallbacks );
+		loadSnapshot();
+	}
+
+	/**
+	 * Tear down everything that could call back into a detached menu: the posted runnables, the view animations,
+	 * the springs and the pending submenu listeners. The children are left at rest, as if the animations had
+	 * finished. The spring system is released as well, so that a detached menu does not keep the looper posting
+	 * frame callbacks
+	 */
+	@Override
+	protected void onDetachedFromWindow() {
+		getContext().getApplicationContext().unregisterComponentCallbacks( mMemoryCallbacks );
+		if(mbReducedMotionMonitored) {
+			ReducedMotionMonitor.release( mReducedMotionListener );
+			mbReducedMotionMonitored = false;
+		}
+		removeCallbacks( mStartAnimationRunnable );
+		removeCallbacks( mBounceCenterRunnable );
+		removeCallbacks( mCaptureSnapshotRunnable );
+		removeCallbacks( mPrepareSnapshotChildRunnable );
+		mSnapshot = null;
+		mLoadedSnapshot = null;
+
+		if(mSubmenuLoader != null)
+			mSubmenuLoader.cancelPendingListeners();
+
+		cancelItemTransition( true );
+
+		/*
+		Cancelled animations do not run their end actions, so the sequences stop here
+		 */
+		for(int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
+			View child = getChildAt( nCtr );
+			ViewCompat.animate( child ).cancel();
+			ViewCompat.setTranslationX( child, 0 );
+			ViewCompat.setTranslationY( child, 0 );
+			ViewCompat.setScaleX( child, 1 );
+			ViewCompat.setScaleY( child, 1 );
+			ViewCompat.setAlpha( child, 1 );
+		}
+
+		if(mFlatAnimator != null) {
+			mFlatAnimator.removeAllListeners();
+			mFlatAnimator.cancel();
+			mFlatAnimator = null;
+			mFlatRenderer.setProgress( 1 );
+		}
+		mnFlatPressedItem = FlatMenuRenderer.NO_ITEM;
+
+		for(View child : mDisappearingChildren) {
+			ViewCompat.animate( child ).cancel();
+			endViewTransition( child );
+		}
+		mDisappearingChildren.clear();
+		mAnimationQueue.clear();
+		endDrag();
+		endSequence( true );
+		endSequence( false );
+
+		cancelSprings();
+
+		if(mbQualityFramePosted) {
+			Choreographer.getInstance().removeFrameCallback( mQualityFrameCallback );
+			mbQualityFramePosted = false;
+		}
+		endMotion();
+
+		if(mSpringSystem != null) {
+			if(mConfig.isSharedSpringSystem())
+				SharedSpringSystem.release();
+			mSpringSystem = null;
+		}
+
+		super.onDetachedFromWindow();
+	}
+
+	/**
+	 * Watch the touches on the children:
+	 * 1. Prefetch the submenu of an item as soon as it is touched, before the click completes
+	 * 2. With drag to select, take over the touch once a press on the center item turns into a drag
+	 *
+	 * @param ev
+	 *      The motion event
+	 * @return
+	 *      true once a drag to select starts
+	 */
+	@Override
+	public boolean onInterceptTouchEvent( MotionEvent ev ) {
+		switch ( ev.getActionMasked() ) {
+			case MotionEvent.ACTION_DOWN:
+				View touchedChild = findTouchedChild( ev );
+				if((touchedChild != null) && (mSubmenuLoader != null)) {
+					SpiderMenuItem item = findMenuItem( touchedChild.getId() );
+					if(item != null)
+						mSubmenuLoader.prefetch( item );
+				}
+
+				mbDragTracking = mConfig.isDragToSelect() && (touchedChild != null) &&
+						(((LayoutParams) touchedChild.getLayoutParams()).getMenuType() == LayoutParams.CENTER);
+				if(mbDragTracking)
+					mDragGesture.start( mnCanvasSize / 2, mnCanvasSize / 2, ev );
 				break;
-			case MeasureSpec.AT_MOST:
-				nFinalSize = Math.min(nDesiredValue, nRecommendedValue);
+
+			case MotionEvent.ACTION_MOVE:
+				if(mbDragTracking) {
+					mDragGesture.addMovement( ev );
+					return mDragGesture.getDistance() > mnTouchSlop;
+				}
 				break;
-			default: // MeasureSpec.UNSPECIFIED
-				nFinalSize = nDesiredValue;
+
+			case MotionEvent.ACTION_UP:
+			case MotionEvent.ACTION_CANCEL:
+				mbDragTracking = false;         //A tap. Left to the child
+				break;
+		}
+
+		return super.onInterceptTouchEvent( ev );
+	}
+
+	/**
+	 * Follow the drag to select once it is intercepted, and pick the target on release
+	 *
+	 * @param ev
+	 *      The motion event
+	 * @return
+	 *      true while dragging
+	 */
+	@Override
+	public boolean onTouchEvent( MotionEvent ev ) {
+		if(mFlatRenderer != null)
+			return onFlatTouchEvent( ev );
+
+		if(!mbDragTracking)
+			return super.onTouchEvent( ev );
+
+		switch ( ev.getActionMasked() ) {
+			case MotionEvent.ACTION_MOVE:
+				mDragGesture.addMovement( ev );
+				setDragTarget( findDragTarget( false ) );
+				break;
+
+			case MotionEvent.ACTION_UP:
+				mDragGesture.addMovement( ev );
+				View target = findDragTarget( true );
+				endDrag();
+				if(target != null)
+					onViewClick( target.getId() );
+				break;
+
+			case MotionEvent.ACTION_CANCEL:
+				endDrag();
+				break;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Find the topmost child under a touch
+	 *
+	 * @param ev
+	 *      The motion event
+	 * @return
+	 *      The child, or null
+	 */
+	private View findTouchedChild( MotionEvent ev ) {
+		int nX = (int) ev.getX();
+		int nY = (int) ev.getY();
+
+		/*
+		The center child is drawn on top, so it takes the touch first
+		 */
+		View centerView = getCenterView();
+		if((centerView != null) && (centerView.getParent() == this)) {
+			centerView.getHitRect( mHitRect );
+			if(mHitRect.contains( nX, nY ))
+				return centerView;
+		}
+
+		for(int nCtr = getChildCount() - 1; nCtr >= 0; --nCtr) {
+			View child = getChildAt( nCtr );
+			child.getHitRect( mHitRect );
+			if(mHitRect.contains( nX, nY ))
+				return child;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Find the radial child the drag points at. The drag has to leave the center item first. On release, a quick
+	 * flick that has not left it yet is resolved from where it is headed
+	 *
+	 * @param bRelease
+	 *      true if the finger is lifted
+	 * @return
+	 *      The child, or null
+	 */
+	private View findDragTarget( boolean bRelease ) {
+		float nAngle = getDragAngle( bRelease );
+		if(Float.isNaN( nAngle ))
+			return null;
+
+		View target = null;
+		float nSmallestDifference = Float.MAX_VALUE;
+		int nCount = Math.min( mRadialAngles.length, getChildCount() );
+		for(int nCtr = 0; nCtr < nCount; ++nCtr) {
+			if(Float.isNaN( mRadialAngles[nCtr] ))
+				continue;
+
+			float nDifference = MarkingMenuGesture.getAngleDifference( nAngle, mRadialAngles[nCtr] );
+			if(nDifference < nSmallestDifference) {
+				nSmallestDifference = nDifference;
+				target = getChildAt( nCtr );
+			}
+		}
+
+		return target;
+	}
+
+	/**
+	 * Get the direction the drag points at, once it has left the center item, or a quick flick is headed on release
+	 *
+	 * @param bRelease
+	 *      true if the finger is lifted
+	 * @return
+	 *      The angle in degrees, or NaN if the drag does not point at an item yet
+	 */
+	private float getDragAngle( boolean bRelease ) {
+		if(mDragGesture.getDistance() >= mnCenterMenuRadius)
+			return mDragGesture.getAngle();
+		else if(bRelease && (mDragGesture.getSpeed() >= mnFlickVelocity) && (mDragGesture.getPredictedDistance() >= mnCenterMenuRadius))
+			return mDragGesture.getPredictedAngle();
+
+		return Float.NaN;
+	}
+
+	/**
+	 * Handle the touches in the flat render mode, where there are no children to take them: hit test the items,
+	 * prefetch the submenu of the touched item, follow the drag to select, and click on release
+	 *
+	 * @param ev
+	 *      The motion event
+	 * @return
+	 *      true if the touch started on an item
+	 */
+	private boolean onFlatTouchEvent( MotionEvent ev ) {
+		switch ( ev.getActionMasked() ) {
+			case MotionEvent.ACTION_DOWN:
+				mnFlatPressedItem = (mFlatRenderer.getProgress() > 0) ? mFlatRenderer.findItemAt( ev.getX(), ev.getY() ) : FlatMenuRenderer.NO_ITEM;
+				if(mnFlatPressedItem == FlatMenuRenderer.NO_ITEM)
+					return false;
+
+				SpiderMenuItem item = findMenuItem( mFlatRenderer.getItemID( mnFlatPressedItem ) );
+				if((item != null) && (mSubmenuLoader != null))
+					mSubmenuLoader.prefetch( item );
+
+				mbDragTracking = mConfig.isDragToSelect() && (mnFlatPressedItem == mFlatRenderer.getCenterItem());
+				if(mbDragTracking)
+					mDragGesture.start( mnCanvasSize / 2, mnCanvasSize / 2, ev );
+				break;
+
+			case MotionEvent.ACTION_MOVE:
+				if(mbDragTracking)
+					mDragGesture.addMovement( ev );
 				break;
+
+			case MotionEvent.ACTION_UP:
+				int nClickedItem = FlatMenuRenderer.NO_ITEM;
+				if(mbDragTracking) {
+					mDragGesture.addMovement( ev );
+					float nAngle = getDragAngle( true );
+					if(!Float.isNaN( nAngle ))
+						nClickedItem = mFlatRenderer.findItemInDirection( nAngle );
+				}
+				if((nClickedItem == FlatMenuRenderer.NO_ITEM) && (mFlatRenderer.findItemAt( ev.getX(), ev.getY() ) == mnFlatPressedItem))
+					nClickedItem = mnFlatPressedItem;
+
+				endDrag();
+				mnFlatPressedItem = FlatMenuRenderer.NO_ITEM;
+				if(nClickedItem != FlatMenuRenderer.NO_ITEM) {
+					playSoundEffect( SoundEffectConstants.CLICK );
+					onViewClick( mFlatRenderer.getItemID( nClickedItem ) );
+				}
+				break;
+
+			case MotionEvent.ACTION_CANCEL:
+				endDrag();
+				mnFlatPressedItem = FlatMenuRenderer.NO_ITEM;
+				break;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Send the hover events to the virtual views of the flat render mode, so that explore by touch finds the items
+	 *
+	 * @param event
+	 *      The hover event
+	 * @return
+	 *      true if handled
+	 */
+	@Override
+	protected boolean dispatchHoverEvent( MotionEvent event ) {
+		if((mFlatAccessibilityHelper != null) && mFlatAccessibilityHelper.dispatchHoverEvent( event ))
+			return true;
+
+		return super.dispatchHoverEvent( event );
+	}
+
+	/**
+	 * Show the child the drag points at as pressed
+	 */
+	private void setDragTarget( View target ) {
+		if(mDragTarget == target)
+			return;
+
+		if(mDragTarget != null)
+			mDragTarget.setPressed( false );
+		if(target != null)
+			target.setPressed( true );
+		mDragTarget = target;
+	}
+
+	/**
+	 * End the drag to select
+	 */
+	private void endDrag() {
+		setDragTarget( null );
+		mbDragTracking = false;
+	}
+
+	/**
+	 * We do not scroll
+	 * @return
+	 *      false
+	 *
+	 * @author Melvin Lobo
+	 */
+	@Override
+	public boolean shouldDelayChildPressedState() {
+		return false;
+	}
+
+	/**
+	 * Measure the view optimally and then the children accordingly as per the given radii.
+	 * The important part here is to measure the children and set their radii.
+	 *
+	 * @param widthMeasureSpec
+	 *      The width MeasureSpec
+	 * @param heightMeasureSpec
+	 *      The height MeasureSpec
+	 *
+	 * @author Melvin Lobo
+	 */
+	@Override
+	protected void onMeasure( int widthMeasureSpec, int heightMeasureSpec ) {
+		int nWidth = MeasureSpec.getSize( widthMeasureSpec );
+		int nHeight = MeasureSpec.getSize( heightMeasureSpec );
+		Logger.trace( TraceRingBuffer.EVENT_MEASURE, nWidth, nHeight );
+		SpiderMenuTrace.beginSection( SpiderMenuTrace.SECTION_MEASURE );
+
+		/*
+		Get child count if not already done. Only Radial items
+		 */
+		if( mnRadialChildCount == 0) {
+			int nChildCount = 0;
+			for(int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
+				View view = getChildAt( nCtr );
+				if(((SpiderMenu.LayoutParams)view.getLayoutParams()).getMenuType() == LayoutParams.RADIAL)
+					nChildCount++;
+			}
+			mnRadialChildCount = nChildCount;
+		}
+
+		/*
+		Pick the smaller size to make it a square
+		 */
+		mnCanvasSize = Math.min( nHeight, nWidth );
+
+		/*
+		Take the radii saved before a configuration change, if the size and the items are the same, else fit them
+		 */
+		if((mRestoredGeometry != null) && (mRestoredGeometry.mnCanvasSize == mnCanvasSize) && (mRestoredGeometry.mnRadialChildCount == mnRadialChildCount)) {
+			mnCurrentMenuItemRadius = mRestoredGeometry.mnMenuItemRadius;
+			mnVirtualCircumferenceRadius = mRestoredGeometry.mnVirtualCircumferenceRadius;
+			mnCenterMenuRadius = mRestoredGeometry.mnCenterMenuRadius;
+		}
+		else {
+			/*
+			Initialize default value for virtual Circumference the first time
+			 */
+			if(mnVirtualCircumferenceRadius == 0) {
+				mnVirtualCircumferenceRadius = (mnCanvasSize / 2) - (mnCurrentMenuItemRadius * 2);
+			}
+
+			/*
+			Get the radii for the Radial, canter and virtual circumference along which the menu item circles will be drawn
+			along
+			 */
+			SpiderMenuTrace.beginSection( SpiderMenuTrace.SECTION_RADIAL_RADII );
+			calculateRadialRadii();
+			SpiderMenuTrace.endSection();
+			calculateCenterRadii();
+		}
+		mRestoredGeometry = null;
+
+		/*
+		Radial children of different weights are fitted by the solver instead, around the largest one
+		 */
+		mWeightedLayout = solveWeightedLayout();
+		if(mWeightedLayout != null) {
+			mnCurrentMenuItemRadius = mWeightedLayout.mnLargestRadius;
+			mnVirtualCircumferenceRadius = mWeightedLayout.mnVirtualCircumferenceRadius;
+			calculateCenterRadii();
+		}
+
+		int childSpecRadial = MeasureSpec.makeMeasureSpec( mnCurrentMenuItemRadius * 2, MeasureSpec.EXACTLY );
+		int childSpecCenter = MeasureSpec.makeMeasureSpec( mnCenterMenuRadius * 2, MeasureSpec.EXACTLY );
+
+		/*
+		Measure children. The child array is left as it is, so that the radial children stay in step with the
+		weighted radii; the center child is drawn on top by getChildDrawingOrder
+		 */
+		int nRadialIndex = 0;
+		for( int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
+			View child = getChildAt( nCtr );
+			if(((SpiderMenu.LayoutParams)child.getLayoutParams()).getMenuType() == LayoutParams.RADIAL ) {
+				if(mWeightedLayout != null) {
+					int nChildSpec = MeasureSpec.makeMeasureSpec( mWeightedLayout.mRadii[nRadialIndex++] * 2, MeasureSpec.EXACTLY );
+					child.measure( nChildSpec, nChildSpec );
+				}
+				else {
+					child.measure( childSpecRadial, childSpecRadial );
+				}
+			}
+			else {
+				/*
+				Hold on to the center child
+				 */
+				if(mCenterView == null)
+					mCenterView = new WeakReference<>( child );
+
+				child.measure( childSpecCenter, childSpecCenter );
+			}
+		}
+
+		setMeasuredDimension( getOptimalValue( mnCanvasSize, nWidth, MeasureSpec.getMode( widthMeasureSpec ) ),
+				getOptimalValue( mnCanvasSize, nHeight, MeasureSpec.getMode( heightMeasureSpec ) ) );
+		SpiderMenuTrace.endSection();
+	}
+
+	/**
+	 * Solve the layout of the radial children if their weights are not all the same. Not used in the flat render
+	 * mode, where all the items have the same size
+	 *
+	 * @return
+	 *      The layout, or null if the radial children are all the same size
+	 */
+	private RadialLayoutSolver.Solution solveWeightedLayout() {
+		int nRadialCount = 0;
+		boolean bWeighted = false;
+		for(int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
+			LayoutParams params = (LayoutParams) getChildAt( nCtr ).getLayoutParams();
+			if(params.getMenuType() == LayoutParams.RADIAL) {
+				nRadialCount++;
+				bWeighted |= (params.getWeight() != 1);
+			}
+		}
+
+		if(!bWeighted || (mFlatRenderer != null))
+			return null;
+
+		if(mRadialWeights.length != nRadialCount)
+			mRadialWeights = new float[nRadialCount];
+		int nRadialIndex = 0;
+		for(int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
+			LayoutParams params = (LayoutParams) getChildAt( nCtr ).getLayoutParams();
+			if(params.getMenuType() == LayoutParams.RADIAL)
+				mRadialWeights[nRadialIndex++] = params.getWeight();
+		}
+
+		return RadialLayoutSolver.solve( mnCanvasSize, mConfig.getRadialMenuRadius(), mRadialWeights,
+				mConfig.getLayoutMode() == SpiderMenuConfig.LAYOUT_MODE_FIT );
+	}
+
+	/**
+	 * Get the optimum desired values based on the Mode recommendation during onMeasure
+	 *
+	 * @param nDesiredValue
+	 *            The desired value that we calculated
+	 * @param nRecommendedValue
+	 *            The recommended value that is passed in an onMeasure Pass
+	 * @param nMode
+	 *            The Mode that is passed in onMeasure Pass
+	 *
+	 * @return The optimal value to be used based on the Mode
+	 */
+	private int getOptimalValue(int nDesiredValue, int nRecommendedValue, int nMode) {
+		int nFinalSize;
+		switch (nMode) {
+			case MeasureSpec.EXACTLY:
+				nFinalSize = nRecommendedValue; // No Choice
+				break;
+			case MeasureSpec.AT_MOST:
+				nFinalSize = Math.min(nDesiredValue, nRecommendedValue);
+				break;
+			default: // MeasureSpec.UNSPECIFIED
+				nFinalSize = nDesiredValue;
+				break;
+		}
+
+		return nFinalSize;
+	}
+
+	/**
+	 * Layout the children based on the above formula for placing the circles on lines with angle @
+	 * @param changed
+	 *      New size or position
+	 * @param leftRelativeToParent
+	 *      Left, w.r.t Parent
+	 * @param topRelativeToParent
+ *          Top, w.r.t Parent
+	 * @param rightRelativeToParent
+	 *      Right, w.r.t Parent
+	 * @param bottomRelativeToParent
+	 *      Bottom, w.r.t Parent
+	 *
+	 * @author Melvin Lobo
+	 */
+	@Override
+	protected void onLayout( boolean changed, int leftRelativeToParent, int topRelativeToParent, int rightRelativeToParent, int bottomRelativeToParent ) {
+		Logger.trace( TraceRingBuffer.EVENT_LAYOUT, mnCanvasSize, mnRadialChildCount );
+		SpiderMenuTrace.beginSection( SpiderMenuTrace.SECTION_LAYOUT );
+		int nCenter = mnCanvasSize / 2;
+		float nAngleForOneCircle = ((float) FULL_CIRCLE_ANGLE / (float) mnRadialChildCount);
+		double nStartAngle = Math.toRadians( 270 );       //Start from Top (positive Y)
+		int nChildCenter = mnVirtualCircumferenceRadius + mnCurrentMenuItemRadius;
+		if(mRadialAngles.length != getChildCount())
+			mRadialAngles = new float[getChildCount()];
+
+		/*
+		Changes after the first layout are animated. A transition in flight restarts from where the children are
+		 */
+		boolean bAnimate = isLaidOut() && isAttachedToWindow();
+		if(bAnimate)
+			cancelItemTransition( false );
+
+		int nRadialIndex = 0;
+		for( int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
+			View child = getChildAt( nCtr );
+			mRadialAngles[nCtr] = Float.NaN;
+			if(((SpiderMenu.LayoutParams)child.getLayoutParams()).getMenuType() == LayoutParams.RADIAL ) {
+				double angle = nStartAngle + Math.toRadians( nAngleForOneCircle * nRadialIndex );
+				int nRadius = mnCurrentMenuItemRadius;
+				if(mWeightedLayout != null) {
+					angle = Math.toRadians( mWeightedLayout.mAngles[nRadialIndex] );
+					nRadius = mWeightedLayout.mRadii[nRadialIndex];
+				}
+				nRadialIndex++;
+				mRadialAngles[nCtr] = (float) (Math.toDegrees( angle ) % FULL_CIRCLE_ANGLE);
+
+				/*
+				Center point of the menuitem circle
+				 */
+				int nX = (int) ((nCenter) + nChildCenter * Math.cos( angle ));
+				int nY = (int) ((nCenter) + nChildCenter * Math.sin( angle ));
+
+				child.layout( nX - nRadius, nY - nRadius, nX + nRadius, nY + nRadius );
+				prepareItemTransition( child, nX, nY, bAnimate );
+			}
+			else {
+				child.layout( nCenter - mnCenterMenuRadius, nCenter - mnCenterMenuRadius, nCenter + mnCenterMenuRadius, nCenter + mnCenterMenuRadius );
+				prepareItemTransition( child, nCenter, nCenter, bAnimate );
+			}
+		}
+
+		if(!mTransitionChildren.isEmpty())
+			startItemTransition();
+
+		/*
+		In the flat render mode, place the items the same way, in the renderer
+		 */
+		if(mFlatRenderer != null) {
+			mFlatRenderer.layout( nCenter, nChildCenter, mnCurrentMenuItemRadius, mnCenterMenuRadius, getFlatItemStyle( false ), getFlatItemStyle( true ) );
+			mFlatAccessibilityHelper.invalidateRoot();
+		}
+		SpiderMenuTrace.endSection();
+	}
+
+	/**
+	 * Cache the center the layout gave a child, and queue the child for the item transition if it is drawn
+	 * elsewhere: a moved child glides around the menu center from where it is drawn now, and a child laid out for
+	 * the first time grows in. Only while the menu is open and done with its open sequence: the children of the open
+	 * sequence are still animated by it, and a child added meanwhile waits for its turn in it
+	 *
+	 * @param child
+	 *      The child
+	 * @param nX
+	 *      The new center X
+	 * @param nY
+	 *      The new center Y
+	 * @param bAnimate
+	 *      true if the change should be animated
+	 */
+	private void prepareItemTransition( View child, int nX, int nY, boolean bAnimate ) {
+		LayoutParams params = (LayoutParams) child.getLayoutParams();
+		float nDrawnX = params.mnLayoutCenterX + child.getTranslationX();
+		float nDrawnY = params.mnLayoutCenterY + child.getTranslationY();
+		boolean bWasLaidOut = params.mbLaidOut;
+		params.mnLayoutCenterX = nX;
+		params.mnLayoutCenterY = nY;
+		params.mbLaidOut = true;
+
+		if(!bAnimate || !mbOpen || mAnimationQueue.contains( child ))
+			return;
+
+		if(mbOpening) {
+			if(!bWasLaidOut) {
+				ViewCompat.setScaleX( child, 0 );
+				ViewCompat.setScaleY( child, 0 );
+				mAnimationQueue.add( child );
+			}
+			return;
+		}
+
+		/*
+		Keep growing a child that was growing in, from its current scale
+		 */
+		params.mbGrowIn = !bWasLaidOut || (params.mbGrowIn && (child.getScaleX() < 1));
+		params.mnFromScale = (bWasLaidOut) ? child.getScaleX() : 0;
+		if(!bWasLaidOut) {
+			nDrawnX = nX;
+			nDrawnY = nY;
+		}
+
+		if((nDrawnX == nX) && (nDrawnY == nY) && !params.mbGrowIn)
+			return;
+
+		/*
+		Interpolate in polar coordinates around the menu center, so that the moved children follow the circle
+		 */
+		float nCenter = mnCanvasSize / 2f;
+		params.mnFromOrbit = (float) Math.hypot( nDrawnX - nCenter, nDrawnY - nCenter );
+		params.mnToOrbit = (float) Math.hypot( nX - nCenter, nY - nCenter );
+		params.mnFromAngle = MarkingMenuGesture.getAngle( nDrawnX - nCenter, nDrawnY - nCenter );
+		params.mnToAngle = MarkingMenuGesture.getAngle( nX - nCenter, nY - nCenter );
+		if(params.mnFromOrbit == 0)
+			params.mnFromAngle = params.mnToAngle;
+		else if(params.mnToOrbit == 0)
+			params.mnToAngle = params.mnFromAngle;
+
+		mTransitionChildren.add( child );
+	}
+
+	/**
+	 * Run the item transition over the queued children
+	 */
+	private void startItemTransition() {
+		if(isReducedMotion()) {
+			applyItemTransition( 1 );
+			mTransitionChildren.clear();
+			return;
+		}
+
+		mItemTransition = ValueAnimator.ofFloat( 0, 1 );
+		mItemTransition.setDuration( getAnimationDuration( mConfig.getRadialOutDuration() ) );
+		mItemTransition.setInterpolator( new DecelerateInterpolator() );
+		mItemTransition.addUpdateListener( new ValueAnimator.AnimatorUpdateListener() {
+			@Override
+			public void onAnimationUpdate( ValueAnimator animation ) {
+				applyItemTransition( (Float) animation.getAnimatedValue() );
+			}
+		} );
+		mItemTransition.addListener( new AnimatorListenerAdapter() {
+			@Override
+			public void onAnimationEnd( Animator animation ) {
+				applyItemTransition( 1 );
+				mTransitionChildren.clear();
+				mItemTransition = null;
+			}
+		} );
+		applyItemTransition( 0 );
+		mItemTransition.start();
+		startQualityMonitor();
+	}
+
+	/**
+	 * Place the transitioning children for a fraction of the transition
+	 *
+	 * @param nFraction
+	 *      The interpolated fraction [0, 1]
+	 */
+	private void applyItemTransition( float nFraction ) {
+		float nCenter = mnCanvasSize / 2f;
+		for(int nCtr = 0; nCtr < mTransitionChildren.size(); ++nCtr) {
+			View child = mTransitionChildren.get( nCtr );
+			LayoutParams params = (LayoutParams) child.getLayoutParams();
+			float nTurn = ((params.mnToAngle - params.mnFromAngle + 540) % 360) - 180;      //The short way around
+			double nAngle = Math.toRadians( params.mnFromAngle + nTurn * nFraction );
+			float nOrbit = params.mnFromOrbit + (params.mnToOrbit - params.mnFromOrbit) * nFraction;
+
+			child.setTranslationX( (nFraction < 1) ? (float) (nCenter + nOrbit * Math.cos( nAngle )) - params.mnLayoutCenterX : 0 );
+			child.setTranslationY( (nFraction < 1) ? (float) (nCenter + nOrbit * Math.sin( nAngle )) - params.mnLayoutCenterY : 0 );
+			if(params.mbGrowIn) {
+				float nScale = params.mnFromScale + (1 - params.mnFromScale) * nFraction;
+				child.setScaleX( nScale );
+				child.setScaleY( nScale );
+				child.setAlpha( nScale );
+			}
+		}
+	}
+
+	/**
+	 * Stop the item transition
+	 *
+	 * @param bFinish
+	 *      true to put the children where the layout put them, false to leave them where they are drawn, so that a new
+	 *      transition can start from there
+	 */
+	private void cancelItemTransition( boolean bFinish ) {
+		if(mItemTransition != null) {
+			mItemTransition.removeAllListeners();
+			mItemTransition.cancel();
+			mItemTransition = null;
+		}
+
+		if(bFinish)
+			applyItemTransition( 1 );
+		mTransitionChildren.clear();
+	}
+
+	/**
+	 * Get the default radius of the menu item circles to fit on the circumference of the virtual circle.
+	 * If they do not fit, or if the virtual circle is smaller than the surrounding menu item circles,
+	 * recalculate both radii using the formula described in the file javadoc, to find a smaller radius
+	 *
+	 * @return
+	 *      The radius that fits amicably in the view
+	 * @author Melvin Lobo
+	 */
+	private void calculateRadialRadii() {
+		/*
+		In case the radius is greater than the virtual circle circumference
+		 */
+		if(mConfig.getLayoutMode() == SpiderMenuConfig.LAYOUT_MODE_FIXED) {
+			/*
+			Keep the configured radius, even if the items overlap
+			 */
+		}
+		else if(mnCurrentMenuItemRadius > mnVirtualCircumferenceRadius) {
+			mnCurrentMenuItemRadius = getAppropriateRadius();
+		}
+		/*
+		The radius is smaller. Now check if the number of items can fit with this radius (along with
+		a gap of at least one circle (+ 1) to ensure some space between the menu item circles)
+		 */
+		else {
+			/*
+			The number of menu item circles that can fit on the circumference of the Virtual circle
+			{ n = 180 / sin(r / R + r) }
+			 */
+			long nNumberOfCircles = Math.round(Math.toRadians( 180 ) / Math.asin((double)mnCurrentMenuItemRadius / (double)(mnVirtualCircumferenceRadius + mnCurrentMenuItemRadius)));
+
+			/*
+			If the number of circles that can be fit is equal to or greater than the menu item circles
+			of the given radius + equidistant empty spaces (equal to another circle), we are fine, else,
+			we will have to reduce the radius
+			 */
+			if(nNumberOfCircles < ( mnRadialChildCount + 1 )) {
+				mnCurrentMenuItemRadius = getAppropriateRadius();
+			}
+		}
+
+		/*
+		Reduce virtual circumference by the smaller diameter to fit the smaller circles on the canvas
+		 */
+		mnVirtualCircumferenceRadius = (mnCanvasSize / 2) - (mnCurrentMenuItemRadius * 2);
+	}
+
+	/**
+	 * Calculate the radius of the center menu item
+	 *
+	 * @author Melvin Lobo
+	 */
+	private void calculateCenterRadii() {
+		mnCenterMenuRadius = Math.min( mConfig.getCenterMenuRadius(), mnVirtualCircumferenceRadius );
+	}
+
+	/**
+	 * Get the right radius using trigonometry to fit in the circles around the circumference
+	 *
+	 * @return
+	 *      The calculated radius of the orbitting circles
+	 *
+	 * @author Melvin Lobo
+	 */
+	private int getAppropriateRadius() {
+		/*
+		r = R * sin ( 180 / n ) / ( 1 - sin( 180 / n))
+		 */
+		int numberOfItems = mnRadialChildCount + 1;       //+ 1 for some spacing between the menu item circles
+		return (int)Math.abs((mnVirtualCircumferenceRadius * Math.sin(Math.toRadians( 180 ) / numberOfItems) / (1 - Math.sin(Math.toRadians( 180 ) / numberOfItems))));
+	}
+
+	/**
+	 * Start Center Animation
+	 *
+	 * @author Melvin Lobo
+	 */
+	public void startCenterAnimation() {
+		Logger.trace( TraceRingBuffer.EVENT_OPEN_START, getChildCount(), 0 );
+		beginSequence( true );
+		mbOpen = true;
+
+		if(isReducedMotion()) {
+			prepareLikelyItems();
+			crossFade( true );
+			return;
+		}
+
+		if(mFlatRenderer != null) {
+			prepareLikelyItems();
+			startFlatAnimation( true );
+			return;
+		}
+
+		/*
+		Scale down all the surrounding radial views till the center animation is done.
+		Also dump all radial children into a list for sequential animation after the
+		center animation is done.
+		 */
+		for(int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
+			final View child = getChildAt( nCtr );
+			LayoutParams params = (LayoutParams) child.getLayoutParams();
+			if ( params.getMenuType() != LayoutParams.CENTER ) {
+				/*
+				Reduce the scale initially till we are done with the center animation
+				 */
+				ViewCompat.setScaleX( child, 0 );
+				ViewCompat.setScaleY( child, 0 );
+				mAnimationQueue.add( child );
+			}
+		}
+
+		prepareLikelyItems();
+
+		/*
+		 Set the initial scale to zero
+		 */
+		View centerView = getCenterView();
+		if(centerView != null) {
+			ViewCompat.setScaleX( centerView, 0 );
+			ViewCompat.setScaleY( centerView, 0 );
+		}
+
+		/*
+		Bounce the center view after the delay
+		 */
+		postDelayed( mBounceCenterRunnable, getAnimationDuration( mConfig.getOpenDelay() ) );
+	}
+
+	/**
+	 * Get the center view
+	 *
+	 * @return
+	 *      The center view, or null if there is none (yet)
+	 */
+	private View getCenterView() {
+		return (mCenterView != null) ? mCenterView.get() : null;
+	}
+
+	/**
+	 * Prepare the items that are picked the most on this level: prefetch their submenus, decode their bitmaps
+	 * and, if asked to, move them to the front of the animation queue
+	 */
+	private void prepareLikelyItems() {
+		if(mSelectionModel == null)
+			return;
+
+		int[] likelyItemIDs = mSelectionModel.getLikelyItems( mnMenuLevelID, LIKELY_ITEM_COUNT );
+		for(int nCtr = likelyItemIDs.length - 1; nCtr >= 0; --nCtr) {
+			SpiderMenuItem item = findMenuItem( likelyItemIDs[nCtr] );
+			if((item != null) && (mSubmenuLoader != null))
+				mSubmenuLoader.prefetch( item );
+
+			View child = findViewById( likelyItemIDs[nCtr] );
+			if((child == null) || (child.getParent() != this))
+				continue;
+
+			if(child instanceof RoundedShadowImageView)
+				((RoundedShadowImageView) child).prepareBitmap();
+
+			/*
+			Walk from the least likely, so that the most likely ends up first
+			 */
+			if(mbLikelyItemsFirst && mAnimationQueue.remove( child ))
+				mAnimationQueue.add( 0, child );
+		}
+	}
+
+	/**
+	 * Start Radial animation
+	 *
+	 * @param previousChildDoneWithAnimation
+	 *      Previous child which has completed the animation
+	 *
+	 * @author Melvin Lobo
+	 */
+	public void startRadialOutAnimationForNext( View previousChildDoneWithAnimation) {
+
+		if(previousChildDoneWithAnimation != null)
+			mAnimationQueue.remove( previousChildDoneWithAnimation );
+
+		if(mAnimationQueue.isEmpty()) {
+			endSequence( true );
+			scheduleSnapshotCapture();
+			return;
+		}
+
+		/*
+		Get the child and its layout params to figure out if its a radial item or the center item
+		 */
+		final View child = mAnimationQueue.get( 0 );
+		springOutRadialChild( child );
+		View centerView = getCenterView();
+		if(centerView != null)
+			bounceView( centerView, new SpringAnimator( centerView, null ) );
+	}
+
+	@Override
+	protected void onFinishInflate() {
+		super.onFinishInflate();
+		if((mFlatRenderer != null) && (getChildCount() > 0))
+			throw new IllegalArgumentException( "A flat SpiderMenu draws its items itself. Set them with app:menu or setItems()" );
+
+		for(int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
+			View view = getChildAt( nCtr );
+			if(!(view instanceof RoundedShadowImageView))
+				throw  new IllegalArgumentException( "The children should be of type RoundedShadowImageView" );
+
+			((RoundedShadowImageView)view).setViewClickListener( this );
+		}
+
+		loadSnapshot();
+	}
+
+	/**
+	 * Set the menu items programmatically, e.g. from a server driven configuration. The children are created or
+	 * reused in a single batch with one layout pass.
+	 *
+	 * When the items are replaced, the children are matched by the item ids: only the inserted, removed and moved
+	 * items are touched and animated, so swapping the icon of one item does not rebuild the menu.
+	 *
+	 * @param items
+	 *      The items. The ids should be unique and valid (not View.NO_ID)
+	 */
+	public void setItems( List<SpiderMenuItem> items ) {
+		int[] newIDs = new int[items.size()];
+		for(int nCtr = 0; nCtr < newIDs.length; ++nCtr) {
+			newIDs[nCtr] = items.get( nCtr ).getID();
+			if(newIDs[nCtr] == View.NO_ID)
+				throw new IllegalArgumentException( "The menu items should have a valid id" );
+			for(int nPrevious = 0; nPrevious < nCtr; ++nPrevious) {
+				if(newIDs[nPrevious] == newIDs[nCtr])
+					throw new IllegalArgumentException( "The menu item ids should be unique" );
+			}
+		}
+
+		if(mFlatRenderer != null) {
+			setFlatItems( items );
+			return;
+		}
+
+		int nOldCount = getChildCount();
+		View[] oldChildren = new View[nOldCount];
+		int[] oldIDs = new int[nOldCount];
+		for(int nCtr = 0; nCtr < nOldCount; ++nCtr) {
+			oldChildren[nCtr] = getChildAt( nCtr );
+			oldIDs[nCtr] = oldChildren[nCtr].getId();
+		}
+
+		/*
+		The children are not in the order of the items they were bound to (the xml children have no items), so the
+		old items are looked up by id
+		 */
+		SparseArray<SpiderMenuItem> oldItems = new SparseArray<>( nOldCount );
+		if(mItems != null) {
+			for(SpiderMenuItem oldItem : mItems)
+				oldItems.put( oldItem.getID(), oldItem );
+		}
+
+		SpiderMenuDiff diff = SpiderMenuDiff.calculate( oldIDs, newIDs );
+		boolean bAnimate = isLaidOut() && isAttachedToWindow() && !isReducedMotion();     //Removed right away in reduced motion
+		int nOldRadialCount = mnRadialChildCount;
+
+		/*
+		Take out the removed children, and detach the moved ones so that the rest stay in the right relative order
+		 */
+		for(int nCtr = 0; nCtr < nOldCount; ++nCtr) {
+			if(diff.isRemoved( nCtr ))
+				removeMenuChild( oldChildren[nCtr], bAnimate );
+		}
+
+		for(int nCtr = 0; nCtr < newIDs.length; ++nCtr) {
+			if(diff.isMoved( nCtr ))
+				detachViewFromParent( oldChildren[diff.getOldPosition( nCtr )] );
+		}
+
+		/*
+		Bind the items, and put the moved and the inserted children in place, in ascending order of position
+		 */
+		boolean bMenuTypeChanged = false;
+		for(int nCtr = 0; nCtr < newIDs.length; ++nCtr) {
+			SpiderMenuItem item = items.get( nCtr );
+			int nOldPosition = diff.getOldPosition( nCtr );
+
+			if(nOldPosition == SpiderMenuDiff.NO_POSITION) {
+				RoundedShadowImageView child = new RoundedShadowImageView( getContext(), item.getDrawableResourceID() );
+				child.setId( item.getID() );
+				child.setViewClickListener( this );
+				LayoutParams params = new LayoutParams( LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT, item.getMenuType() );
+				params.setWeight( item.getWeight() );
+				inheritItemStyle( child, params );
+				addViewInLayout( child, nCtr, params, true );
+				applyRenderQuality( child );
+				continue;
+			}
+
+			View child = oldChildren[nOldPosition];
+			SpiderMenuItem oldItem = oldItems.get( item.getID() );
+			bMenuTypeChanged |= bindMenuChild( child, oldItem, item );
+			if(diff.isMoved( nCtr ))
+				attachViewToParent( child, nCtr, child.getLayoutParams() );
+		}
+
+		mItems = new ArrayList<>( items );
+
+		if(!diff.hasStructuralChanges() && !bMenuTypeChanged)
+			return;
+
+		/*
+		Count the radial children again. If the count changed, let the radii fit the new count from scratch
+		 */
+		mnRadialChildCount = 0;
+		for(SpiderMenuItem item : items) {
+			if(item.getMenuType() == LayoutParams.RADIAL)
+				mnRadialChildCount++;
+		}
+		if(mnRadialChildCount != nOldRadialCount) {
+			mnCurrentMenuItemRadius = mConfig.getRadialMenuRadius();
+			mnVirtualCircumferenceRadius = 0;
+		}
+
+		/*
+		The layout moves the retained children and grows the inserted ones in, from where they are now
+		 */
+		requestLayout();
+		invalidate();
+	}
+
+	/**
+	 * Set the items in the flat render mode. The renderer takes them over in one go; there are no children to
+	 * match, so the changes are not animated
+	 *
+	 * @param items
+	 *      The validated items
+	 */
+	private void setFlatItems( List<SpiderMenuItem> items ) {
+		int nOldRadialCount = mnRadialChildCount;
+		mFlatRenderer.setItems( getContext(), items );
+		mItems = new ArrayList<>( items );
+
+		mnRadialChildCount = mFlatRenderer.getRadialItemCount();
+		if(mnRadialChildCount != nOldRadialCount) {
+			mnCurrentMenuItemRadius = mConfig.getRadialMenuRadius();
+			mnVirtualCircumferenceRadius = 0;
+		}
+
+		requestLayout();
+		invalidate();
+	}
+
+	/**
+	 * Measure and lay out the menu at the given size, and get the bitmaps of the items ready. Used by
+	 * {@link SpiderMenuAsyncBuilder} to do the work on a background thread, before the menu is attached
+	 *
+	 * @param nWidth
+	 *      The width in pixels
+	 * @param nHeight
+	 *      The height in pixels
+	 */
+	void prepareDetached( int nWidth, int nHeight ) {
+		measure( MeasureSpec.makeMeasureSpec( nWidth, MeasureSpec.EXACTLY ), MeasureSpec.makeMeasureSpec( nHeight, MeasureSpec.EXACTLY ) );
+		layout( 0, 0, getMeasuredWidth(), getMeasuredHeight() );
+
+		for(int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
+			View child = getChildAt( nCtr );
+			if(child instanceof RoundedShadowImageView)
+				((RoundedShadowImageView) child).prepareBitmap();
+		}
+	}
+
+	/**
+	 * Start the open or the close animation of the flat render mode. One animator drives the progress of all the
+	 * items; the renderer staggers it per item
+	 *
+	 * @param bOpen
+	 *      true to open, false to close
+	 */
+	private void startFlatAnimation( final boolean bOpen ) {
+		float nStartProgress = (bOpen) ? 0 : mFlatRenderer.getProgress();
+		if(mFlatAnimator != null) {
+			mFlatAnimator.removeAllListeners();
+			mFlatAnimator.cancel();
+		}
+
+		mFlatRenderer.setProgress( nStartProgress );
+		mFlatAnimator = ValueAnimator.ofFloat( nStartProgress, (bOpen) ? 1 : 0 );
+		mFlatAnimator.setStartDelay( (bOpen) ? getAnimationDuration( mConfig.getOpenDelay() ) : 0 );
+		mFlatAnimator.setDuration( (long) (getAnimationDuration( (bOpen) ? mConfig.getRadialOutDuration() : mConfig.getCloseDuration() ) / FlatMenuRenderer.RADIAL_ITEM_PROGRESS) );
+		mFlatAnimator.setInterpolator( new LinearInterpolator() );        //The renderer eases every item
+		mFlatAnimator.addUpdateListener( new ValueAnimator.AnimatorUpdateListener() {
+			@Override
+			public void onAnimationUpdate( ValueAnimator animation ) {
+				startQualityMonitor();
+				mFlatRenderer.setProgress( (Float) animation.getAnimatedValue() );
+				invalidate();
+			}
+		} );
+		mFlatAnimator.addListener( new AnimatorListenerAdapter() {
+			@Override
+			public void onAnimationEnd( Animator animation ) {
+				endSequence( bOpen );
+				if(bOpen)
+					scheduleSnapshotCapture();
+			}
+		} );
+		mFlatAnimator.start();
+		invalidate();
+	}
+
+	/**
+	 * Get the style the flat render mode draws the items with
+	 *
+	 * @param bCenter
+	 *      true for the center item, false for the radial items
+	 * @return
+	 *      The inherited style, or the default style
+	 */
+	private SpiderMenuItemStyle getFlatItemStyle( boolean bCenter ) {
+		SpiderMenuItemStyle style = (bCenter) ? mCenterItemStyle : mRadialItemStyle;
+		return (style != null) ? style : SpiderMenuItemStyle.getDefault();
+	}
+
+	/**
+	 * Set the items from a menu resource. The resource is parsed once and shared by all the menus that use it
+	 *
+	 * @param nMenuResourceID
+	 *      The menu resource
+	 */
+	public void setMenu( int nMenuResourceID ) {
+		mMenuDefinition = SpiderMenuDefinition.inflate( getContext(), nMenuResourceID );
+		setItems( mMenuDefinition.getItems() );
+	}
+
+	/**
+	 * Get the compiled menu resource
+	 *
+	 * @return
+	 *      The menu definition, or null if the menu was not set from a menu resource
+	 */
+	public SpiderMenuDefinition getMenuDefinition() {
+		return mMenuDefinition;
+	}
+
+	/**
+	 * Find an item by id. In O(1) anywhere in the tree of the menu resource, else among the current items
+	 *
+	 * @param nID
+	 *      The item id
+	 * @return
+	 *      The item, or null if there is no such item
+	 */
+	public SpiderMenuItem findMenuItem( int nID ) {
+		SpiderMenuItem item = (mMenuDefinition != null) ? mMenuDefinition.findItem( nID ) : null;
+		if((item != null) || (mItems == null))
+			return item;
+
+		for(SpiderMenuItem currentItem : mItems) {
+			if(currentItem.getID() == nID)
+				return currentItem;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Get the items set via {@link #setItems(List)}
+	 *
+	 * @return
+	 *      The items, or null if the children come from the layout xml
+	 */
+	public List<SpiderMenuItem> getItems() {
+		return mItems;
+	}
+
+	/**
+	 * Update a retained child with its new item. The drawable is only set if it changed
+	 *
+	 * @param child
+	 *      The child
+	 * @param oldItem
+	 *      The item the child was bound to. Null for the children from the layout xml
+	 * @param item
+	 *      The new item
+	 * @return
+	 *      true if the menu type or the weight of the child changed
+	 */
+	private boolean bindMenuChild( View child, SpiderMenuItem oldItem, SpiderMenuItem item ) {
+		if((oldItem == null) || (oldItem.getDrawableResourceID() != item.getDrawableResourceID()))
+			((RoundedShadowImageView) child).setImageResource( item.getDrawableResourceID() );
+
+		LayoutParams params = (LayoutParams) child.getLayoutParams();
+		boolean bWeightChanged = (params.getWeight() != item.getWeight());
+		params.setWeight( item.getWeight() );
+		if(params.getMenuType() == item.getMenuType())
+			return bWeightChanged;
+
+		params.setMenuType( item.getMenuType() );
+		inheritItemStyle( (RoundedShadowImageView) child, params );
+		mCenterView = null;         //Picked again in the next measure pass
+		return true;
+	}
+
+	/**
+	 * Remove a child during {@link #setItems(List)}. If animated, the child is removed from the layout right away,
+	 * but keeps being drawn while it shrinks into the center
+	 *
+	 * @param child
+	 *      The child
+	 * @param bAnimate
+	 *      true to animate the removal
+	 */
+	private void removeMenuChild( final View child, boolean bAnimate ) {
+		mAnimationQueue.remove( child );
+		if((mCenterView != null) && (mCenterView.get() == child))
+			mCenterView = null;
+
+		if(!bAnimate) {
+			removeViewInLayout( child );
+			return;
+		}
+
+		int nCenter = mnCanvasSize / 2;
+		startViewTransition( child );
+		removeViewInLayout( child );
+		mDisappearingChildren.add( child );
+		ViewCompat.animate( child )
+				.translationX( ( nCenter - child.getLeft() - (child.getWidth() / 2) ) )
+				.translationY( ( nCenter - child.getTop() - (child.getHeight() / 2) ) )
+				.alpha( 0 )
+				.scaleX( 0 )
+				.scaleY( 0 )
+				.setUpdateListener( mScaleUpdateListener )
+				.setInterpolator( new DecelerateInterpolator() )
+				.setDuration( getAnimationDuration( mConfig.getCloseDuration() ) )
+				.withLayer()
+				.withEndAction( new Runnable() {
+					@Override
+					public void run() {
+						mDisappearingChildren.remove( child );
+						endViewTransition( child );
+					}
+				} );
+	}
+
+	/**
+	 * Handles the bounce out animation for the radial menu items
+	 * @param child
+	 *      The child which needs to be animated
+	 *
+	 * @author Melvin Lobo
+	 */
+	private void springOutRadialChild( final View child) {
+		Logger.trace( TraceRingBuffer.EVENT_RADIAL_OUT, indexOfChild( child ), mAnimationQueue.size() );
+
+		/*
+		Get the center of the View group
+		 */
+		int nCenter = mnCanvasSize / 2;
+
+		/*
+		For Radial items, start the animation. Calculate the distance to align
+		the center of the Viewgroup and View and animate from there:
+		For X - Center - child left - half of width(to align center)
+		For Y - Center - child left - half of height(to align center)
+		 */
+		ViewCompat.setTranslationX( child, ( nCenter - child.getLeft() - (child.getWidth() / 2) ));
+		ViewCompat.setTranslationY( child, ( nCenter - child.getTop() - (child.getHeight() / 2) ));
+		ViewCompat.setAlpha( child, 0 );
+		ViewCompat.setScaleX( child, 1 );       //Ensure the scale is one, because it might have been set to zero during the initial animation
+		ViewCompat.setScaleY( child, 1 );       //Ensure the scale is one, because it might have been set to zero during the initial animation
+		ViewCompat.animate( child )
+				.translationX( 0 )
+				.translationY( 0 )
+				.alpha( 1 )
+				.setInterpolator( new DecelerateInterpolator() )
+				.setDuration( getAnimationDuration( mConfig.getRadialOutDuration() ) )
+				.withLayer()
+				.withEndAction( new Runnable() {
+					@Override
+					public void run() {
+						/*ViewCompat.setScaleX( child, 0.6f );
+						ViewCompat.setScaleY( child, 0.6f );*/
+						startRadialOutAnimationForNext( child );
+						bounceView( child, new SpringAnimator( child, null) );
+					}
+				} );
+	}
+
+	/**
+	 * Close animation by consolidating the children
+	 *
+	 * @author Melvin Lobo
+	 */
+	private void springInChildren() {
+		Logger.trace( TraceRingBuffer.EVENT_CLOSE_START, getChildCount(), 0 );
+		beginSequence( false );
+		mbOpen = false;
+
+		if(isReducedMotion()) {
+			crossFade( false );
+			return;
+		}
+
+		startQualityMonitor();
+
+		if(mFlatRenderer != null) {
+			startFlatAnimation( false );
+			return;
+		}
+
+		/*
+		Get the center of the View group
+		 */
+		int nCenter = mnCanvasSize / 2;
+		boolean bHasRadialChildren = false;
+
+		for(int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
+			final View child = getChildAt( nCtr );
+
+			LayoutParams params = (LayoutParams) child.getLayoutParams();
+			if ( params.getMenuType() == LayoutParams.CENTER )
+				continue;
+			bHasRadialChildren = true;
+
+			/*
+			For Radial items, start the animation. Calculate the distance to align
+			the center of the Viewgroup and View and animate from there:
+			For X - Center - child left - half of width(to align center)
+			For Y - Center - child left - half of height(to align center)
+			 */
+			ViewCompat.setAlpha( child, 1 );
+			ViewCompat.setScaleX( child, 1 );       //Ensure the scale is one, because it might have been set to zero during the initial animation
+			ViewCompat.setScaleY( child, 1 );       //Ensure the scale is one, because it might have been set to zero during the initial animation
+			ViewCompat.animate( child )
+					.translationX( ( nCenter - child.getLeft() - (child.getWidth() / 2) ) )
+					.translationY( ( nCenter - child.getTop() - (child.getHeight() / 2) ) )
+					.alpha( 0 )
+					.scaleX( 0 )
+					.scaleY( 0 )
+					.setUpdateListener( mScaleUpdateListener )
+					.setInterpolator( new DecelerateInterpolator() )
+					.setDuration( getAnimationDuration( mConfig.getCloseDuration() ) )
+					.withLayer()
+					.withEndAction( new Runnable() {
+						@Override
+						public void run() {
+							closeCenterChild();
+						}
+					} );
+		}
+
+		/*
+		Without radial children there is no end action to wait for
+		 */
+		if(!bHasRadialChildren)
+			closeCenterChild();
+	}
+
+	/**
+	 * The last part of the close sequence: bounce the center child and shrink it away. Ends the close trace section
+	 */
+	private void closeCenterChild() {
+		final View centerView = getCenterView();
+		if(centerView == null) {
+			endSequence( false );
+			return;
+		}
+
+		bounceView( centerView, new SpringAnimator( centerView, new SpringEndListener() {
+			@Override
+			public void onSpringRested() {
+				ViewCompat.animate( centerView )
+						  .scaleX( 0 )
+						  .scaleY( 0 )
+						  .setUpdateListener( mScaleUpdateListener )
+						  .withLayer()
+						  .withEndAction( new Runnable() {
+							  @Override
+							  public void run() {
+								  endSequence( false );
+							  }
+						  } );
+			}
+		} ) );
+	}
+
+	/**
+	 * The open or the close sequence starts. The other one, if it is still running, is cut short
+	 *
+	 * @param bOpen
+	 *      true for the open sequence, false for the close sequence
+	 */
+	private void beginSequence(boolean bOpen) {
+		endSequence( !bOpen );
+		if(bOpen)
+			mbOpening = true;
+		else
+			mbClosing = true;
+		beginOpenCloseTrace( bOpen );
+	}
+
+	/**
+	 * The open or the close sequence is done, or was cut short. Every path that ends a sequence has to come through
+	 * here, since the quality monitor runs till both sequences are over
+	 *
+	 * @param bOpen
+	 *      true for the open sequence, false for the close sequence
+	 */
+	private void endSequence(boolean bOpen) {
+		if(bOpen)
+			mbOpening = false;
+		else
+			mbClosing = false;
+		endOpenCloseTrace( bOpen );
+	}
+
+	/**
+	 * Begin the async trace section that spans the open or the close sequence, so that the whole sequence shows up
+	 * as one slice in systrace / Perfetto
+	 *
+	 * @param bOpen
+	 *      true for the open sequence, false for the close sequence
+	 */
+	private void beginOpenCloseTrace(boolean bOpen) {
+		if(bOpen && !mbOpenTraceActive) {
+			mbOpenTraceActive = true;
+			SpiderMenuTrace.beginAsyncSection( SpiderMenuTrace.ASYNC_OPEN, System.identityHashCode( this ) );
+		}
+		else if(!bOpen && !mbCloseTraceActive) {
+			mbCloseTraceActive = true;
+			SpiderMenuTrace.beginAsyncSection( SpiderMenuTrace.ASYNC_CLOSE, System.identityHashCode( this ) );
+		}
+	}
+
+	/**
+	 * End the async trace section of the open or the close sequence
+	 *
+	 * @param bOpen
+	 *      true for the open sequence, false for the close sequence
+	 */
+	private void endOpenCloseTrace(boolean bOpen) {
+		if(bOpen && mbOpenTraceActive) {
+			mbOpenTraceActive = false;
+			SpiderMenuTrace.endAsyncSection( SpiderMenuTrace.ASYNC_OPEN, System.identityHashCode( this ) );
+		}
+		else if(!bOpen && mbCloseTraceActive) {
+			mbCloseTraceActive = false;
+			SpiderMenuTrace.endAsyncSection( SpiderMenuTrace.ASYNC_CLOSE, System.identityHashCode( this ) );
+		}
+	}
+
+	/**
+	 * Bounce the view. Will use the respective values for center and radial view
+	 * @param child
+	 *      The child that has to be bounced
+	 * @param springAnimator
+	 *      The spring animator with the listener to be invoked.
+	 *      Set null if you dont need to intercept the spring animation end
+	 *
+	 * @author Melvin Lobo
+	 */
+	private void bounceView(View child, SpringAnimator springAnimator) {
+		LayoutParams params = (LayoutParams) child.getLayoutParams();
+		boolean bAnalytic = (mConfig.getSpringMode() == SpiderMenuConfig.SPRING_MODE_ANALYTIC);
+
+		/*
+		Not attached, or in reduced motion. There is no frame to animate on, or no spring wanted, so just rest the view
+		where the spring would
+		 */
+		if(isReducedMotion() || (bAnalytic ? !isAttachedToWindow() : (mSpringSystem == null))) {
+			child.setScaleX( 1.0f );
+			child.setScaleY( 1.0f );
+			springAnimator.onSpringRested();
+			return;
+		}
+
+		if(bAnalytic) {
+			AnalyticSpring spring = (params.getMenuType() == LayoutParams.CENTER) ? mCenterSpring : mRadialSpring;
+			mActiveBounces.add( new SpringBounce( springAnimator, spring, AnimationUtils.currentAnimationTimeMillis() ) );
+			springAnimator.applyValue( 0 );
+			if(!mbBounceFramePosted) {
+				mbBounceFramePosted = true;
+				ViewCompat.postOnAnimation( this, mBounceFrameRunnable );
+			}
+			return;
+		}
+
+		if(params.getMenuType() == LayoutParams.CENTER) {
+			Spring centerScaleSpring = mSpringSystem.createSpring();
+			centerScaleSpring.setSpringConfig( new SpringConfig( mConfig.getCenterScaleTension(), mConfig.getCenterScaleFriction() ) );
+			centerScaleSpring.addListener( springAnimator );
+			mActiveSprings.add( centerScaleSpring );
+			centerScaleSpring.setEndValue( 1 );
+		}
+		else {
+			Spring radialScaleSpring = mSpringSystem.createSpring();
+			radialScaleSpring.setSpringConfig( new SpringConfig( mConfig.getRadialScaleTension(), mConfig.getRadialScaleFriction() ) );
+			radialScaleSpring.addListener( springAnimator );
+			mActiveSprings.add( radialScaleSpring );
+			radialScaleSpring.setEndValue( 1 );
+		}
+	}
+
+	/**
+	 * Move every analytic bounce to the frame time. The bounces that reach their settle time are rested, which may
+	 * start the next ones, and the frames go on while any bounce is left
+	 */
+	private void onBounceFrame() {
+		long nNow = AnimationUtils.currentAnimationTimeMillis();
+		ArrayList<SpringBounce> restedBounces = null;
+
+		SpiderMenuTrace.beginSection( SpiderMenuTrace.SECTION_SPRING_UPDATE );
+		for(int nCtr = 0; nCtr < mActiveBounces.size(); ++nCtr) {
+			SpringBounce bounce = mActiveBounces.get( nCtr );
+			double nTime = (nNow - bounce.mnStartTime) / 1000.0;
+			if(nTime >= bounce.mSpring.getSettleTime()) {
+				if(restedBounces == null)
+					restedBounces = new ArrayList<>(  );
+				restedBounces.add( bounce );
+			}
+			else {
+				bounce.mAnimator.applyValue( bounce.mSpring.getValue( nTime ) );
+			}
+		}
+		SpiderMenuTrace.endSection();
+
+		if(restedBounces != null) {
+			mActiveBounces.removeAll( restedBounces );
+			for(SpringBounce bounce : restedBounces) {
+				if(Logger.LOGGING_COMPILED && Logger.isTraceEnabled())
+					Logger.trace( TraceRingBuffer.EVENT_SPRING_REST, System.identityHashCode( bounce.mAnimator ), 0 );
+				SpiderMenuTrace.beginSection( SpiderMenuTrace.SECTION_SPRING_REST );
+				bounce.mAnimator.applyValue( 1 );
+				bounce.mAnimator.onSpringRested();
+				SpiderMenuTrace.endSection();
+			}
 		}
 
-		return nFinalSize;
+		if(!mActiveBounces.isEmpty() && !mbBounceFramePosted) {
+			mbBounceFramePosted = true;
+			ViewCompat.postOnAnimation( this, mBounceFrameRunnable );
+		}
 	}
 
 	/**
-	 * Layout the children based on the above formula for placing the circles on lines with angle @
-	 * @param changed
-	 *      New size or position
-	 * @param leftRelativeToParent
-	 *      Left, w.r.t Parent
-	 * @param topRelativeToParent
- *          Top, w.r.t Parent
-	 * @param rightRelativeToParent
-	 *      Right, w.r.t Parent
-	 * @param bottomRelativeToParent
-	 *      Bottom, w.r.t Parent
-	 *
-	 * @author Melvin Lobo
+	 * Scale an animation duration or delay for the render quality level
 	 */
-	@Override
-	protected void onLayout( boolean changed, int leftRelativeToParent, int topRelativeToParent, int rightRelativeToParent, int bottomRelativeToParent ) {
-		int nCenter = mnCanvasSize / 2;
-		float nAngleForOneCircle = ((float) FULL_CIRCLE_ANGLE / (float) mnRadialChildCount);
-		double nStartAngle = Math.toRadians( 270 );       //Start from Top (positive Y)
-		int nChildCenter = mnVirtualCircumferenceRadius + mnCurrentMenuItemRadius;
+	private long getAnimationDuration( int nDuration ) {
+		return mQualityController.scaleDuration( nDuration );
+	}
 
-		for( int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
-			View child = getChildAt( nCtr );
-			if(((SpiderMenu.LayoutParams)child.getLayoutParams()).getMenuType() == LayoutParams.RADIAL ) {
-				double angle = nStartAngle + Math.toRadians( nAngleForOneCircle * nCtr );
+	/**
+	 * Destroy the springs and drop the bounces that have not come to rest. Their end listeners are not called
+	 */
+	private void cancelSprings() {
+		for(Spring spring : mActiveSprings)
+			spring.destroy();
+		mActiveSprings.clear();
+
+		removeCallbacks( mBounceFrameRunnable );
+		mbBounceFramePosted = false;
+		mActiveBounces.clear();
+	}
 
-				/*
-				Center point of the menuitem circle
-				 */
-				int nX = (int) ((nCenter) + nChildCenter * Math.cos( angle ));
-				int nY = (int) ((nCenter) + nChildCenter * Math.sin( angle ));
+	/**
+	 * Open or close in reduced motion. The children are cross-faded into their end state at once, without springs
+	 * or delays (the cross-fade itself is scaled to nothing when the animations are off). The flat render mode jumps
+	 * to its end state
+	 *
+	 * @param bOpen
+	 *      true to open, false to close
+	 */
+	private void crossFade( final boolean bOpen ) {
+		endSequence( !bOpen );
+		removeCallbacks( mBounceCenterRunnable );
+		mAnimationQueue.clear();
+
+		if(mFlatRenderer != null) {
+			if(mFlatAnimator != null) {
+				mFlatAnimator.removeAllListeners();
+				mFlatAnimator.cancel();
+				mFlatAnimator = null;
+			}
+			mFlatRenderer.setProgress( (bOpen) ? 1 : 0 );
+			invalidate();
+			onCrossFadeEnd( bOpen );
+			return;
+		}
+
+		int nChildCount = getChildCount();
+		if(nChildCount == 0) {
+			onCrossFadeEnd( bOpen );
+			return;
+		}
 
-				child.layout( nX - mnCurrentMenuItemRadius, nY - mnCurrentMenuItemRadius, nX + mnCurrentMenuItemRadius, nY + mnCurrentMenuItemRadius );
+		for(int nCtr = 0; nCtr < nChildCount; ++nCtr) {
+			View child = getChildAt( nCtr );
+			if(bOpen) {
+				settleChild( child, true );
+				ViewCompat.setAlpha( child, 0 );
 			}
 			else {
-				child.layout( nCenter - mnCenterMenuRadius, nCenter - mnCenterMenuRadius, nCenter + mnCenterMenuRadius, nCenter + mnCenterMenuRadius );
+				ViewCompat.animate( child ).cancel();
+			}
+
+			ViewPropertyAnimatorCompat animator = ViewCompat.animate( child )
+					.alpha( (bOpen) ? 1 : 0 )
+					.setDuration( CROSS_FADE_DURATION )
+					.withLayer();
+			if(nCtr == nChildCount - 1) {
+				animator.withEndAction( new Runnable() {
+					@Override
+					public void run() {
+						onCrossFadeEnd( bOpen );
+					}
+				} );
 			}
 		}
 	}
 
 	/**
-	 * Get the default radius of the menu item circles to fit on the circumference of the virtual circle.
-	 * If they do not fit, or if the virtual circle is smaller than the surrounding menu item circles,
-	 * recalculate both radii using the formula described in the file javadoc, to find a smaller radius
-	 *
-	 * @return
-	 *      The radius that fits amicably in the view
-	 * @author Melvin Lobo
+	 * The cross-fade is done. A closed menu puts its children where the close animation leaves them
 	 */
-	private void calculateRadialRadii() {
-		/*
-		In case the radius is greater than the virtual circle circumference
-		 */
-		if(mnCurrentMenuItemRadius > mnVirtualCircumferenceRadius) {
-			mnCurrentMenuItemRadius = getAppropriateRadius();
+	private void onCrossFadeEnd( boolean bOpen ) {
+		if(!bOpen) {
+			for(int nCtr = 0; nCtr < getChildCount(); ++nCtr)
+				settleChild( getChildAt( nCtr ), false );
 		}
-		/*
-		The radius is smaller. Now check if the number of items can fit with this radius (along with
-		a gap of at least one circle (+ 1) to ensure some space between the menu item circles)
-		 */
-		else {
-			/*
-			The number of menu item circles that can fit on the circumference of the Virtual circle
-			{ n = 180 / sin(r / R + r) }
-			 */
-			long nNumberOfCircles = Math.round(Math.toRadians( 180 ) / Math.asin((double)mnCurrentMenuItemRadius / (double)(mnVirtualCircumferenceRadius + mnCurrentMenuItemRadius)));
 
-			/*
-			If the number of circles that can be fit is equal to or greater than the menu item circles
-			of the given radius + equidistant empty spaces (equal to another circle), we are fine, else,
-			we will have to reduce the radius
-			 */
-			if(nNumberOfCircles < ( mnRadialChildCount + 1 )) {
-				mnCurrentMenuItemRadius = getAppropriateRadius();
-			}
+		endSequence( bOpen );
+		if(bOpen)
+			scheduleSnapshotCapture();
+	}
+
+	/**
+	 * Start feeding the frame times to the quality controller, as the menu starts moving. The items are set up for
+	 * motion, i.e. without anti-aliasing at the lower levels, till it stops
+	 */
+	private void startQualityMonitor() {
+		if(mbQualityFramePosted || !isAttachedToWindow())
+			return;
+
+		if(!mbInMotion) {
+			mbInMotion = true;
+			applyRenderQuality();
 		}
 
-		/*
-		Reduce virtual circumference by the smaller diameter to fit the smaller circles on the canvas
-		 */
-		mnVirtualCircumferenceRadius = (mnCanvasSize / 2) - (mnCurrentMenuItemRadius * 2);
+		mbQualityFramePosted = true;
+		Choreographer.getInstance().postFrameCallback( mQualityFrameCallback );
 	}
 
 	/**
-	 * Calculate the radius of the center menu item
+	 * Count a frame while the menu moves, and stop once it is at rest
 	 *
-	 * @author Melvin Lobo
+	 * @param nFrameTimeNanos
+	 *      The frame time
 	 */
-	private void calculateCenterRadii() {
-		mnCenterMenuRadius = Math.min( DEFAULT_CENTER_MENU_RADIUS, mnVirtualCircumferenceRadius );
+	private void onQualityFrame( long nFrameTimeNanos ) {
+		if(!isInMotion()) {
+			endMotion();
+			return;
+		}
+
+		if(mQualityController.onFrame( nFrameTimeNanos ))
+			onQualityLevelChanged();
+
+		mbQualityFramePosted = true;
+		Choreographer.getInstance().postFrameCallback( mQualityFrameCallback );
 	}
 
 	/**
-	 * Get the right radius using trigonometry to fit in the circles around the circumference
-	 *
-	 * @return
-	 *      The calculated radius of the orbitting circles
+	 * Check if the menu is opening, closing, bouncing or moving its items
+	 */
+	private boolean isInMotion() {
+		return mbOpening || mbClosing || (mItemTransition != null) || !mActiveBounces.isEmpty() || !mActiveSprings.isEmpty();
+	}
+
+	/**
+	 * The menu is at rest. Put the items back to their full anti-aliasing, if they moved without it
+	 */
+	private void endMotion() {
+		mQualityController.onMotionEnd();
+		if(mbInMotion) {
+			mbInMotion = false;
+			applyRenderQuality();
+		}
+	}
+
+	/**
+	 * Apply the new quality level to the items, and tell the listener
+	 */
+	private void onQualityLevelChanged() {
+		int nLevel = mQualityController.getLevel();
+		Logger.trace( TraceRingBuffer.EVENT_QUALITY_CHANGE, nLevel, (mQualityController.isAdaptive()) ? 1 : 0 );
+		applyRenderQuality();
+		if(mQualityLevelListener != null)
+			mQualityLevelListener.onQualityLevelChanged( nLevel );
+	}
+
+	/**
+	 * Set the render quality of all the items
+	 */
+	private void applyRenderQuality() {
+		for(int nCtr = 0; nCtr < getChildCount(); ++nCtr)
+			applyRenderQuality( getChildAt( nCtr ) );
+
+		if(mFlatRenderer != null) {
+			mFlatRenderer.setAntiAliased( !mbInMotion || mQualityController.isAntiAliasedInMotion() );
+			invalidate();
+		}
+	}
+
+	/**
+	 * Set the render quality of an item: the shadow is flat from the flat shadows level, and the item is not
+	 * anti-aliased while it moves from the aliased motion level
 	 *
-	 * @author Melvin Lobo
+	 * @param child
+	 *      The child. Ignored if it is not an item
 	 */
-	private int getAppropriateRadius() {
-		/*
-		r = R * sin ( 180 / n ) / ( 1 - sin( 180 / n))
-		 */
-		int numberOfItems = mnRadialChildCount + 1;       //+ 1 for some spacing between the menu item circles
-		return (int)Math.abs((mnVirtualCircumferenceRadius * Math.sin(Math.toRadians( 180 ) / numberOfItems) / (1 - Math.sin(Math.toRadians( 180 ) / numberOfItems))));
+	private void applyRenderQuality( View child ) {
+		if(child instanceof RoundedShadowImageView)
+			((RoundedShadowImageView) child).setRenderQuality( mQualityController.isShadowBlurred(),
+					!mbInMotion || mQualityController.isAntiAliasedInMotion() );
 	}
 
 	/**
-	 * Start Center Animation
+	 * Release memory when the system asks for it: the bitmaps of the items, the flat shadows, the shared bitmap
+	 * cache, the snapshot, the cached submenus and the cached levels
 	 *
-	 * @author Melvin Lobo
+	 * @param nLevel
+	 *      The ComponentCallbacks2 trim level
 	 */
-	public void startCenterAnimation() {
-		/*
-		Scale down all the surrounding radial views till the center animation is done.
-		Also dump all radial children into a list for sequential animation after the
-		center animation is done.
-		 */
+	public void onTrimMemory( int nLevel ) {
 		for(int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
-			final View child = getChildAt( nCtr );
-			LayoutParams params = (LayoutParams) child.getLayoutParams();
-			if ( params.getMenuType() != LayoutParams.CENTER ) {
-				/*
-				Reduce the scale initially till we are done with the center animation
-				 */
-				ViewCompat.setScaleX( child, 0 );
-				ViewCompat.setScaleY( child, 0 );
-				mAnimationQueue.add( child );
+			View child = getChildAt( nCtr );
+			if(child instanceof RoundedShadowImageView)
+				((RoundedShadowImageView) child).onTrimMemory( nLevel );
+		}
+
+		if((mSubmenuLoader != null) && (nLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW))
+			mSubmenuLoader.clearCache();
+		ShaderBitmapCache.onTrimMemory( nLevel );
+
+		if(mLevelCache != null)
+			mLevelCache.onTrimMemory( nLevel );
+		for(BackStackEntry entry : mBackStack) {
+			if(entry.mPinnedLevel == null)
+				continue;
+			for(View child : entry.mPinnedLevel.mChildren) {
+				if(child instanceof RoundedShadowImageView)
+					((RoundedShadowImageView) child).onTrimMemory( nLevel );
 			}
 		}
 
+		if((mSnapshot != null) && (nLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)) {
+			removeCallbacks( mPrepareSnapshotChildRunnable );
+			mSnapshot = null;
+			invalidate();
+		}
+
 		/*
-		 Set the initial scale to zero
+		The flat shadows and icons are blurred and loaded again on the next layout
 		 */
-		ViewCompat.setScaleX( mCenterView.get(), 0 );
-		ViewCompat.setScaleY( mCenterView.get(), 0 );
+		if((mFlatRenderer != null) && (nLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)) {
+			mFlatRenderer.releaseBitmaps();
+			requestLayout();
+		}
+	}
 
-		Handler handler = new Handler(  );
-		handler.postDelayed( new Runnable() {
-			@Override
-			public void run() {
-				/*
-				Bounce the center view.
-				 */
-				bounceView( mCenterView.get(), new SpringAnimator( mCenterView.get(), new SpringEndListener() {
-					@Override
-					public void onSpringRested() {
-						startRadialOutAnimationForNext( null );
-					}
-				} ) );
+	/**
+	 * Find the center child's opaque disc for this frame (or draw the snapshot instead), draw, and record the drawn
+	 * and skipped children in the trace
+	 *
+	 * @param canvas
+	 *      The canvas to draw on
+	 */
+	@Override
+	protected void dispatchDraw( Canvas canvas ) {
+		mnDrawnChildCount = 0;
+		mnSkippedChildCount = 0;
+		if(mSnapshot != null) {
+			canvas.drawBitmap( mSnapshot, 0, 0, null );
+			mnSkippedChildCount = getChildCount();
+			Logger.trace( TraceRingBuffer.EVENT_DRAW, mnDrawnChildCount, mnSkippedChildCount );
+			return;
+		}
 
-			}
-		}, 1000 );
+		updateOccluder();
+		if(mFlatRenderer != null) {
+			mnDrawnChildCount = mFlatRenderer.draw( canvas, getFlatItemStyle( false ), getFlatItemStyle( true ) );
+			mnSkippedChildCount = mFlatRenderer.getItemCount() - mnDrawnChildCount;
+		}
+		super.dispatchDraw( canvas );
+		Logger.trace( TraceRingBuffer.EVENT_DRAW, mnDrawnChildCount, mnSkippedChildCount );
 	}
 
 	/**
-	 * Start Radial animation
+	 * Skip the children that would not show: the ones scaled or faded to nothing, and the ones entirely behind the
+	 * opaque disc of the center child, as at the start of the open animation
+	 */
+	@Override
+	protected boolean drawChild( Canvas canvas, View child, long drawingTime ) {
+		if((child.getAnimation() == null) && (isChildInvisible( child ) || isChildOccluded( child ))) {
+			mnSkippedChildCount++;
+			return false;
+		}
+
+		mnDrawnChildCount++;
+		return super.drawChild( canvas, child, drawingTime );
+	}
+
+	/**
+	 * Check if a child is scaled or faded to nothing
+	 */
+	private boolean isChildInvisible( View child ) {
+		return (child.getScaleX() == 0) || (child.getScaleY() == 0) || (child.getAlpha() == 0);
+	}
+
+	/**
+	 * Check if a child is entirely covered by the opaque disc of the center child. Uses the circle around the
+	 * whole bounds of the child, so that its shadow is covered too. The center child is always drawn last (see
+	 * {@link #getChildDrawingOrder(int, int)}), so it covers any other child
+	 */
+	private boolean isChildOccluded( View child ) {
+		if((mnOccluderRadius <= 0) || (child == mOccluder) || (child.getRotation() != 0))
+			return false;
+
+		float nRadius = (float) Math.hypot( child.getWidth(), child.getHeight() ) / 2 * Math.max( Math.abs( child.getScaleX() ), Math.abs( child.getScaleY() ) );
+		float nCenterX = (child.getLeft() + child.getRight()) / 2f + child.getTranslationX();
+		float nCenterY = (child.getTop() + child.getBottom()) / 2f + child.getTranslationY();
+
+		return Math.hypot( nCenterX - mnOccluderX, nCenterY - mnOccluderY ) + nRadius <= mnOccluderRadius;
+	}
+
+	/**
+	 * Find where the opaque disc of the center child is drawn this frame. Nothing occludes unless the center child
+	 * is drawn as is: fully opaque, evenly scaled around its center and not rotated
+	 */
+	private void updateOccluder() {
+		mnOccluderRadius = 0;
+		mOccluder = null;
+		View centerView = getCenterView();
+		if(!(centerView instanceof RoundedShadowImageView) || (centerView.getParent() != this))
+			return;
+
+		RoundedShadowImageView center = (RoundedShadowImageView) centerView;
+		float nScale = center.getScaleX();
+		if((center.getAlpha() < 1) || (center.getVisibility() != VISIBLE) || (center.getAnimation() != null) ||
+				(nScale != center.getScaleY()) || (center.getRotation() != 0) ||
+				(center.getPivotX() * 2 != center.getWidth()) || (center.getPivotY() * 2 != center.getHeight()))
+			return;
+
+		mOccluder = center;
+		mnOccluderX = (center.getLeft() + center.getRight()) / 2f + center.getTranslationX() + center.getOpaqueDiscOffsetX() * nScale;
+		mnOccluderY = (center.getTop() + center.getBottom()) / 2f + center.getTranslationY() + center.getOpaqueDiscOffsetY() * nScale;
+		mnOccluderRadius = center.getOpaqueDiscRadius() * Math.abs( nScale );
+	}
+
+	/**
+	 * Get the number of children drawn in the last frame. Unlike the draw events of the trace, which is only compiled
+	 * into debug builds, the counts are kept in release builds
 	 *
-	 * @param previousChildDoneWithAnimation
-	 *      Previous child which has completed the animation
+	 * @return
+	 *      The number of children drawn
+	 */
+	public int getDrawnChildCount() {
+		return mnDrawnChildCount;
+	}
+
+	/**
+	 * Get the number of children skipped in the last frame, because they were invisible or covered
 	 *
-	 * @author Melvin Lobo
+	 * @return
+	 *      The number of children skipped
 	 */
-	public void startRadialOutAnimationForNext( View previousChildDoneWithAnimation) {
+	public int getSkippedChildCount() {
+		return mnSkippedChildCount;
+	}
 
-		if(previousChildDoneWithAnimation != null)
-			mAnimationQueue.remove( previousChildDoneWithAnimation );
+	/**
+	 * Start reading the snapshot, in the snapshot mode. Done as soon as the items are known, so that the snapshot is
+	 * likely to be there by the first draw. A snapshot that comes later is not shown
+	 */
+	private void loadSnapshot() {
+		if(!mConfig.isSnapshotEnabled() || (mSnapshotStore != null) || (mPreDrawListener == null))
+			return;
+
+		mSnapshotStore = new SpiderMenuSnapshot( getContext(), getSnapshotDescription() );
+		mSnapshotStore.load( new SpiderMenuSnapshot.LoadListener() {
+			@Override
+			public void onSnapshotLoaded( Bitmap snapshot ) {
+				mbSnapshotLoaded = true;
+				if(snapshot == null)
+					return;
+
+				mnLoadedSnapshotWidth = snapshot.getWidth();
+				mnLoadedSnapshotHeight = snapshot.getHeight();
+				if(mPreDrawListener != null)
+					mLoadedSnapshot = snapshot;
+			}
+		} );
+	}
+
+	/**
+	 * Show the snapshot on the first frame. The children are put in their open state right away, so that they take
+	 * the touches, and they are drawn instead of the snapshot once their bitmaps are ready
+	 */
+	private void showSnapshot() {
+		showRestoredState( true );
+		mSnapshot = mLoadedSnapshot;
+		mnSnapshotPrepareIndex = 0;
+		ViewCompat.postOnAnimation( this, mPrepareSnapshotChildRunnable );
+	}
 
-		if(mAnimationQueue.isEmpty())
+	/**
+	 * Take a snapshot once the open menu comes to rest, if there is none of this size yet
+	 */
+	private void scheduleSnapshotCapture() {
+		if(mSnapshotStore == null)
 			return;
 
-		/*
-		Get the child and its layout params to figure out if its a radial item or the center item
-		 */
-		final View child = mAnimationQueue.get( 0 );
-		springOutRadialChild( child );
-		bounceView( mCenterView.get(), new SpringAnimator( mCenterView.get(), null ) );
+		removeCallbacks( mCaptureSnapshotRunnable );
+		postDelayed( mCaptureSnapshotRunnable, SNAPSHOT_RETRY_DELAY );
 	}
 
-	@Override
-	protected void onFinishInflate() {
-		super.onFinishInflate();
+	/**
+	 * Draw the open menu into a bitmap and store it. Only for the items the snapshot was loaded for, and not with
+	 * hardware bitmaps, which cannot be drawn on a software canvas
+	 */
+	private void captureSnapshot() {
+		if(!mbSnapshotLoaded || (getWidth() <= 0) || (getHeight() <= 0) ||
+				((mnLoadedSnapshotWidth == getWidth()) && (mnLoadedSnapshotHeight == getHeight())) ||
+				!getSnapshotDescription().equals( mSnapshotStore.getDescription() ))
+			return;
+
 		for(int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
-			View view = getChildAt( nCtr );
-			if(!(view instanceof RoundedShadowImageView))
-				throw  new IllegalArgumentException( "The children should be of type RoundedShadowImageView" );
+			View child = getChildAt( nCtr );
+			if((child instanceof RoundedShadowImageView) && ((RoundedShadowImageView) child).isHardwareBitmapRequested())
+				return;
+		}
 
-			((RoundedShadowImageView)view).setViewClickListener( this );
+		try {
+			Bitmap snapshot = Bitmap.createBitmap( getWidth(), getHeight(), Bitmap.Config.ARGB_8888 );
+			draw( new Canvas( snapshot ) );
+			mSnapshotStore.save( snapshot );
+			mnLoadedSnapshotWidth = getWidth();
+			mnLoadedSnapshotHeight = getHeight();
+		}
+		catch ( OutOfMemoryError e ) {
+			Logger.d( "Out of memory exception when taking the menu snapshot" );
+		}
+	}
+
+	/**
+	 * Describe everything the picture of the menu depends on, but the size: the density, the config, the styles and
+	 * the items, with the styles of their own for the children from the layout xml
+	 */
+	private String getSnapshotDescription() {
+		StringBuilder description = new StringBuilder();
+		description.append( getResources().getDisplayMetrics().densityDpi )
+				.append( '/' ).append( mConfig.getRadialMenuRadius() )
+				.append( '/' ).append( mConfig.getCenterMenuRadius() )
+				.append( '/' ).append( mConfig.getLayoutMode() )
+				.append( '/' ).append( mConfig.getRenderMode() )
+				.append( '/' ).append( getFlatItemStyle( false ).hashCode() )
+				.append( '/' ).append( getFlatItemStyle( true ).hashCode() );
+
+		if(mItems != null) {
+			for(SpiderMenuItem item : mItems)
+				description.append( '/' ).append( item.getID() ).append( ':' ).append( item.getDrawableResourceID() ).append( ':' ).append( item.getMenuType() )
+						.append( ':' ).append( item.getWeight() );
 		}
+		else {
+			for(int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
+				View child = getChildAt( nCtr );
+				LayoutParams params = (LayoutParams) child.getLayoutParams();
+				description.append( '/' ).append( child.getId() ).append( ':' ).append( params.getMenuType() ).append( ':' ).append( params.getWeight() );
+				if(child instanceof RoundedShadowImageView)
+					description.append( ':' ).append( ((RoundedShadowImageView) child).getItemStyle().hashCode() );
+			}
+		}
+
+		return description.toString();
+	}
+
+	/**
+	 * Save whether the menu is open, the menu level shown, the levels on the back stack and the fitted geometry, so
+	 * that a menu recreated after a configuration change shows up as it was, without playing the open animation again
+	 *
+	 * @return
+	 *      The saved state
+	 */
+	@Override
+	protected Parcelable onSaveInstanceState() {
+		SavedState state = new SavedState( super.onSaveInstanceState() );
+		state.mbOpen = mbOpen;
+		state.mnMenuLevelID = mnMenuLevelID;
+		state.mnBackStackLevelIDs = new int[mBackStack.size()];
+		for(int nCtr = 0; nCtr < mBackStack.size(); ++nCtr)
+			state.mnBackStackLevelIDs[nCtr] = mBackStack.get( nCtr ).mnLevelID;
+		state.mnCanvasSize = mnCanvasSize;
+		state.mnRadialChildCount = mnRadialChildCount;
+		state.mnMenuItemRadius = mnCurrentMenuItemRadius;
+		state.mnVirtualCircumferenceRadius = mnVirtualCircumferenceRadius;
+		state.mnCenterMenuRadius = mnCenterMenuRadius;
+		return state;
 	}
 
 	/**
-	 * Handles the bounce out animation for the radial menu items
-	 * @param child
-	 *      The child which needs to be animated
+	 * Restore the saved state. The submenu shown and the back stack are restored from the menu resource, if the menu
+	 * has one; menus with items of their own get them from the app as usual. The menu is then drawn in its final
+	 * state on the first frame
 	 *
-	 * @author Melvin Lobo
+	 * @param state
+	 *      The saved state
 	 */
-	private void springOutRadialChild( final View child) {
-		/*
-		Get the center of the View group
-		 */
-		int nCenter = mnCanvasSize / 2;
+	@Override
+	protected void onRestoreInstanceState( Parcelable state ) {
+		if(!(state instanceof SavedState)) {
+			super.onRestoreInstanceState( state );
+			return;
+		}
+
+		SavedState savedState = (SavedState) state;
+		super.onRestoreInstanceState( savedState.getSuperState() );
+
+		mnMenuLevelID = savedState.mnMenuLevelID;
+		if((mMenuDefinition != null) && (mnMenuLevelID != View.NO_ID)) {
+			List<SpiderMenuItem> submenu = mMenuDefinition.findSubMenu( mnMenuLevelID );
+			if(submenu != null)
+				setItems( submenu );
+		}
+		if(mMenuDefinition != null)
+			restoreBackStack( savedState.mnBackStackLevelIDs );
+
+		mRestoredGeometry = savedState;
+		requestLayout();
 
 		/*
-		For Radial items, start the animation. Calculate the distance to align
-		the center of the Viewgroup and View and animate from there:
-		For X - Center - child left - half of width(to align center)
-		For Y - Center - child left - half of height(to align center)
+		Show the state right away if the first draw is done already, else on the first draw
 		 */
-		ViewCompat.setTranslationX( child, ( nCenter - child.getLeft() - (child.getWidth() / 2) ));
-		ViewCompat.setTranslationY( child, ( nCenter - child.getTop() - (child.getHeight() / 2) ));
-		ViewCompat.setAlpha( child, 0 );
-		ViewCompat.setScaleX( child, 1 );       //Ensure the scale is one, because it might have been set to zero during the initial animation
-		ViewCompat.setScaleY( child, 1 );       //Ensure the scale is one, because it might have been set to zero during the initial animation
-		ViewCompat.animate( child )
-				.translationX( 0 )
-				.translationY( 0 )
-				.alpha( 1 )
-				.setInterpolator( new DecelerateInterpolator() )
-				.setDuration( 350 )
-				.withLayer()
-				.withEndAction( new Runnable() {
-					@Override
-					public void run() {
-						/*ViewCompat.setScaleX( child, 0.6f );
-						ViewCompat.setScaleY( child, 0.6f );*/
-						startRadialOutAnimationForNext( child );
-						bounceView( child, new SpringAnimator( child, null) );
-					}
-				} );
+		if(mPreDrawListener == null)
+			showRestoredState( savedState.mbOpen );
+		else
+			mRestoredState = savedState;
 	}
 
 	/**
-	 * Close animation by consolidating the children
+	 * Rebuild the back stack from the menu resource. Left empty if any of the levels is not in the menu resource
+	 * anymore
 	 *
-	 * @author Melvin Lobo
+	 * @param nLevelIDs
+	 *      The saved level ids, from the bottom of the stack
 	 */
-	private void springInChildren() {
+	private void restoreBackStack( int[] nLevelIDs ) {
+		ArrayList<BackStackEntry> backStack = new ArrayList<>( nLevelIDs.length );
+		for(int nLevelID : nLevelIDs) {
+			List<SpiderMenuItem> items = (nLevelID == View.NO_ID) ? mMenuDefinition.getItems() : mMenuDefinition.findSubMenu( nLevelID );
+			if(items == null)
+				return;
+			backStack.add( new BackStackEntry( nLevelID, items ) );
+		}
 
-		/*
-		Get the center of the View group
-		 */
-		int nCenter = mnCanvasSize / 2;
+		mBackStack.clear();
+		mBackStack.addAll( backStack );
+	}
 
-		for(int nCtr = 0; nCtr < getChildCount(); ++nCtr) {
-			final View child = getChildAt( nCtr );
+	/**
+	 * Show the menu open or closed, as it is at the end of the animations, and drop the pending animations
+	 *
+	 * @param bOpen
+	 *      true if the menu is open
+	 */
+	private void showRestoredState( boolean bOpen ) {
+		cancelItemTransition( true );
+		removeCallbacks( mStartAnimationRunnable );
+		removeCallbacks( mBounceCenterRunnable );
+		mAnimationQueue.clear();
+		endSequence( true );
+		endSequence( false );
+		mbOpen = bOpen;
+
+		if(mFlatRenderer != null) {
+			if(mFlatAnimator != null) {
+				mFlatAnimator.removeAllListeners();
+				mFlatAnimator.cancel();
+				mFlatAnimator = null;
+			}
+			mFlatRenderer.setProgress( (bOpen) ? 1 : 0 );
+		}
 
-			LayoutParams params = (LayoutParams) child.getLayoutParams();
-			if ( params.getMenuType() == LayoutParams.CENTER )
-				continue;
+		for(int nCtr = 0; nCtr < getChildCount(); ++nCtr)
+			settleChild( getChildAt( nCtr ), bOpen );
 
-			/*
-			For Radial items, start the animation. Calculate the distance to align
-			the center of the Viewgroup and View and animate from there:
-			For X - Center - child left - half of width(to align center)
-			For Y - Center - child left - half of height(to align center)
-			 */
-			ViewCompat.setAlpha( child, 1 );
-			ViewCompat.setScaleX( child, 1 );       //Ensure the scale is one, because it might have been set to zero during the initial animation
-			ViewCompat.setScaleY( child, 1 );       //Ensure the scale is one, because it might have been set to zero during the initial animation
-			ViewCompat.animate( child )
-					.translationX( ( nCenter - child.getLeft() - (child.getWidth() / 2) ) )
-					.translationY( ( nCenter - child.getTop() - (child.getHeight() / 2) ) )
-					.alpha( 0 )
-					.scaleX( 0 )
-					.scaleY( 0 )
-					.setInterpolator( new DecelerateInterpolator() )
-					.setDuration( 250 )
-					.withLayer()
-					.withEndAction( new Runnable() {
-						@Override
-						public void run() {
-							bounceView( mCenterView.get(), new SpringAnimator( mCenterView.get(), new SpringEndListener() {
-								@Override
-								public void onSpringRested() {
-									ViewCompat.animate( mCenterView.get() )
-											  .scaleX( 0 )
-											  .scaleY( 0 )
-											  .withLayer();
-								}
-							} ) );
-						}
-					} );
-		}
+		invalidate();
 	}
 
 	/**
-	 * Bounce the view. Will use the respective values for center and radial view
-	 * @param child
-	 *      The child that has to be bounced
-	 * @param springAnimator
-	 *      The spring animator with the listener to be invoked.
-	 *      Set null if you dont need to intercept the spring animation end
+	 * Put a child where the open or the close animation leaves it
 	 *
-	 * @author Melvin Lobo
+	 * @param child
+	 *      The child
+	 * @param bOpen
+	 *      true if the menu is open
 	 */
-	private void bounceView(View child, SpringAnimator springAnimator) {
-		LayoutParams params = (LayoutParams) child.getLayoutParams();
-
-		if(params.getMenuType() == LayoutParams.CENTER) {
-			Spring centerScaleSpring = mSpringSystem.createSpring();
-			centerScaleSpring.setSpringConfig( new SpringConfig( CENTER_SCALE_TENSION, CENTER_SCALE_FRICTION ) );
-			centerScaleSpring.setEndValue( 1 );
-			centerScaleSpring.addListener( springAnimator );
-		}
-		else {
-			Spring radialScaleSpring = mSpringSystem.createSpring();
-			radialScaleSpring.setSpringConfig( new SpringConfig( RADIAL_SCALE_TENSION, RADIAL_SCALE_FRICTION ) );
-			radialScaleSpring.setEndValue( 1 );
-			radialScaleSpring.addListener( springAnimator );
-		}
+	private void settleChild( View child, boolean bOpen ) {
+		ViewCompat.animate( child ).cancel();
+		ViewCompat.setTranslationX( child, 0 );
+		ViewCompat.setTranslationY( child, 0 );
+		ViewCompat.setScaleX( child, (bOpen) ? 1 : 0 );
+		ViewCompat.setScaleY( child, (bOpen) ? 1 : 0 );
+		ViewCompat.setAlpha( child, 1 );
 	}
 
 	/**
@@ -653,6 +3226,22 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 		return new LayoutParams( p );
 	}
 
+	/**
+	 * Draw the center child last, above the radial children, without moving it in the child array. The children
+	 * stay in the order of the items, which setItems and the layout rely on
+	 */
+	@Override
+	protected int getChildDrawingOrder( int nChildCount, int nDrawingPosition ) {
+		View centerView = getCenterView();
+		int nCenterIndex = (centerView != null) ? indexOfChild( centerView ) : -1;
+		if((nCenterIndex < 0) || (nCenterIndex >= nChildCount))
+			return nDrawingPosition;
+
+		if(nDrawingPosition == nChildCount - 1)
+			return nCenterIndex;
+		return (nDrawingPosition >= nCenterIndex) ? (nDrawingPosition + 1) : nDrawingPosition;
+	}
+
 	/**
 	 * On View click
 	 *
@@ -661,9 +3250,27 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 	 */
 	@Override
 	public void onViewClick( int nID ) {
+		Logger.trace( TraceRingBuffer.EVENT_CLICK, nID, 0 );
+		boolean bBack = !mBackStack.isEmpty() && isCenterItem( nID );
+		if((mSelectionModel != null) && !bBack)       //Going back is navigation, not a choice of the item
+			mSelectionModel.recordSelection( mnMenuLevelID, nID );
 		if(mSpiderMenuClickListener != null)
 			mSpiderMenuClickListener.onSpiderMenuClick( nID );
-		springInChildren();
+		if((mSpiderMenuItemClickListener != null) || (mSubmenuLoadListener != null)) {
+			SpiderMenuItem item = findMenuItem( nID );
+			if((item != null) && (mSpiderMenuItemClickListener != null))
+				mSpiderMenuItemClickListener.onSpiderMenuItemClick( item );
+			if((item != null) && !bBack && (mSubmenuLoader != null) && (mSubmenuLoadListener != null))
+				mSubmenuLoader.load( item, mSubmenuLoadListener );
+		}
+
+		/*
+		The center item of a submenu goes back to the previous level, which is shown right away
+		 */
+		if(bBack)
+			showPreviousLevel();
+		else
+			springInChildren();
 	}
 
 	////////////////////////////////////// INNER CLASSES ///////////////////////////////////////////
@@ -709,6 +3316,25 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 		 */
 		private int mnMenuType = RADIAL;
 
+		/**
+		 * The size of a radial item relative to the others. Items of weight 2 are twice as large as the items of
+		 * weight 1
+		 */
+		private float mnWeight = 1;
+
+		/**
+		 * The center the last layout gave the child, and the item transition from where it was drawn to there
+		 */
+		float mnLayoutCenterX = 0;
+		float mnLayoutCenterY = 0;
+		boolean mbLaidOut = false;
+		float mnFromAngle = 0;
+		float mnToAngle = 0;
+		float mnFromOrbit = 0;
+		float mnToOrbit = 0;
+		float mnFromScale = 1;
+		boolean mbGrowIn = false;
+
 		//////////////////////////////////// CLASS METHODS /////////////////////////////////////////
 
 		/**
@@ -734,6 +3360,7 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 			TypedArray a = c.obtainStyledAttributes(attrs,
 					R.styleable.SpiderMenu);
 			mnMenuType = a.getInt(R.styleable.SpiderMenu_menuType, RADIAL);
+			setWeight( a.getFloat( R.styleable.SpiderMenu_menuWeight, 1 ) );
 
 			a.recycle();
 		}
@@ -784,6 +3411,22 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 		public int getMenuType() {
 			return mnMenuType;
 		}
+
+		/**
+		 * Set the weight of a radial item, i.e. its size relative to the other radial items
+		 *
+		 * @param nWeight
+		 *      The weight. Must be positive
+		 */
+		public void setWeight( float nWeight ) {
+			if(!(nWeight > 0))
+				throw new IllegalArgumentException( "The menu item weight should be positive" );
+			mnWeight = nWeight;
+		}
+
+		public float getWeight() {
+			return mnWeight;
+		}
 	}
 
 	/**
@@ -799,13 +3442,23 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 			Remove the pre draw listener as we will do the animations only once
 			 */
 			getViewTreeObserver().removeOnPreDrawListener(this);
-			Handler handler = new Handler();
-			handler.post( new Runnable() {
-				@Override
-				public void run() {
-					startCenterAnimation();
-				}
-			} );
+			mPreDrawListener = null;
+
+			/*
+			A restored menu shows its saved state on the first frame, without the animation. So does a menu with a
+			snapshot, showing the snapshot till the children are ready
+			 */
+			if(mRestoredState != null) {
+				showRestoredState( mRestoredState.mbOpen );
+				mRestoredState = null;
+			}
+			else if((mLoadedSnapshot != null) && (mLoadedSnapshot.getWidth() == getWidth()) && (mLoadedSnapshot.getHeight() == getHeight())) {
+				showSnapshot();
+			}
+			else {
+				post( mStartAnimationRunnable );
+			}
+			mLoadedSnapshot = null;
 
 			/*
 			Return true so that the drawing can continue
@@ -814,6 +3467,152 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 		}
 	}
 
+	/**
+	 * The state saved across configuration changes: open or closed, the menu level, the levels on the back stack
+	 * and the fitted geometry
+	 */
+	static class SavedState extends BaseSavedState {
+		private boolean mbOpen;
+		private int mnMenuLevelID;
+		private int[] mnBackStackLevelIDs = new int[0];
+		private int mnCanvasSize;
+		private int mnRadialChildCount;
+		private int mnMenuItemRadius;
+		private int mnVirtualCircumferenceRadius;
+		private int mnCenterMenuRadius;
+
+		SavedState( Parcelable superState ) {
+			super( superState );
+		}
+
+		private SavedState( Parcel in ) {
+			super( in );
+			mbOpen = (in.readInt() != 0);
+			mnMenuLevelID = in.readInt();
+			mnBackStackLevelIDs = in.createIntArray();
+			mnCanvasSize = in.readInt();
+			mnRadialChildCount = in.readInt();
+			mnMenuItemRadius = in.readInt();
+			mnVirtualCircumferenceRadius = in.readInt();
+			mnCenterMenuRadius = in.readInt();
+		}
+
+		@Override
+		public void writeToParcel( Parcel out, int flags ) {
+			super.writeToParcel( out, flags );
+			out.writeInt( (mbOpen) ? 1 : 0 );
+			out.writeInt( mnMenuLevelID );
+			out.writeIntArray( mnBackStackLevelIDs );
+			out.writeInt( mnCanvasSize );
+			out.writeInt( mnRadialChildCount );
+			out.writeInt( mnMenuItemRadius );
+			out.writeInt( mnVirtualCircumferenceRadius );
+			out.writeInt( mnCenterMenuRadius );
+		}
+
+		public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+			@Override
+			public SavedState createFromParcel( Parcel in ) {
+				return new SavedState( in );
+			}
+
+			@Override
+			public SavedState[] newArray( int size ) {
+				return new SavedState[size];
+			}
+		};
+	}
+
+	/**
+	 * A level on the back stack: the level id and the items, and the detached level itself for children from the
+	 * layout xml, which cannot be created again
+	 */
+	private static final class BackStackEntry {
+		final int mnLevelID;
+		final List<SpiderMenuItem> mItems;
+		MenuLevelCache.MenuLevel mPinnedLevel = null;
+
+		BackStackEntry( int nLevelID, List<SpiderMenuItem> items ) {
+			mnLevelID = nLevelID;
+			mItems = items;
+		}
+	}
+
+	/**
+	 * Passes the memory callbacks of the application on to the menu
+	 */
+	private class MemoryCallbacks implements ComponentCallbacks2 {
+		@Override
+		public void onTrimMemory( int nLevel ) {
+			SpiderMenu.this.onTrimMemory( nLevel );
+		}
+
+		@Override
+		public void onLowMemory() {
+			SpiderMenu.this.onTrimMemory( ComponentCallbacks2.TRIM_MEMORY_COMPLETE );
+		}
+
+		@Override
+		public void onConfigurationChanged( Configuration newConfig ) {
+
+		}
+	}
+
+	/**
+	 * The virtual view hierarchy of the flat render mode. Every item is a virtual view, with the item position as
+	 * its id
+	 */
+	private class FlatAccessibilityHelper extends ExploreByTouchHelper {
+		private final Rect mBounds = new Rect();
+
+		public FlatAccessibilityHelper() {
+			super( SpiderMenu.this );
+		}
+
+		@Override
+		protected int getVirtualViewAt( float x, float y ) {
+			int nItem = mFlatRenderer.findItemAt( x, y );
+			return (nItem != FlatMenuRenderer.NO_ITEM) ? nItem : INVALID_ID;
+		}
+
+		@Override
+		protected void getVisibleVirtualViews( List<Integer> virtualViewIds ) {
+			for(int nCtr = 0; nCtr < mFlatRenderer.getItemCount(); ++nCtr)
+				virtualViewIds.add( nCtr );
+		}
+
+		@Override
+		protected void onPopulateEventForVirtualView( int virtualViewId, AccessibilityEvent event ) {
+			event.setContentDescription( getItemDescription( virtualViewId ) );
+		}
+
+		@Override
+		protected void onPopulateNodeForVirtualView( int virtualViewId, AccessibilityNodeInfoCompat node ) {
+			node.setContentDescription( getItemDescription( virtualViewId ) );
+			mFlatRenderer.getItemBounds( virtualViewId, mBounds );
+			node.setBoundsInParent( mBounds );
+			node.addAction( AccessibilityNodeInfoCompat.ACTION_CLICK );
+		}
+
+		@Override
+		protected boolean onPerformActionForVirtualView( int virtualViewId, int action, Bundle arguments ) {
+			if((action != AccessibilityNodeInfoCompat.ACTION_CLICK) || (virtualViewId >= mFlatRenderer.getItemCount()))
+				return false;
+
+			onViewClick( mFlatRenderer.getItemID( virtualViewId ) );
+			sendEventForVirtualView( virtualViewId, AccessibilityEvent.TYPE_VIEW_CLICKED );
+			return true;
+		}
+
+		/**
+		 * Get the description of an item. The title, or its position if it has none
+		 */
+		private CharSequence getItemDescription( int nItem ) {
+			CharSequence title = (nItem < mFlatRenderer.getItemCount()) ? mFlatRenderer.getItemTitle( nItem ) : null;
+			return ((title != null) && (title.length() > 0)) ? title : getContext().getString( R.string.spider_menu_item, nItem + 1 );
+		}
+	}
+
 	/**
 	 * Class which will take a view and do a spring animation on its scale
 	 *
@@ -850,13 +3649,29 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 		 */
 		@Override
 		public void onSpringUpdate( Spring spring ) {
+			SpiderMenuTrace.beginSection( SpiderMenuTrace.SECTION_SPRING_UPDATE );
+			applyValue( spring.getCurrentValue() );
+			SpiderMenuTrace.endSection();
+		}
+
+		/**
+		 * Scale the view for a spring value, from either spring mode
+		 *
+		 * @param nValue
+		 *      The value of the spring, from 0 to 1 (it overshoots while bouncing)
+		 */
+		void applyValue( double nValue ) {
 			/*
-			Map our current value to scale values. Rebound has a nifty SpringUtil class to do that
-			We map our values between scale 0.3 to 1 (Range of 30% to 100%)
+			Map our current value to scale values, between 0.8 and 1 (Range of 80% to 100%)
 			 */
-			double nMappedValue = SpringUtil.mapValueFromRangeToRange( spring.getCurrentValue(), 0.0d, 1.0d, 0.8d, 1.0d);
-			mView.get().setScaleX( (float)nMappedValue );
-			mView.get().setScaleY( (float)nMappedValue );
+			double nMappedValue = 0.8d + (0.2d * nValue);
+			if(Logger.LOGGING_COMPILED && Logger.isTraceEnabled())
+				Logger.trace( TraceRingBuffer.EVENT_SPRING_UPDATE, System.identityHashCode( this ), (int) (nMappedValue * 1000) );
+			View view = mView.get();
+			if(view != null) {
+				view.setScaleX( (float)nMappedValue );
+				view.setScaleY( (float)nMappedValue );
+			}
 		}
 
 		/**
@@ -866,6 +3681,23 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 		 */
 		@Override
 		public void onSpringAtRest( Spring spring ) {
+			if(Logger.LOGGING_COMPILED && Logger.isTraceEnabled())
+				Logger.trace( TraceRingBuffer.EVENT_SPRING_REST, System.identityHashCode( this ), 0 );
+			SpiderMenuTrace.beginSection( SpiderMenuTrace.SECTION_SPRING_REST );
+			onSpringRested();
+
+			/*
+			Done with the spring. Remove it from the system, so that it is not iterated on every frame
+			 */
+			mActiveSprings.remove( spring );
+			spring.destroy();
+			SpiderMenuTrace.endSection();
+		}
+
+		/**
+		 * Notify the end listener that the animation is done
+		 */
+		public void onSpringRested() {
 			if(mEndListener != null)
 				mEndListener.onSpringRested();
 		}
@@ -898,39 +3730,80 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 	 */
 	public static class SpiderMenuItem {
 		//////////////////////////////////// CLASS MEMBERS /////////////////////////////////////////
+		/**
+		 * The id of the menu item. Used as the id of its view, and to match the items when they are replaced
+		 */
+		private int mnID = View.NO_ID;
+
 		/**
 		 * The Drawable resource to be used to represent this menu item
 		 */
 		private int mnDrawableResourceID = 0;
 
+		/**
+		 * The title of the menu item
+		 */
+		private CharSequence mTitle = null;
+
 		/**
 		 * The menu item type
 		 */
 		private int mnMenuType = LayoutParams.RADIAL;
 
+		/**
+		 * The size of the item relative to the other radial items
+		 */
+		private float mnWeight = 1;
+
 		/**
 		 * The list of sub menus for this menu
 		 */
-		private ArrayList<SpiderMenuItem> mMenuItemList = null;
+		private List<SpiderMenuItem> mMenuItemList = null;
+
+		/**
+		 * Items compiled from a menu resource are shared, and cannot be modified
+		 */
+		private boolean mbReadOnly = false;
 
 		//////////////////////////////////// CLASS METHODS /////////////////////////////////////////
 
 		/**
-		 * Getters and Setters
+		 * Getters and Setters. The setters throw an UnsupportedOperationException on the items of a
+		 * {@link SpiderMenuDefinition}
 		 */
+		public int getID() {
+			return mnID;
+		}
+
+		public void setID( int nID ) {
+			checkWritable();
+			mnID = nID;
+		}
+
 		public int getDrawableResourceID() {
 			return mnDrawableResourceID;
 		}
 
 		public void setDrawableResourceID( int nDrawableResourceID ) {
+			checkWritable();
 			mnDrawableResourceID = nDrawableResourceID;
 		}
 
-		public ArrayList<SpiderMenuItem> getMenuItemList() {
+		public CharSequence getTitle() {
+			return mTitle;
+		}
+
+		public void setTitle( CharSequence title ) {
+			checkWritable();
+			mTitle = title;
+		}
+
+		public List<SpiderMenuItem> getMenuItemList() {
 			return mMenuItemList;
 		}
 
-		public void setMenuItemList( ArrayList<SpiderMenuItem> menuItemList ) {
+		public void setMenuItemList( List<SpiderMenuItem> menuItemList ) {
+			checkWritable();
 			mMenuItemList = menuItemList;
 		}
 
@@ -943,12 +3816,62 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 		}
 
 		public void setMenuType( int nMenuType ) {
+			checkWritable();
 			mnMenuType = nMenuType;
 		}
 
+		public float getWeight() {
+			return mnWeight;
+		}
+
+		public void setWeight( float nWeight ) {
+			checkWritable();
+			if(!(nWeight > 0))
+				throw new IllegalArgumentException( "The menu item weight should be positive" );
+			mnWeight = nWeight;
+		}
+
+		public boolean isReadOnly() {
+			return mbReadOnly;
+		}
+
+		/**
+		 * Freeze the item once its menu resource is compiled
+		 */
+		void setReadOnly() {
+			mbReadOnly = true;
+		}
+
+		private void checkWritable() {
+			if(mbReadOnly)
+				throw new UnsupportedOperationException( "Menu items compiled from a menu resource cannot be modified" );
+		}
+	}
+
+	/**
+	 * A bounce of the analytic spring mode: the animator that scales the view, the spring, and the animation time the
+	 * bounce started at
+	 */
+	private static class SpringBounce {
+		final SpringAnimator mAnimator;
+		final AnalyticSpring mSpring;
+		final long mnStartTime;
+
+		SpringBounce( SpringAnimator animator, AnalyticSpring spring, long nStartTime ) {
+			mAnimator = animator;
+			mSpring = spring;
+			mnStartTime = nStartTime;
+		}
 	}
 
 	///////////////////////////////////////// INTERFACES ///////////////////////////////////////////
+	/**
+	 * Render quality level change listener. Told of the adaptive changes, and of the levels set manually
+	 */
+	public interface QualityLevelListener {
+		void onQualityLevelChanged(int nLevel);
+	}
+
 	/**
 	 * Spring animation end notification listener
 	 *
@@ -966,4 +3889,11 @@ public class SpiderMenu extends ViewGroup implements RoundedShadowImageView.View
 	public interface SpiderMenuClickListener {
 		void onSpiderMenuClick(int nID);
 	}
+
+	/**
+	 * Interface for item click listener. Gets the clicked item from the menu resource or the items
+	 */
+	public interface SpiderMenuItemClickListener {
+		void onSpiderMenuItemClick(SpiderMenuItem item);
+	}
 }
@@ -0,0 +1,189 @@
+package com.abysmel.spidermenu;
+
+import android.content.Context;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.abysmel.spidermenu.SpiderMenu.SpiderMenuItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Builds a SpiderMenu on a background executor: the menu and its items are created, the menu resource is parsed,
+ * and, given the size the menu will have, the menu is measured and laid out and the bitmaps of the items are
+ * decoded and scaled. The menu is then handed to the main thread, ready to be added to a parent.
+ *
+ * The menu is not attached to anything till it is handed over, so it is only touched by one thread at a time. The
+ * springs and the animations are set up once it is attached, on the main thread, as usual. Use the activity as the
+ * context, so that the menu gets its theme.
+ */
+public class SpiderMenuAsyncBuilder {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * The context of the menu
+	 */
+	private final Context mContext;
+
+	/**
+	 * The config, or null for the default config
+	 */
+	private SpiderMenuConfig mConfig = null;
+
+	/**
+	 * The menu resource, or the items. The resource wins if both are set
+	 */
+	private int mnMenuResourceID = 0;
+	private List<SpiderMenuItem> mItems = null;
+
+	/**
+	 * The size the menu will be laid out at, or 0 to leave the layout and the bitmaps to the main thread
+	 */
+	private int mnWidth = 0;
+	private int mnHeight = 0;
+
+	/**
+	 * The executor to build the menu on
+	 */
+	private Executor mExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+
+	/**
+	 * The listener of the build in flight. Dropped on cancel
+	 */
+	private BuildListener mListener = null;
+
+	/**
+	 * Handler to get back on the main thread
+	 */
+	private final Handler mHandler = new Handler( Looper.getMainLooper() );
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Constructor
+	 *
+	 * @param context
+	 *      The context of the menu, usually the activity
+	 */
+	public SpiderMenuAsyncBuilder( Context context ) {
+		mContext = context;
+	}
+
+	public SpiderMenuAsyncBuilder setConfig( SpiderMenuConfig config ) {
+		mConfig = config;
+		return this;
+	}
+
+	public SpiderMenuAsyncBuilder setMenu( int nMenuResourceID ) {
+		mnMenuResourceID = nMenuResourceID;
+		return this;
+	}
+
+	/**
+	 * Set the items. The list is copied, so it can be changed once the build is started
+	 */
+	public SpiderMenuAsyncBuilder setItems( List<SpiderMenuItem> items ) {
+		mItems = new ArrayList<>( items );
+		return this;
+	}
+
+	/**
+	 * Set the size the menu will have once it is added, so that it is laid out and its bitmaps are ready in the
+	 * background. If the parent gives the menu another size, the bitmaps are made again on the main thread
+	 *
+	 * @param nWidth
+	 *      The width in pixels
+	 * @param nHeight
+	 *      The height in pixels
+	 */
+	public SpiderMenuAsyncBuilder setSize( int nWidth, int nHeight ) {
+		mnWidth = nWidth;
+		mnHeight = nHeight;
+		return this;
+	}
+
+	public SpiderMenuAsyncBuilder setExecutor( Executor executor ) {
+		mExecutor = executor;
+		return this;
+	}
+
+	/**
+	 * Build the menu in the background. Must be called on the main thread. A build that is started again replaces
+	 * the listener of the one in flight
+	 *
+	 * @param listener
+	 *      Called on the main thread with the menu, or with null if the build failed
+	 */
+	public void build( final BuildListener listener ) {
+		mListener = listener;
+
+		final SpiderMenuConfig config = mConfig;
+		final int nMenuResourceID = mnMenuResourceID;
+		final List<SpiderMenuItem> items = mItems;
+		final int nWidth = mnWidth;
+		final int nHeight = mnHeight;
+
+		mExecutor.execute( new Runnable() {
+			@Override
+			public void run() {
+				SpiderMenu menu = null;
+				try {
+					menu = buildMenu( config, nMenuResourceID, items, nWidth, nHeight );
+				}
+				catch ( RuntimeException e ) {
+					Logger.e( "Building the menu failed: %s", e );
+				}
+
+				final SpiderMenu result = menu;
+				mHandler.post( new Runnable() {
+					@Override
+					public void run() {
+						if(mListener == listener) {
+							mListener = null;
+							listener.onSpiderMenuBuilt( result );
+						}
+					}
+				} );
+			}
+		} );
+	}
+
+	/**
+	 * Drop the listener of the build in flight, e.g. when the activity goes away. The build still completes
+	 */
+	public void cancel() {
+		mListener = null;
+	}
+
+	/**
+	 * Create the menu and its items, and prepare it at the given size. Called on the executor
+	 */
+	private SpiderMenu buildMenu( SpiderMenuConfig config, int nMenuResourceID, List<SpiderMenuItem> items, int nWidth, int nHeight ) {
+		SpiderMenuTrace.beginSection( SpiderMenuTrace.SECTION_ASYNC_BUILD );
+		try {
+			SpiderMenu menu = new SpiderMenu( mContext, (config != null) ? config : SpiderMenuConfig.getDefault( mContext ) );
+			if(nMenuResourceID != 0)
+				menu.setMenu( nMenuResourceID );
+			else if(items != null)
+				menu.setItems( items );
+
+			if((nWidth > 0) && (nHeight > 0))
+				menu.prepareDetached( nWidth, nHeight );
+
+			return menu;
+		}
+		finally {
+			SpiderMenuTrace.endSection();
+		}
+	}
+
+	///////////////////////////////////////// INTERFACES ///////////////////////////////////////////
+	/**
+	 * Build listener. Called on the main thread, with a null menu if the build failed
+	 */
+	public interface BuildListener {
+		void onSpiderMenuBuilt(SpiderMenu menu);
+	}
+}
@@ -0,0 +1,530 @@
+package com.abysmel.spidermenu;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+
+/**
+ * Immutable configuration of a {@link SpiderMenu}: the radii, the spring tensions and frictions, the animation
+ * durations, the layout and render modes and the item styles. Dimensions are resolved to pixels.
+ *
+ * The default configuration and configurations defined by a style resource (the style attribute of a SpiderMenu
+ * without inline config attributes) are resolved once per resource configuration and shared, so that SpiderMenus in list rows
+ * can be created without re-resolving attributes or dimensions.
+ */
+public final class SpiderMenuConfig {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * Layout modes. Matches the menuLayoutMode enum in attrs.xml
+	 */
+	public static final int LAYOUT_MODE_FIT = 0;        //Shrink the radial items till they fit on the virtual circumference
+	public static final int LAYOUT_MODE_FIXED = 1;      //Keep the radial item radius as configured
+
+	/**
+	 * Render modes. Matches the menuRenderMode enum in attrs.xml
+	 */
+	public static final int RENDER_MODE_VIEWS = 0;      //Every item is a RoundedShadowImageView child
+	public static final int RENDER_MODE_FLAT = 1;       //The menu draws the items itself, without child views
+
+	/**
+	 * Spring modes. Matches the springMode enum in attrs.xml
+	 */
+	public static final int SPRING_MODE_ANALYTIC = 0;   //The scale bounces are evaluated in closed form from the frame time
+	public static final int SPRING_MODE_REBOUND = 1;    //The scale bounces are integrated by Rebound springs
+
+	/**
+	 * Reduced motion modes. Matches the reducedMotion enum in attrs.xml
+	 */
+	public static final int REDUCED_MOTION_AUTO = 0;    //Follow the animator duration scale and the battery saver
+	public static final int REDUCED_MOTION_ALWAYS = 1;  //Always open and close with a cross-fade, without springs
+	public static final int REDUCED_MOTION_NEVER = 2;   //Always run the full animations
+
+	/**
+	 * Defaults
+	 */
+	private static final int DEFAULT_MENUITEM_RADIUS_DP = 70;
+	private static final int DEFAULT_CENTER_MENU_RADIUS_DP = 100;
+	private static final double DEFAULT_RADIAL_SCALE_TENSION = 200;
+	private static final double DEFAULT_RADIAL_SCALE_FRICTION = 10;
+	private static final double DEFAULT_CENTER_SCALE_TENSION = 400;
+	private static final double DEFAULT_CENTER_SCALE_FRICTION = 10;
+	private static final int DEFAULT_OPEN_DELAY = 1000;
+	private static final int DEFAULT_RADIAL_OUT_DURATION = 350;
+	private static final int DEFAULT_CLOSE_DURATION = 250;
+
+	/**
+	 * The cached configs, keyed by the style resource (0 for the default). Every entry is resolved again when the
+	 * resource configuration changes, since the dimensions and the referenced resources may be qualified by any of
+	 * it, not just the density
+	 */
+	private static final SparseArray<CachedConfig> sConfigs = new SparseArray<>();
+
+	/**
+	 * The configuration
+	 */
+	private final int mnRadialMenuRadius;
+	private final int mnCenterMenuRadius;
+	private final double mnRadialScaleTension;
+	private final double mnRadialScaleFriction;
+	private final double mnCenterScaleTension;
+	private final double mnCenterScaleFriction;
+	private final int mnOpenDelay;
+	private final int mnRadialOutDuration;
+	private final int mnCloseDuration;
+	private final int mnLayoutMode;
+	private final int mnRenderMode;
+	private final int mnSpringMode;
+	private final int mnReducedMotion;
+	private final boolean mbSharedSpringSystem;
+	private final boolean mbDragToSelect;
+	private final boolean mbSnapshotEnabled;
+	private final SpiderMenuItemStyle mRadialItemStyle;
+	private final SpiderMenuItemStyle mCenterItemStyle;
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Constructor. Use the {@link Builder} or the obtain methods
+	 */
+	private SpiderMenuConfig( Builder builder ) {
+		mnRadialMenuRadius = builder.mnRadialMenuRadius;
+		mnCenterMenuRadius = builder.mnCenterMenuRadius;
+		mnRadialScaleTension = builder.mnRadialScaleTension;
+		mnRadialScaleFriction = builder.mnRadialScaleFriction;
+		mnCenterScaleTension = builder.mnCenterScaleTension;
+		mnCenterScaleFriction = builder.mnCenterScaleFriction;
+		mnOpenDelay = builder.mnOpenDelay;
+		mnRadialOutDuration = builder.mnRadialOutDuration;
+		mnCloseDuration = builder.mnCloseDuration;
+		mnLayoutMode = builder.mnLayoutMode;
+		mnRenderMode = builder.mnRenderMode;
+		mnSpringMode = builder.mnSpringMode;
+		mnReducedMotion = builder.mnReducedMotion;
+		mbSharedSpringSystem = builder.mbSharedSpringSystem;
+		mbDragToSelect = builder.mbDragToSelect;
+		mbSnapshotEnabled = builder.mbSnapshotEnabled;
+		mRadialItemStyle = builder.mRadialItemStyle;
+		mCenterItemStyle = builder.mCenterItemStyle;
+	}
+
+	/**
+	 * Get the config of a menu from its attributes. Served from the cache, unless config attributes are set inline
+	 *
+	 * @param context
+	 *      The context
+	 * @param attrs
+	 *      The attributes of the menu. Can be null
+	 * @return
+	 *      The config
+	 */
+	public static SpiderMenuConfig obtain( Context context, AttributeSet attrs ) {
+		if(attrs == null)
+			return getDefault( context );
+
+		if(!hasInlineConfigAttributes( attrs )) {
+			int nStyleResourceID = attrs.getStyleAttribute();
+			return (nStyleResourceID != 0) ? fromStyleResource( context, nStyleResourceID ) : getDefault( context );
+		}
+
+		TypedArray a = context.obtainStyledAttributes( attrs, R.styleable.SpiderMenuConfig, 0, 0 );
+		SpiderMenuConfig config = parse( context, a );
+		a.recycle();
+
+		return config;
+	}
+
+	/**
+	 * Get the default config for the density of the context
+	 *
+	 * @param context
+	 *      The context
+	 * @return
+	 *      The shared default config
+	 */
+	public static SpiderMenuConfig getDefault( Context context ) {
+		SpiderMenuConfig config = getCached( context, 0 );
+		if(config != null)
+			return config;
+
+		config = new Builder( context ).build();
+		putCached( context, 0, config );
+		return config;
+	}
+
+	/**
+	 * Get the config defined by a style resource. Resolved once per resource and resource configuration
+	 *
+	 * @param context
+	 *      The context
+	 * @param nStyleResourceID
+	 *      The style resource
+	 * @return
+	 *      The shared config
+	 */
+	public static SpiderMenuConfig fromStyleResource( Context context, int nStyleResourceID ) {
+		SpiderMenuConfig config = getCached( context, nStyleResourceID );
+		if(config != null)
+			return config;
+
+		TypedArray a = context.obtainStyledAttributes( nStyleResourceID, R.styleable.SpiderMenuConfig );
+		config = parse( context, a );
+		a.recycle();
+
+		putCached( context, nStyleResourceID, config );
+		return config;
+	}
+
+	/**
+	 * Get a cached config, if it was resolved for the current resource configuration of the context
+	 *
+	 * @param context
+	 *      The context
+	 * @param nStyleResourceID
+	 *      The style resource, 0 for the default config
+	 * @return
+	 *      The cached config, or null if there is none or it is stale
+	 */
+	private static SpiderMenuConfig getCached( Context context, int nStyleResourceID ) {
+		synchronized ( sConfigs ) {
+			CachedConfig cached = sConfigs.get( nStyleResourceID );
+			return ((cached != null) && cached.mConfiguration.equals( context.getResources().getConfiguration() )) ? cached.mConfig : null;
+		}
+	}
+
+	private static void putCached( Context context, int nStyleResourceID, SpiderMenuConfig config ) {
+		synchronized ( sConfigs ) {
+			sConfigs.put( nStyleResourceID, new CachedConfig( new Configuration( context.getResources().getConfiguration() ), config ) );
+		}
+	}
+
+	/**
+	 * Parse the config attributes. The default radii are in dp
+	 *
+	 * @param context
+	 *      The context
+	 * @param a
+	 *      The typed array of the SpiderMenuConfig styleable
+	 * @return
+	 *      The config
+	 */
+	private static SpiderMenuConfig parse( Context context, TypedArray a ) {
+		Builder builder = new Builder( context );
+		builder.setRadialMenuRadius( a.getDimensionPixelOffset( R.styleable.SpiderMenuConfig_radialMenuRadiusSize, builder.mnRadialMenuRadius ) )
+				.setCenterMenuRadius( a.getDimensionPixelOffset( R.styleable.SpiderMenuConfig_centerMenuRadiusSize, builder.mnCenterMenuRadius ) )
+				.setRadialScaleSpring( a.getFloat( R.styleable.SpiderMenuConfig_radialScaleTension, (float) DEFAULT_RADIAL_SCALE_TENSION ),
+						a.getFloat( R.styleable.SpiderMenuConfig_radialScaleFriction, (float) DEFAULT_RADIAL_SCALE_FRICTION ) )
+				.setCenterScaleSpring( a.getFloat( R.styleable.SpiderMenuConfig_centerScaleTension, (float) DEFAULT_CENTER_SCALE_TENSION ),
+						a.getFloat( R.styleable.SpiderMenuConfig_centerScaleFriction, (float) DEFAULT_CENTER_SCALE_FRICTION ) )
+				.setOpenDelay( a.getInt( R.styleable.SpiderMenuConfig_openDelay, DEFAULT_OPEN_DELAY ) )
+				.setRadialOutDuration( a.getInt( R.styleable.SpiderMenuConfig_radialOutDuration, DEFAULT_RADIAL_OUT_DURATION ) )
+				.setCloseDuration( a.getInt( R.styleable.SpiderMenuConfig_closeDuration, DEFAULT_CLOSE_DURATION ) )
+				.setLayoutMode( a.getInt( R.styleable.SpiderMenuConfig_menuLayoutMode, LAYOUT_MODE_FIT ) )
+				.setRenderMode( a.getInt( R.styleable.SpiderMenuConfig_menuRenderMode, RENDER_MODE_VIEWS ) )
+				.setSpringMode( a.getInt( R.styleable.SpiderMenuConfig_springMode, SPRING_MODE_ANALYTIC ) )
+				.setReducedMotion( a.getInt( R.styleable.SpiderMenuConfig_reducedMotion, REDUCED_MOTION_AUTO ) )
+				.setSharedSpringSystem( a.getBoolean( R.styleable.SpiderMenuConfig_sharedSpringSystem, false ) )
+				.setDragToSelect( a.getBoolean( R.styleable.SpiderMenuConfig_dragToSelect, false ) )
+				.setSnapshotEnabled( a.getBoolean( R.styleable.SpiderMenuConfig_snapshotEnabled, false ) );
+
+		/*
+		The item styles are parsed once per style resource and shared by all the menus
+		 */
+		int nRadialItemStyle = a.getResourceId( R.styleable.SpiderMenuConfig_radialItemStyle, 0 );
+		int nCenterItemStyle = a.getResourceId( R.styleable.SpiderMenuConfig_centerItemStyle, 0 );
+		if(nRadialItemStyle != 0)
+			builder.setRadialItemStyle( SpiderMenuItemStyle.fromStyleResource( context, nRadialItemStyle ) );
+		if(nCenterItemStyle != 0)
+			builder.setCenterItemStyle( SpiderMenuItemStyle.fromStyleResource( context, nCenterItemStyle ) );
+
+		return builder.build();
+	}
+
+	/**
+	 * Check if any of the config attributes is set inline. Compares resource ids only
+	 *
+	 * @param attrs
+	 *      The attributes
+	 * @return
+	 *      true if at least one config attribute is set inline
+	 */
+	private static boolean hasInlineConfigAttributes( AttributeSet attrs ) {
+		for(int nCtr = 0; nCtr < attrs.getAttributeCount(); ++nCtr) {
+			int nNameResource = attrs.getAttributeNameResource( nCtr );
+			if(nNameResource == 0)
+				continue;
+
+			for(int nAttr : R.styleable.SpiderMenuConfig) {
+				if(nAttr == nNameResource)
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Get a builder initialized with this config, to derive a new config from it
+	 *
+	 * @return
+	 *      The builder
+	 */
+	public Builder buildUpon() {
+		return new Builder( this );
+	}
+
+	/**
+	 * Getters
+	 */
+	public int getRadialMenuRadius() {
+		return mnRadialMenuRadius;
+	}
+
+	public int getCenterMenuRadius() {
+		return mnCenterMenuRadius;
+	}
+
+	public double getRadialScaleTension() {
+		return mnRadialScaleTension;
+	}
+
+	public double getRadialScaleFriction() {
+		return mnRadialScaleFriction;
+	}
+
+	public double getCenterScaleTension() {
+		return mnCenterScaleTension;
+	}
+
+	public double getCenterScaleFriction() {
+		return mnCenterScaleFriction;
+	}
+
+	public int getOpenDelay() {
+		return mnOpenDelay;
+	}
+
+	public int getRadialOutDuration() {
+		return mnRadialOutDuration;
+	}
+
+	public int getCloseDuration() {
+		return mnCloseDuration;
+	}
+
+	public int getLayoutMode() {
+		return mnLayoutMode;
+	}
+
+	public int getRenderMode() {
+		return mnRenderMode;
+	}
+
+	public int getSpringMode() {
+		return mnSpringMode;
+	}
+
+	public int getReducedMotion() {
+		return mnReducedMotion;
+	}
+
+	public boolean isSharedSpringSystem() {
+		return mbSharedSpringSystem;
+	}
+
+	public boolean isDragToSelect() {
+		return mbDragToSelect;
+	}
+
+	public boolean isSnapshotEnabled() {
+		return mbSnapshotEnabled;
+	}
+
+	public SpiderMenuItemStyle getRadialItemStyle() {
+		return mRadialItemStyle;
+	}
+
+	public SpiderMenuItemStyle getCenterItemStyle() {
+		return mCenterItemStyle;
+	}
+
+	////////////////////////////////////// INNER CLASSES ///////////////////////////////////////////
+	/**
+	 * Builder for the config. Dimensions are in pixels
+	 */
+	public static class Builder {
+		private int mnRadialMenuRadius;
+		private int mnCenterMenuRadius;
+		private double mnRadialScaleTension = DEFAULT_RADIAL_SCALE_TENSION;
+		private double mnRadialScaleFriction = DEFAULT_RADIAL_SCALE_FRICTION;
+		private double mnCenterScaleTension = DEFAULT_CENTER_SCALE_TENSION;
+		private double mnCenterScaleFriction = DEFAULT_CENTER_SCALE_FRICTION;
+		private int mnOpenDelay = DEFAULT_OPEN_DELAY;
+		private int mnRadialOutDuration = DEFAULT_RADIAL_OUT_DURATION;
+		private int mnCloseDuration = DEFAULT_CLOSE_DURATION;
+		private int mnLayoutMode = LAYOUT_MODE_FIT;
+		private int mnRenderMode = RENDER_MODE_VIEWS;
+		private int mnSpringMode = SPRING_MODE_ANALYTIC;
+		private int mnReducedMotion = REDUCED_MOTION_AUTO;
+		private boolean mbSharedSpringSystem = false;
+		private boolean mbDragToSelect = false;
+		private boolean mbSnapshotEnabled = false;
+		private SpiderMenuItemStyle mRadialItemStyle = null;
+		private SpiderMenuItemStyle mCenterItemStyle = null;
+
+		/**
+		 * Constructor. Resolves the default radii for the density of the context
+		 *
+		 * @param context
+		 *      The context
+		 */
+		public Builder( Context context ) {
+			mnRadialMenuRadius = (int) Util.d2x( context, DEFAULT_MENUITEM_RADIUS_DP );
+			mnCenterMenuRadius = (int) Util.d2x( context, DEFAULT_CENTER_MENU_RADIUS_DP );
+		}
+
+		private Builder( SpiderMenuConfig config ) {
+			mnRadialMenuRadius = config.mnRadialMenuRadius;
+			mnCenterMenuRadius = config.mnCenterMenuRadius;
+			mnRadialScaleTension = config.mnRadialScaleTension;
+			mnRadialScaleFriction = config.mnRadialScaleFriction;
+			mnCenterScaleTension = config.mnCenterScaleTension;
+			mnCenterScaleFriction = config.mnCenterScaleFriction;
+			mnOpenDelay = config.mnOpenDelay;
+			mnRadialOutDuration = config.mnRadialOutDuration;
+			mnCloseDuration = config.mnCloseDuration;
+			mnLayoutMode = config.mnLayoutMode;
+			mnRenderMode = config.mnRenderMode;
+			mnSpringMode = config.mnSpringMode;
+			mnReducedMotion = config.mnReducedMotion;
+			mbSharedSpringSystem = config.mbSharedSpringSystem;
+			mbDragToSelect = config.mbDragToSelect;
+			mbSnapshotEnabled = config.mbSnapshotEnabled;
+			mRadialItemStyle = config.mRadialItemStyle;
+			mCenterItemStyle = config.mCenterItemStyle;
+		}
+
+		public Builder setRadialMenuRadius( int nRadius ) {
+			mnRadialMenuRadius = nRadius;
+			return this;
+		}
+
+		public Builder setCenterMenuRadius( int nRadius ) {
+			mnCenterMenuRadius = nRadius;
+			return this;
+		}
+
+		public Builder setRadialScaleSpring( double nTension, double nFriction ) {
+			mnRadialScaleTension = nTension;
+			mnRadialScaleFriction = nFriction;
+			return this;
+		}
+
+		public Builder setCenterScaleSpring( double nTension, double nFriction ) {
+			mnCenterScaleTension = nTension;
+			mnCenterScaleFriction = nFriction;
+			return this;
+		}
+
+		public Builder setOpenDelay( int nDelay ) {
+			mnOpenDelay = nDelay;
+			return this;
+		}
+
+		public Builder setRadialOutDuration( int nDuration ) {
+			mnRadialOutDuration = nDuration;
+			return this;
+		}
+
+		public Builder setCloseDuration( int nDuration ) {
+			mnCloseDuration = nDuration;
+			return this;
+		}
+
+		public Builder setLayoutMode( int nLayoutMode ) {
+			mnLayoutMode = nLayoutMode;
+			return this;
+		}
+
+		/**
+		 * Draw the items in the menu itself instead of creating a child view per item. Meant for menus with many
+		 * items. The items have to come from a menu resource or {@link SpiderMenu#setItems(java.util.List)}
+		 */
+		public Builder setRenderMode( int nRenderMode ) {
+			mnRenderMode = nRenderMode;
+			return this;
+		}
+
+		/**
+		 * Evaluate the scale bounces of the items in closed form ({@link #SPRING_MODE_ANALYTIC}, the default), or
+		 * integrate them with Rebound springs ({@link #SPRING_MODE_REBOUND})
+		 */
+		public Builder setSpringMode( int nSpringMode ) {
+			mnSpringMode = nSpringMode;
+			return this;
+		}
+
+		/**
+		 * Open and close with one short cross-fade instead of the springs, when the animator duration scale is off or
+		 * the device is in battery saver ({@link #REDUCED_MOTION_AUTO}, the default), always, or never
+		 */
+		public Builder setReducedMotion( int nReducedMotion ) {
+			mnReducedMotion = nReducedMotion;
+			return this;
+		}
+
+		/**
+		 * Run the springs on the {@link SharedSpringSystem} instead of a system of our own. Meant for screens
+		 * with many menus, such as lists. Only used in the {@link #SPRING_MODE_REBOUND} spring mode
+		 */
+		public Builder setSharedSpringSystem( boolean bShared ) {
+			mbSharedSpringSystem = bShared;
+			return this;
+		}
+
+		/**
+		 * Let the items be picked by pressing the center item and dragging towards them (a marking menu)
+		 */
+		public Builder setDragToSelect( boolean bDragToSelect ) {
+			mbDragToSelect = bDragToSelect;
+			return this;
+		}
+
+		/**
+		 * Keep a picture of the open menu in the cache directory, and show it on the first frame of the next cold
+		 * start instead of playing the open animation, while the items get ready
+		 */
+		public Builder setSnapshotEnabled( boolean bEnabled ) {
+			mbSnapshotEnabled = bEnabled;
+			return this;
+		}
+
+		public Builder setRadialItemStyle( SpiderMenuItemStyle style ) {
+			mRadialItemStyle = style;
+			return this;
+		}
+
+		public Builder setCenterItemStyle( SpiderMenuItemStyle style ) {
+			mCenterItemStyle = style;
+			return this;
+		}
+
+		public SpiderMenuConfig build() {
+			return new SpiderMenuConfig( this );
+		}
+	}
+
+	/**
+	 * A cached config, with the resource configuration it was resolved for
+	 */
+	private static final class CachedConfig {
+		private final Configuration mConfiguration;
+		private final SpiderMenuConfig mConfig;
+
+		CachedConfig( Configuration configuration, SpiderMenuConfig config ) {
+			mConfiguration = configuration;
+			mConfig = config;
+		}
+	}
+}
@@ -0,0 +1,231 @@
+package com.abysmel.spidermenu;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.TypedArray;
+import android.content.res.XmlResourceParser;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.util.Xml;
+import android.view.InflateException;
+import android.view.View;
+
+import com.abysmel.spidermenu.SpiderMenu.SpiderMenuItem;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A menu resource compiled into an immutable tree of {@link SpiderMenuItem}s, with an index of all the items of
+ * the tree by id. Every menu resource is parsed once and the tree is shared, so inflating the same menu again
+ * skips the XML parsing altogether.
+ *
+ * The resource uses the regular menu syntax. Items need an android:id, take their icon from android:icon and can
+ * be marked app:menuType="center". An item with a nested &lt;menu&gt; has a submenu:
+ * <pre>
+ * &lt;menu xmlns:android="http://schemas.android.com/apk/res/android"
+ *     xmlns:app="http://schemas.android.com/apk/res-auto"&gt;
+ *     &lt;item android:id="@+id/car" android:icon="@drawable/car" android:title="Car"&gt;
+ *         &lt;menu&gt;
+ *             ...
+ *         &lt;/menu&gt;
+ *     &lt;/item&gt;
+ *     &lt;item android:id="@+id/camera" android:icon="@drawable/camera" app:menuType="center" /&gt;
+ * &lt;/menu&gt;
+ * </pre>
+ */
+public final class SpiderMenuDefinition {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	private static final String TAG_MENU = "menu";
+	private static final String TAG_ITEM = "item";
+
+	/**
+	 * The parsed menus, keyed by the menu resource. The titles are resolved when parsing, so a menu parsed for
+	 * another configuration (E.g. before a locale change) is parsed again
+	 */
+	private static final SparseArray<SpiderMenuDefinition> sDefinitions = new SparseArray<>();
+
+	/**
+	 * The menu resource
+	 */
+	private final int mnMenuResourceID;
+
+	/**
+	 * The configuration the menu was parsed for
+	 */
+	private final Configuration mConfiguration;
+
+	/**
+	 * The top level items
+	 */
+	private final List<SpiderMenuItem> mItems;
+
+	/**
+	 * All the items of the tree, by id
+	 */
+	private final SparseArray<SpiderMenuItem> mItemIndex;
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Constructor. Use {@link #inflate(Context, int)}
+	 */
+	private SpiderMenuDefinition( int nMenuResourceID, Configuration configuration, List<SpiderMenuItem> items, SparseArray<SpiderMenuItem> itemIndex ) {
+		mnMenuResourceID = nMenuResourceID;
+		mConfiguration = configuration;
+		mItems = items;
+		mItemIndex = itemIndex;
+	}
+
+	/**
+	 * Get the compiled menu of a menu resource. Parsed the first time only, and again if the configuration changed
+	 *
+	 * @param context
+	 *      The context
+	 * @param nMenuResourceID
+	 *      The menu resource
+	 * @return
+	 *      The shared menu definition
+	 */
+	public static SpiderMenuDefinition inflate( Context context, int nMenuResourceID ) {
+		synchronized ( sDefinitions ) {
+			SpiderMenuDefinition definition = sDefinitions.get( nMenuResourceID );
+			if((definition != null) && definition.mConfiguration.equals( context.getResources().getConfiguration() ))
+				return definition;
+		}
+
+		SpiderMenuDefinition definition = parse( context, nMenuResourceID );
+		synchronized ( sDefinitions ) {
+			sDefinitions.put( nMenuResourceID, definition );
+		}
+
+		return definition;
+	}
+
+	/**
+	 * Parse a menu resource
+	 */
+	private static SpiderMenuDefinition parse( Context context, int nMenuResourceID ) {
+		XmlResourceParser parser = context.getResources().getXml( nMenuResourceID );
+		try {
+			AttributeSet attrs = Xml.asAttributeSet( parser );
+			SparseArray<SpiderMenuItem> itemIndex = new SparseArray<>();
+
+			int nEvent = parser.getEventType();
+			while((nEvent != XmlPullParser.START_TAG) && (nEvent != XmlPullParser.END_DOCUMENT))
+				nEvent = parser.next();
+
+			if((nEvent != XmlPullParser.START_TAG) || !TAG_MENU.equals( parser.getName() ))
+				throw new InflateException( parser.getPositionDescription() + ": Expecting a " + TAG_MENU + " tag" );
+
+			List<SpiderMenuItem> items = parseMenu( context, parser, attrs, itemIndex );
+			return new SpiderMenuDefinition( nMenuResourceID, new Configuration( context.getResources().getConfiguration() ), items, itemIndex );
+		}
+		catch ( XmlPullParserException e ) {
+			throw new InflateException( "Error inflating the spider menu", e );
+		}
+		catch ( IOException e ) {
+			throw new InflateException( "Error inflating the spider menu", e );
+		}
+		finally {
+			parser.close();
+		}
+	}
+
+	/**
+	 * Parse the items of a menu tag, and their submenus. Returns once the menu tag ends
+	 *
+	 * @return
+	 *      The immutable items
+	 */
+	private static List<SpiderMenuItem> parseMenu( Context context, XmlResourceParser parser, AttributeSet attrs, SparseArray<SpiderMenuItem> itemIndex )
+			throws XmlPullParserException, IOException {
+		ArrayList<SpiderMenuItem> items = new ArrayList<>();
+		SpiderMenuItem lastItem = null;
+		int nMenuDepth = parser.getDepth();
+
+		int nEvent;
+		while(((nEvent = parser.next()) != XmlPullParser.END_DOCUMENT) &&
+				((nEvent != XmlPullParser.END_TAG) || (parser.getDepth() > nMenuDepth))) {
+			if(nEvent != XmlPullParser.START_TAG)
+				continue;
+
+			String tag = parser.getName();
+			if(TAG_ITEM.equals( tag ) && (parser.getDepth() == nMenuDepth + 1)) {
+				lastItem = parseItem( context, attrs );
+				if(lastItem.getID() == View.NO_ID)
+					throw new InflateException( parser.getPositionDescription() + ": Menu items need an android:id" );
+				if(itemIndex.get( lastItem.getID() ) != null)
+					throw new InflateException( parser.getPositionDescription() + ": Duplicate menu item id" );
+
+				itemIndex.put( lastItem.getID(), lastItem );
+				items.add( lastItem );
+			}
+			else if(TAG_MENU.equals( tag ) && (lastItem != null) && (parser.getDepth() == nMenuDepth + 2)) {
+				lastItem.setMenuItemList( parseMenu( context, parser, attrs, itemIndex ) );
+			}
+			else {
+				throw new InflateException( parser.getPositionDescription() + ": Unexpected tag " + tag );
+			}
+		}
+
+		for(SpiderMenuItem item : items)
+			item.setReadOnly();
+
+		return Collections.unmodifiableList( items );
+	}
+
+	/**
+	 * Parse the attributes of an item tag
+	 */
+	private static SpiderMenuItem parseItem( Context context, AttributeSet attrs ) {
+		TypedArray a = context.obtainStyledAttributes( attrs, R.styleable.SpiderMenuItem );
+		SpiderMenuItem item = new SpiderMenuItem();
+		item.setID( a.getResourceId( R.styleable.SpiderMenuItem_android_id, View.NO_ID ) );
+		item.setDrawableResourceID( a.getResourceId( R.styleable.SpiderMenuItem_android_icon, 0 ) );
+		item.setTitle( a.getText( R.styleable.SpiderMenuItem_android_title ) );
+		item.setMenuType( a.getInt( R.styleable.SpiderMenuItem_menuType, SpiderMenu.LayoutParams.RADIAL ) );
+		item.setWeight( a.getFloat( R.styleable.SpiderMenuItem_menuWeight, 1 ) );
+		a.recycle();
+
+		return item;
+	}
+
+	/**
+	 * Find an item anywhere in the tree
+	 *
+	 * @param nID
+	 *      The item id
+	 * @return
+	 *      The item, or null if there is no such item
+	 */
+	public SpiderMenuItem findItem( int nID ) {
+		return mItemIndex.get( nID );
+	}
+
+	/**
+	 * Get the submenu of an item anywhere in the tree
+	 *
+	 * @param nID
+	 *      The item id
+	 * @return
+	 *      The submenu items, or null if there is no such item or it has no submenu
+	 */
+	public List<SpiderMenuItem> findSubMenu( int nID ) {
+		SpiderMenuItem item = mItemIndex.get( nID );
+		return ((item != null) && item.hasSubMenu()) ? item.getMenuItemList() : null;
+	}
+
+	public List<SpiderMenuItem> getItems() {
+		return mItems;
+	}
+
+	public int getMenuResourceID() {
+		return mnMenuResourceID;
+	}
+}
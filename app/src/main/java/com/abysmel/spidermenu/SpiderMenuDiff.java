@@ -0,0 +1,195 @@
+package com.abysmel.spidermenu;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Computes the minimal set of changes between the old and the new list of menu item ids, so that replacing the
+ * items of a SpiderMenu only touches (and animates) the children that actually changed.
+ *
+ * Items are matched by id. Ids that are only in the old list are removed and ids that are only in the new list are
+ * inserted. Of the ids in both lists, the longest run that is already in the right relative order stays put, and
+ * only the rest are moved. The ids must be unique within a list.
+ */
+public final class SpiderMenuDiff {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * Marks a new item that was not in the old list
+	 */
+	public static final int NO_POSITION = -1;
+
+	/**
+	 * The old position of every new item, or NO_POSITION if it is inserted
+	 */
+	private final int[] mOldPositions;
+
+	/**
+	 * The old items that are not in the new list
+	 */
+	private final boolean[] mbRemoved;
+
+	/**
+	 * The new items that have to move relative to the others
+	 */
+	private final boolean[] mbMoved;
+
+	private final int mnInsertedCount;
+	private final int mnRemovedCount;
+	private final int mnMovedCount;
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Constructor. Use {@link #calculate(int[], int[])}
+	 */
+	private SpiderMenuDiff( int[] oldPositions, boolean[] bRemoved, boolean[] bMoved, int nInsertedCount, int nRemovedCount, int nMovedCount ) {
+		mOldPositions = oldPositions;
+		mbRemoved = bRemoved;
+		mbMoved = bMoved;
+		mnInsertedCount = nInsertedCount;
+		mnRemovedCount = nRemovedCount;
+		mnMovedCount = nMovedCount;
+	}
+
+	/**
+	 * Calculate the changes from the old to the new list
+	 *
+	 * @param oldIDs
+	 *      The ids of the old items, in order
+	 * @param newIDs
+	 *      The ids of the new items, in order
+	 * @return
+	 *      The diff
+	 */
+	public static SpiderMenuDiff calculate( int[] oldIDs, int[] newIDs ) {
+		HashMap<Integer, Integer> oldPositionMap = new HashMap<>( oldIDs.length * 2 );
+		for(int nCtr = 0; nCtr < oldIDs.length; ++nCtr)
+			oldPositionMap.put( oldIDs[nCtr], nCtr );
+
+		int[] oldPositions = new int[newIDs.length];
+		boolean[] bRemoved = new boolean[oldIDs.length];
+		Arrays.fill( bRemoved, true );
+
+		int nInsertedCount = 0;
+		for(int nCtr = 0; nCtr < newIDs.length; ++nCtr) {
+			Integer nOldPosition = oldPositionMap.get( newIDs[nCtr] );
+			if(nOldPosition == null) {
+				oldPositions[nCtr] = NO_POSITION;
+				nInsertedCount++;
+			}
+			else {
+				oldPositions[nCtr] = nOldPosition;
+				bRemoved[nOldPosition] = false;
+			}
+		}
+
+		int nRemovedCount = oldIDs.length - (newIDs.length - nInsertedCount);
+
+		/*
+		The items in the longest increasing run of old positions keep their relative order. Everything else moves
+		 */
+		boolean[] bMoved = new boolean[newIDs.length];
+		boolean[] bStationary = getLongestIncreasingRun( oldPositions );
+		int nMovedCount = 0;
+		for(int nCtr = 0; nCtr < newIDs.length; ++nCtr) {
+			if((oldPositions[nCtr] != NO_POSITION) && !bStationary[nCtr]) {
+				bMoved[nCtr] = true;
+				nMovedCount++;
+			}
+		}
+
+		return new SpiderMenuDiff( oldPositions, bRemoved, bMoved, nInsertedCount, nRemovedCount, nMovedCount );
+	}
+
+	/**
+	 * Find the longest strictly increasing subsequence of the old positions (ignoring the inserted items), in
+	 * O(n log n)
+	 *
+	 * @param oldPositions
+	 *      The old positions of the new items
+	 * @return
+	 *      For every new item, true if it is part of the run
+	 */
+	private static boolean[] getLongestIncreasingRun( int[] oldPositions ) {
+		int nSize = oldPositions.length;
+		int[] tailIndices = new int[nSize];         //Index of the smallest tail of every run length
+		int[] previousIndices = new int[nSize];     //Index of the previous item in the run ending at an item
+		int nLength = 0;
+
+		for(int nCtr = 0; nCtr < nSize; ++nCtr) {
+			int nValue = oldPositions[nCtr];
+			if(nValue == NO_POSITION)
+				continue;
+
+			/*
+			Binary search for the first run whose tail is not smaller than the value
+			 */
+			int nLow = 0;
+			int nHigh = nLength;
+			while(nLow < nHigh) {
+				int nMid = (nLow + nHigh) >>> 1;
+				if(oldPositions[tailIndices[nMid]] < nValue)
+					nLow = nMid + 1;
+				else
+					nHigh = nMid;
+			}
+
+			previousIndices[nCtr] = (nLow > 0) ? tailIndices[nLow - 1] : NO_POSITION;
+			tailIndices[nLow] = nCtr;
+			if(nLow == nLength)
+				nLength++;
+		}
+
+		boolean[] bInRun = new boolean[nSize];
+		for(int nIndex = (nLength > 0) ? tailIndices[nLength - 1] : NO_POSITION; nIndex != NO_POSITION; nIndex = previousIndices[nIndex])
+			bInRun[nIndex] = true;
+
+		return bInRun;
+	}
+
+	/**
+	 * Get the old position of a new item
+	 *
+	 * @param nNewPosition
+	 *      The position in the new list
+	 * @return
+	 *      The position in the old list, or {@link #NO_POSITION} if the item is inserted
+	 */
+	public int getOldPosition( int nNewPosition ) {
+		return mOldPositions[nNewPosition];
+	}
+
+	public boolean isInserted( int nNewPosition ) {
+		return mOldPositions[nNewPosition] == NO_POSITION;
+	}
+
+	public boolean isMoved( int nNewPosition ) {
+		return mbMoved[nNewPosition];
+	}
+
+	public boolean isRemoved( int nOldPosition ) {
+		return mbRemoved[nOldPosition];
+	}
+
+	public int getInsertedCount() {
+		return mnInsertedCount;
+	}
+
+	public int getRemovedCount() {
+		return mnRemovedCount;
+	}
+
+	public int getMovedCount() {
+		return mnMovedCount;
+	}
+
+	/**
+	 * Check if the structure changed at all
+	 *
+	 * @return
+	 *      true if any item was inserted, removed or moved
+	 */
+	public boolean hasStructuralChanges() {
+		return (mnInsertedCount + mnRemovedCount + mnMovedCount) > 0;
+	}
+}
@@ -0,0 +1,527 @@
+package com.abysmel.spidermenu;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.TypedArray;
+import android.graphics.BlurMaskFilter;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Immutable style of a {@link com.abysmel.spidermenu.RoundedShadowImageView}. Styles are flyweights: every distinct
+ * style is interned once and shared by all the items that use it, along with its shadow and background paints and
+ * the BlurMaskFilter. The shared paints must never be modified by the items.
+ *
+ * Styles referenced via a style resource (E.g. the radialItemStyle / centerItemStyle of the {@link SpiderMenu}
+ * or the style attribute of an item without inline item attributes) are parsed only once per resource and resource
+ * configuration.
+ */
+public final class SpiderMenuItemStyle {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * Static definitions
+	 */
+	private static final int DEFAULT_BLUR_RADIUS = 3;
+	private static final int DEFAULT_SHADOW_ELEVATION = 7;
+	private static final float MAX_ELEVATION_LEVELS = 10;
+	private static final int DEFAULT_BACKGROUND_COLOR = Color.parseColor( "#FFFFFF" );
+	private static final int DEFAULT_SHADOW_COLOR = Color.parseColor( "#555555" );
+
+	/**
+	 * The interned styles. Held weakly, so that a style and its paints go away with the last item that uses it, as
+	 * the setters of the items intern a new style for every change
+	 */
+	private static final WeakHashMap<SpiderMenuItemStyle, WeakReference<SpiderMenuItemStyle>> sInternedStyles = new WeakHashMap<>();
+
+	/**
+	 * Styles parsed from style resources, keyed by the resource id. Every entry is parsed again when the resource
+	 * configuration changes
+	 */
+	private static final SparseArray<CachedStyle> sResourceStyles = new SparseArray<>();
+
+	/**
+	 * The default style of an item without any attributes
+	 */
+	private static SpiderMenuItemStyle sDefaultStyle = null;
+
+	/**
+	 * The default style of an item inflated from xml without any item style attributes
+	 */
+	private static SpiderMenuItemStyle sInflatedDefaultStyle = null;
+
+	/**
+	 * The style attributes
+	 */
+	private final int mnShadowRadius;
+	private final float mnObjectElevation;
+	private final int mShadowColor;
+	private final int mBackgroundColor;
+	private final boolean mbIsHorizontalOffsetRequired;
+	private final boolean mbIsVerticalOffsetRequired;
+	private final boolean mbShouldResizeBitmap;
+	private final int mnBitmapConfig;
+	private final int mnResizeMode;
+	private final boolean mbLevelOfDetailEnabled;
+
+	/**
+	 * The shadow offsets, derived from the elevation and the shadow radius
+	 */
+	private final int mnHorizontalOffset;
+	private final int mnVerticalOffset;
+
+	/**
+	 * The shared paints. Only created for the interned instance. The flat shadow has no blur, and the aliased paints
+	 * are the cheap ones the items move with at the lower adaptive quality levels
+	 */
+	private Paint mShadowPaint = null;
+	private Paint mBackgroundPaint = null;
+	private Paint mFlatShadowPaint = null;
+	private Paint mAliasedShadowPaint = null;
+	private Paint mAliasedBackgroundPaint = null;
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Constructor. Use the {@link Builder} or the obtain methods
+	 */
+	private SpiderMenuItemStyle( Builder builder ) {
+		mnShadowRadius = builder.mnShadowRadius;
+		mnObjectElevation = builder.mnObjectElevation;
+		mShadowColor = builder.mShadowColor;
+		mBackgroundColor = builder.mBackgroundColor;
+		mbIsHorizontalOffsetRequired = builder.mbIsHorizontalOffsetRequired;
+		mbIsVerticalOffsetRequired = builder.mbIsVerticalOffsetRequired;
+		mbShouldResizeBitmap = builder.mbShouldResizeBitmap;
+		mnBitmapConfig = builder.mnBitmapConfig;
+		mnResizeMode = builder.mnResizeMode;
+		mbLevelOfDetailEnabled = builder.mbLevelOfDetailEnabled;
+
+		/*
+		Calculate the offsets based on the elevation (at least 20% from the "ground").
+		The less the elevation is, the smaller the offset is since the object is closer to the "ground"
+		Also include the shadow radius in the offset so that we don't have to think about it in later calculations
+		 */
+		mnHorizontalOffset = (mbIsHorizontalOffsetRequired) ? (int)(((20 * (1 - mnObjectElevation / MAX_ELEVATION_LEVELS))) + (mnShadowRadius * 2)) : 0;
+		mnVerticalOffset = (mbIsVerticalOffsetRequired) ? (int)(((20 * (1 - mnObjectElevation / MAX_ELEVATION_LEVELS))) + (mnShadowRadius * 2)) : 0;
+	}
+
+	/**
+	 * Get the style of an item from its attributes. An item that only references a style resource is served from
+	 * the resource cache without parsing
+	 *
+	 * @param context
+	 *      The context
+	 * @param attrs
+	 *      The attributes of the item
+	 * @return
+	 *      The interned style, or null if the attributes do not specify any item style, in which case the item can
+	 *      inherit the style of its parent
+	 */
+	public static SpiderMenuItemStyle obtain( Context context, AttributeSet attrs ) {
+		if(attrs == null)
+			return null;
+
+		boolean bHasInlineAttributes = hasInlineStyleAttributes( attrs );
+		int nStyleResourceID = attrs.getStyleAttribute();
+		if(!bHasInlineAttributes) {
+			return (nStyleResourceID != 0) ? fromStyleResource( context, nStyleResourceID ) : null;
+		}
+
+		TypedArray a = context.obtainStyledAttributes( attrs, R.styleable.RoundedShadowImageView, 0, 0 );
+		SpiderMenuItemStyle style = parse( a );
+		a.recycle();
+
+		return intern( style );
+	}
+
+	/**
+	 * Get the style defined by a style resource. Parsed once per resource and resource configuration
+	 *
+	 * @param context
+	 *      The context
+	 * @param nStyleResourceID
+	 *      The style resource
+	 * @return
+	 *      The interned style
+	 */
+	public static SpiderMenuItemStyle fromStyleResource( Context context, int nStyleResourceID ) {
+		Configuration configuration = context.getResources().getConfiguration();
+		synchronized ( sResourceStyles ) {
+			CachedStyle cached = sResourceStyles.get( nStyleResourceID );
+			if((cached != null) && cached.mConfiguration.equals( configuration ))
+				return cached.mStyle;
+		}
+
+		TypedArray a = context.obtainStyledAttributes( nStyleResourceID, R.styleable.RoundedShadowImageView );
+		SpiderMenuItemStyle style = intern( parse( a ) );
+		a.recycle();
+
+		synchronized ( sResourceStyles ) {
+			sResourceStyles.put( nStyleResourceID, new CachedStyle( new Configuration( configuration ), style ) );
+		}
+
+		return style;
+	}
+
+	/**
+	 * Get the style of an item without any attributes
+	 *
+	 * @return
+	 *      The interned default style
+	 */
+	public static SpiderMenuItemStyle getDefault() {
+		synchronized ( sInternedStyles ) {
+			if(sDefaultStyle == null)
+				sDefaultStyle = intern( new Builder().build() );
+
+			return sDefaultStyle;
+		}
+	}
+
+	/**
+	 * Get the style of an item inflated from xml without any item style attributes. These items have always been
+	 * parsed, so they get the parsed defaults (blurred shadow, no vertical offset) and not the ones of {@link #getDefault()}
+	 *
+	 * @return
+	 *      The interned default style of the inflated items
+	 */
+	static SpiderMenuItemStyle getInflatedDefault() {
+		synchronized ( sInternedStyles ) {
+			if(sInflatedDefaultStyle == null) {
+				sInflatedDefaultStyle = intern( new Builder()
+						.setShadowRadius( DEFAULT_BLUR_RADIUS )
+						.setObjectElevation( DEFAULT_SHADOW_ELEVATION )
+						.setShadowColor( DEFAULT_SHADOW_COLOR )
+						.setVerticalOffsetRequired( false )
+						.build() );
+			}
+
+			return sInflatedDefaultStyle;
+		}
+	}
+
+	/**
+	 * Get the shared instance of a style
+	 *
+	 * @param style
+	 *      The style
+	 * @return
+	 *      The interned instance equal to the style
+	 */
+	public static SpiderMenuItemStyle intern( SpiderMenuItemStyle style ) {
+		synchronized ( sInternedStyles ) {
+			WeakReference<SpiderMenuItemStyle> reference = sInternedStyles.get( style );
+			SpiderMenuItemStyle interned = (reference != null) ? reference.get() : null;
+			if(interned == null) {
+				style.createPaints();
+				sInternedStyles.put( style, new WeakReference<>( style ) );
+				interned = style;
+			}
+
+			return interned;
+		}
+	}
+
+	/**
+	 * Parse the style attributes. Note that, when parsed, the vertical offset is not required by default, unlike
+	 * the default style
+	 *
+	 * @param a
+	 *      The typed array of the RoundedShadowImageView styleable
+	 * @return
+	 *      The parsed style. Not interned
+	 */
+	private static SpiderMenuItemStyle parse( TypedArray a ) {
+		return new Builder()
+				.setShadowRadius( a.getDimensionPixelOffset( R.styleable.RoundedShadowImageView_shadowRadius, DEFAULT_BLUR_RADIUS ) )
+				.setObjectElevation( a.getDimensionPixelOffset( R.styleable.RoundedShadowImageView_shadowElevation, DEFAULT_SHADOW_ELEVATION ) )
+				.setBackgroundColor( a.getColor( R.styleable.RoundedShadowImageView_backgroundFillColor, DEFAULT_BACKGROUND_COLOR ) )
+				.setHorizontalOffsetRequired( a.getBoolean( R.styleable.RoundedShadowImageView_horizontalShadowOffsetRequired, false ) )
+				.setVerticalOffsetRequired( a.getBoolean( R.styleable.RoundedShadowImageView_veticalShadowOffsetRequired, false ) )
+				.setShadowColor( a.getColor( R.styleable.RoundedShadowImageView_shadowColor, DEFAULT_SHADOW_COLOR ) )
+				.setShouldResizeBitmap( a.getBoolean( R.styleable.RoundedShadowImageView_shouldResizeBitmap, true ) )
+				.setBitmapConfig( a.getInt( R.styleable.RoundedShadowImageView_bitmapConfig, RoundedShadowImageView.BITMAP_CONFIG_AUTO ) )
+				.setResizeMode( a.getInt( R.styleable.RoundedShadowImageView_bitmapResizeMode, RoundedShadowImageView.RESIZE_MODE_SCALED_COPY ) )
+				.setLevelOfDetailEnabled( a.getBoolean( R.styleable.RoundedShadowImageView_levelOfDetailEnabled, false ) )
+				.build();
+	}
+
+	/**
+	 * Check if any of the item style attributes is set inline. Compares resource ids only, which is much cheaper
+	 * than resolving a TypedArray
+	 *
+	 * @param attrs
+	 *      The attributes
+	 * @return
+	 *      true if at least one item style attribute is set inline
+	 */
+	private static boolean hasInlineStyleAttributes( AttributeSet attrs ) {
+		for(int nCtr = 0; nCtr < attrs.getAttributeCount(); ++nCtr) {
+			int nNameResource = attrs.getAttributeNameResource( nCtr );
+			if(nNameResource == 0)
+				continue;
+
+			for(int nAttr : R.styleable.RoundedShadowImageView) {
+				if(nAttr == nNameResource)
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Create the shared paints. Set alpha and blur based on the elevation
+	 */
+	private void createPaints() {
+		mShadowPaint = new Paint( Paint.ANTI_ALIAS_FLAG );
+		mShadowPaint.setDither( true );
+		mShadowPaint.setColor( mShadowColor );
+		mShadowPaint.setAlpha( (int) (60 + 190 * (mnObjectElevation / MAX_ELEVATION_LEVELS)));
+
+		/*
+		The flat shadows are copies without the blur, taken before it is set
+		 */
+		mFlatShadowPaint = new Paint( mShadowPaint );
+		mAliasedShadowPaint = new Paint( mShadowPaint );
+		mAliasedShadowPaint.setAntiAlias( false );
+		if(mnShadowRadius > 0)
+			mShadowPaint.setMaskFilter( new BlurMaskFilter( mnShadowRadius, BlurMaskFilter.Blur.NORMAL ) );
+
+		mBackgroundPaint = new Paint( Paint.ANTI_ALIAS_FLAG );
+		mBackgroundPaint.setDither( true );
+		mBackgroundPaint.setColor( mBackgroundColor );
+		mAliasedBackgroundPaint = new Paint( mBackgroundPaint );
+		mAliasedBackgroundPaint.setAntiAlias( false );
+	}
+
+	/**
+	 * Get a builder initialized with this style, to derive a new style from it
+	 *
+	 * @return
+	 *      The builder
+	 */
+	public Builder buildUpon() {
+		return new Builder( this );
+	}
+
+	/**
+	 * Getters
+	 */
+	public int getShadowRadius() {
+		return mnShadowRadius;
+	}
+
+	public float getObjectElevation() {
+		return mnObjectElevation;
+	}
+
+	public int getShadowColor() {
+		return mShadowColor;
+	}
+
+	public int getBackgroundColor() {
+		return mBackgroundColor;
+	}
+
+	public boolean isHorizontalOffsetRequired() {
+		return mbIsHorizontalOffsetRequired;
+	}
+
+	public boolean isVerticalOffsetRequired() {
+		return mbIsVerticalOffsetRequired;
+	}
+
+	public boolean shouldResizeBitmap() {
+		return mbShouldResizeBitmap;
+	}
+
+	public int getBitmapConfig() {
+		return mnBitmapConfig;
+	}
+
+	public int getResizeMode() {
+		return mnResizeMode;
+	}
+
+	public boolean isLevelOfDetailEnabled() {
+		return mbLevelOfDetailEnabled;
+	}
+
+	public int getHorizontalOffset() {
+		return mnHorizontalOffset;
+	}
+
+	public int getVerticalOffset() {
+		return mnVerticalOffset;
+	}
+
+	/**
+	 * The shared paints. Do not modify them
+	 */
+	public Paint getShadowPaint() {
+		return mShadowPaint;
+	}
+
+	public Paint getBackgroundPaint() {
+		return mBackgroundPaint;
+	}
+
+	public Paint getFlatShadowPaint() {
+		return mFlatShadowPaint;
+	}
+
+	public Paint getAliasedShadowPaint() {
+		return mAliasedShadowPaint;
+	}
+
+	public Paint getAliasedBackgroundPaint() {
+		return mAliasedBackgroundPaint;
+	}
+
+	@Override
+	public boolean equals( Object o ) {
+		if(this == o)
+			return true;
+		if(!(o instanceof SpiderMenuItemStyle))
+			return false;
+
+		SpiderMenuItemStyle style = (SpiderMenuItemStyle) o;
+		return (mnShadowRadius == style.mnShadowRadius) &&
+				(Float.compare( mnObjectElevation, style.mnObjectElevation ) == 0) &&
+				(mShadowColor == style.mShadowColor) &&
+				(mBackgroundColor == style.mBackgroundColor) &&
+				(mbIsHorizontalOffsetRequired == style.mbIsHorizontalOffsetRequired) &&
+				(mbIsVerticalOffsetRequired == style.mbIsVerticalOffsetRequired) &&
+				(mbShouldResizeBitmap == style.mbShouldResizeBitmap) &&
+				(mnBitmapConfig == style.mnBitmapConfig) &&
+				(mnResizeMode == style.mnResizeMode) &&
+				(mbLevelOfDetailEnabled == style.mbLevelOfDetailEnabled);
+	}
+
+	@Override
+	public int hashCode() {
+		int nHash = mnShadowRadius;
+		nHash = 31 * nHash + Float.floatToIntBits( mnObjectElevation );
+		nHash = 31 * nHash + mShadowColor;
+		nHash = 31 * nHash + mBackgroundColor;
+		nHash = 31 * nHash + (mbIsHorizontalOffsetRequired ? 1 : 0);
+		nHash = 31 * nHash + (mbIsVerticalOffsetRequired ? 1 : 0);
+		nHash = 31 * nHash + (mbShouldResizeBitmap ? 1 : 0);
+		nHash = 31 * nHash + mnBitmapConfig;
+		nHash = 31 * nHash + mnResizeMode;
+		nHash = 31 * nHash + (mbLevelOfDetailEnabled ? 1 : 0);
+		return nHash;
+	}
+
+	////////////////////////////////////// INNER CLASSES ///////////////////////////////////////////
+	/**
+	 * Builder for the style. The defaults are the ones of an item without attributes
+	 */
+	public static class Builder {
+		private int mnShadowRadius = 0;
+		private float mnObjectElevation = 0;
+		private int mShadowColor = 0;
+		private int mBackgroundColor = DEFAULT_BACKGROUND_COLOR;
+		private boolean mbIsHorizontalOffsetRequired = false;
+		private boolean mbIsVerticalOffsetRequired = true;
+		private boolean mbShouldResizeBitmap = true;
+		private int mnBitmapConfig = RoundedShadowImageView.BITMAP_CONFIG_AUTO;
+		private int mnResizeMode = RoundedShadowImageView.RESIZE_MODE_SCALED_COPY;
+		private boolean mbLevelOfDetailEnabled = false;
+
+		public Builder() {
+		}
+
+		private Builder( SpiderMenuItemStyle style ) {
+			mnShadowRadius = style.mnShadowRadius;
+			mnObjectElevation = style.mnObjectElevation;
+			mShadowColor = style.mShadowColor;
+			mBackgroundColor = style.mBackgroundColor;
+			mbIsHorizontalOffsetRequired = style.mbIsHorizontalOffsetRequired;
+			mbIsVerticalOffsetRequired = style.mbIsVerticalOffsetRequired;
+			mbShouldResizeBitmap = style.mbShouldResizeBitmap;
+			mnBitmapConfig = style.mnBitmapConfig;
+			mnResizeMode = style.mnResizeMode;
+			mbLevelOfDetailEnabled = style.mbLevelOfDetailEnabled;
+		}
+
+		public Builder setShadowRadius( int nShadowRadius ) {
+			mnShadowRadius = nShadowRadius;
+			return this;
+		}
+
+		public Builder setObjectElevation( float nObjectElevation ) {
+			mnObjectElevation = nObjectElevation;
+			return this;
+		}
+
+		public Builder setShadowColor( int shadowColor ) {
+			mShadowColor = shadowColor;
+			return this;
+		}
+
+		public Builder setBackgroundColor( int backgroundColor ) {
+			mBackgroundColor = backgroundColor;
+			return this;
+		}
+
+		public Builder setHorizontalOffsetRequired( boolean bRequired ) {
+			mbIsHorizontalOffsetRequired = bRequired;
+			return this;
+		}
+
+		public Builder setVerticalOffsetRequired( boolean bRequired ) {
+			mbIsVerticalOffsetRequired = bRequired;
+			return this;
+		}
+
+		public Builder setShouldResizeBitmap( boolean bShouldResize ) {
+			mbShouldResizeBitmap = bShouldResize;
+			return this;
+		}
+
+		public Builder setBitmapConfig( int nBitmapConfig ) {
+			mnBitmapConfig = nBitmapConfig;
+			return this;
+		}
+
+		public Builder setResizeMode( int nResizeMode ) {
+			mnResizeMode = nResizeMode;
+			return this;
+		}
+
+		public Builder setLevelOfDetailEnabled( boolean bEnabled ) {
+			mbLevelOfDetailEnabled = bEnabled;
+			return this;
+		}
+
+		/**
+		 * Build the style. Use {@link SpiderMenuItemStyle#intern(SpiderMenuItemStyle)} to get the shared instance
+		 *
+		 * @return
+		 *      The style
+		 */
+		public SpiderMenuItemStyle build() {
+			return new SpiderMenuItemStyle( this );
+		}
+	}
+
+	/**
+	 * A style parsed from a style resource, with the resource configuration it was parsed for
+	 */
+	private static final class CachedStyle {
+		private final Configuration mConfiguration;
+		private final SpiderMenuItemStyle mStyle;
+
+		CachedStyle( Configuration configuration, SpiderMenuItemStyle style ) {
+			mConfiguration = configuration;
+			mStyle = style;
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package com.abysmel.spidermenu;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AtomicFile;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * A picture of a fully open menu, kept as a PNG in the app's cache directory, so that the next cold start can show
+ * the menu on its first frame, before its children have decoded their bitmaps and blurred their shadows.
+ *
+ * The file is named after a description of the menu (the items, the config, the styles and the density), and the
+ * size is checked against the size of the menu once it is laid out. Snapshots older than the installed app are
+ * ignored, since the resources might have changed. A menu that changes gets a new file, so on every save the stale
+ * snapshots are deleted, and only the most recently used ones are kept. The files are read and written on the serial
+ * AsyncTask executor, and the load listener is called on the main thread.
+ */
+final class SpiderMenuSnapshot {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * The directory in the cache directory
+	 */
+	private static final String DIRECTORY = "spidermenu_snapshots";
+	private static final String EXTENSION = ".png";
+
+	/**
+	 * The most snapshots kept, for all the menus of the app
+	 */
+	private static final int MAX_SNAPSHOTS = 8;
+
+	/**
+	 * The application context
+	 */
+	private final Context mContext;
+
+	/**
+	 * The description of the menu, and the file named after it
+	 */
+	private final String mDescription;
+	private final AtomicFile mFile;
+
+	/**
+	 * Handler to get back on the main thread
+	 */
+	private final Handler mHandler = new Handler( Looper.getMainLooper() );
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Constructor
+	 *
+	 * @param context
+	 *      The context
+	 * @param description
+	 *      The description of everything the picture of the menu depends on, but the size
+	 */
+	SpiderMenuSnapshot( Context context, String description ) {
+		mContext = context.getApplicationContext();
+		mDescription = description;
+		mFile = new AtomicFile( new File( new File( mContext.getCacheDir(), DIRECTORY ), Integer.toHexString( description.hashCode() ) + EXTENSION ) );
+	}
+
+	String getDescription() {
+		return mDescription;
+	}
+
+	/**
+	 * Read the snapshot in the background
+	 *
+	 * @param listener
+	 *      Called on the main thread, with a null snapshot if there is none or it is stale
+	 */
+	void load( final LoadListener listener ) {
+		AsyncTask.SERIAL_EXECUTOR.execute( new Runnable() {
+			@Override
+			public void run() {
+				final Bitmap snapshot = read();
+				mHandler.post( new Runnable() {
+					@Override
+					public void run() {
+						listener.onSnapshotLoaded( snapshot );
+					}
+				} );
+			}
+		} );
+	}
+
+	/**
+	 * Write a snapshot in the background. The bitmap is not used by the caller anymore, and is recycled once written
+	 *
+	 * @param snapshot
+	 *      The picture of the open menu
+	 */
+	void save( final Bitmap snapshot ) {
+		AsyncTask.SERIAL_EXECUTOR.execute( new Runnable() {
+			@Override
+			public void run() {
+				write( snapshot );
+				snapshot.recycle();
+			}
+		} );
+	}
+
+	/**
+	 * Decode the snapshot, unless it is older than the installed app
+	 */
+	private Bitmap read() {
+		File file = mFile.getBaseFile();
+		if(!file.exists())
+			return null;
+
+		long nInstallTime = getInstallTime();
+		if((nInstallTime < 0) || (file.lastModified() < nInstallTime))
+			return null;
+
+		try {
+			Bitmap snapshot = BitmapFactory.decodeFile( file.getPath() );
+			if(snapshot != null)
+				file.setLastModified( System.currentTimeMillis() );         //Keeps it among the most recently used
+			return snapshot;
+		}
+		catch ( OutOfMemoryError e ) {
+			Logger.d( "Out of memory exception when decoding the menu snapshot" );
+			return null;
+		}
+	}
+
+	/**
+	 * Compress the snapshot to the file
+	 */
+	private void write( Bitmap snapshot ) {
+		File directory = mFile.getBaseFile().getParentFile();
+		if(!directory.exists() && !directory.mkdirs()) {
+			Logger.e( "Creating the menu snapshot directory failed: %s", directory );
+			return;
+		}
+
+		FileOutputStream fileOut = null;
+		try {
+			fileOut = mFile.startWrite();
+			BufferedOutputStream out = new BufferedOutputStream( fileOut );
+			snapshot.compress( Bitmap.CompressFormat.PNG, 100, out );
+			out.flush();
+			mFile.finishWrite( fileOut );
+		}
+		catch ( IOException e ) {
+			Logger.e( "Writing the menu snapshot failed: %s", e );
+			if(fileOut != null)
+				mFile.failWrite( fileOut );
+		}
+
+		deleteStaleSnapshots( directory );
+	}
+
+	/**
+	 * Delete the snapshots older than the installed app, and the least recently used ones beyond {@link #MAX_SNAPSHOTS}
+	 *
+	 * @param directory
+	 *      The snapshot directory
+	 */
+	private void deleteStaleSnapshots( File directory ) {
+		File[] files = directory.listFiles();
+		if(files == null)
+			return;
+
+		long nInstallTime = getInstallTime();
+		ArrayList<File> snapshots = new ArrayList<>( files.length );
+		for(File file : files) {
+			if(!file.getName().endsWith( EXTENSION ))
+				continue;
+
+			if(file.lastModified() < nInstallTime)
+				deleteSnapshot( file );
+			else
+				snapshots.add( file );
+		}
+
+		if(snapshots.size() <= MAX_SNAPSHOTS)
+			return;
+
+		Collections.sort( snapshots, new Comparator<File>() {
+			@Override
+			public int compare( File lhs, File rhs ) {
+				long nLhs = lhs.lastModified();
+				long nRhs = rhs.lastModified();
+				return (nLhs > nRhs) ? -1 : ((nLhs == nRhs) ? 0 : 1);
+			}
+		} );
+		for(File file : snapshots.subList( MAX_SNAPSHOTS, snapshots.size() )) {
+			if(!file.equals( mFile.getBaseFile() ))
+				deleteSnapshot( file );
+		}
+	}
+
+	private static void deleteSnapshot( File file ) {
+		if(!file.delete())
+			Logger.d( "Deleting the menu snapshot failed: %s", file );
+	}
+
+	/**
+	 * Get the time the app was installed or updated
+	 *
+	 * @return
+	 *      The time in milliseconds, or -1 if it is not known
+	 */
+	private long getInstallTime() {
+		try {
+			return mContext.getPackageManager().getPackageInfo( mContext.getPackageName(), 0 ).lastUpdateTime;
+		}
+		catch ( PackageManager.NameNotFoundException e ) {
+			return -1;
+		}
+	}
+
+	///////////////////////////////////////// INTERFACES ///////////////////////////////////////////
+	/**
+	 * Snapshot load listener. Called on the main thread
+	 */
+	interface LoadListener {
+		void onSnapshotLoaded(Bitmap snapshot);
+	}
+}
@@ -0,0 +1,159 @@
+package com.abysmel.spidermenu;
+
+import android.os.Build;
+import android.os.Trace;
+
+import java.lang.reflect.Method;
+
+/**
+ * Compat wrapper around {@link android.os.Trace} to mark the SpiderMenu work in systrace / Perfetto.
+ *
+ * Synchronous sections go straight to Trace, which only checks a native flag when tracing is off. Async sections
+ * (the open and close sequences, which span many frames) are public API only from Q, so below that the hidden
+ * asyncTraceBegin / asyncTraceEnd are looked up once via reflection, and only called while tracing is on.
+ */
+public class SpiderMenuTrace {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * Section names
+	 */
+	public static final String SECTION_MEASURE = "SpiderMenu#onMeasure";
+	public static final String SECTION_LAYOUT = "SpiderMenu#onLayout";
+	public static final String SECTION_RADIAL_RADII = "SpiderMenu#calculateRadialRadii";
+	public static final String SECTION_SPRING_UPDATE = "SpiderMenu#onSpringUpdate";
+	public static final String SECTION_SPRING_REST = "SpiderMenu#onSpringAtRest";
+	public static final String SECTION_REFRESH_SHADER = "RoundedShadowImageView#refreshShader";
+	public static final String SECTION_DRAW_SHADOW = "RoundedShadowImageView#drawShadow";
+	public static final String SECTION_ASYNC_BUILD = "SpiderMenuAsyncBuilder#buildMenu";
+	public static final String ASYNC_OPEN = "SpiderMenu#open";
+	public static final String ASYNC_CLOSE = "SpiderMenu#close";
+
+	/**
+	 * Trace.TRACE_TAG_APP. Hidden
+	 */
+	private static final long TRACE_TAG_APP = 1L << 12;
+
+	/**
+	 * Q (29), where the async sections became public API
+	 */
+	private static final int PUBLIC_ASYNC_TRACE_MIN_SDK = 29;
+
+	/**
+	 * The reflected methods
+	 */
+	private static Method sIsEnabled = null;
+	private static Method sAsyncTraceBegin = null;
+	private static Method sAsyncTraceEnd = null;
+	private static boolean sbReflectionDone = false;
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Begin a synchronous section. Must be ended on the same thread with {@link #endSection()}
+	 *
+	 * @param sectionName
+	 *      The section name
+	 */
+	public static void beginSection( String sectionName ) {
+		if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2)
+			Trace.beginSection( sectionName );
+	}
+
+	/**
+	 * End the last synchronous section
+	 */
+	public static void endSection() {
+		if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2)
+			Trace.endSection();
+	}
+
+	/**
+	 * Begin an async section, that can end on any thread and frame
+	 *
+	 * @param sectionName
+	 *      The section name
+	 * @param nCookie
+	 *      Identifies the section among concurrent sections of the same name
+	 */
+	public static void beginAsyncSection( String sectionName, int nCookie ) {
+		invokeAsync( true, sectionName, nCookie );
+	}
+
+	/**
+	 * End an async section
+	 *
+	 * @param sectionName
+	 *      The section name
+	 * @param nCookie
+	 *      The cookie the section was started with
+	 */
+	public static void endAsyncSection( String sectionName, int nCookie ) {
+		invokeAsync( false, sectionName, nCookie );
+	}
+
+	/**
+	 * Check if the app is being traced
+	 *
+	 * @return
+	 *      true if tracing is on
+	 */
+	public static boolean isEnabled() {
+		if(Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2)
+			return false;
+
+		loadMethods();
+		try {
+			if(sIsEnabled == null)
+				return false;
+
+			return (Build.VERSION.SDK_INT >= PUBLIC_ASYNC_TRACE_MIN_SDK) ? (Boolean) sIsEnabled.invoke( null ) : (Boolean) sIsEnabled.invoke( null, TRACE_TAG_APP );
+		}
+		catch ( Exception e ) {
+			return false;
+		}
+	}
+
+	/**
+	 * Begin or end an async section via the public or the hidden API
+	 */
+	private static void invokeAsync( boolean bBegin, String sectionName, int nCookie ) {
+		if(!isEnabled())
+			return;
+
+		try {
+			if(Build.VERSION.SDK_INT >= PUBLIC_ASYNC_TRACE_MIN_SDK)
+				(bBegin ? sAsyncTraceBegin : sAsyncTraceEnd).invoke( null, sectionName, nCookie );
+			else
+				(bBegin ? sAsyncTraceBegin : sAsyncTraceEnd).invoke( null, TRACE_TAG_APP, sectionName, nCookie );
+		}
+		catch ( Exception e ) {
+			Logger.d( "Async trace section failed" );
+		}
+	}
+
+	/**
+	 * Look up the methods once. The public async methods exist from Q, but are not in our compile SDK
+	 */
+	private static synchronized void loadMethods() {
+		if(sbReflectionDone)
+			return;
+
+		sbReflectionDone = true;
+		try {
+			if(Build.VERSION.SDK_INT >= PUBLIC_ASYNC_TRACE_MIN_SDK) {
+				sIsEnabled = Trace.class.getMethod( "isEnabled" );
+				sAsyncTraceBegin = Trace.class.getMethod( "beginAsyncSection", String.class, int.class );
+				sAsyncTraceEnd = Trace.class.getMethod( "endAsyncSection", String.class, int.class );
+			}
+			else {
+				sIsEnabled = Trace.class.getMethod( "isTagEnabled", long.class );
+				sAsyncTraceBegin = Trace.class.getMethod( "asyncTraceBegin", long.class, String.class, int.class );
+				sAsyncTraceEnd = Trace.class.getMethod( "asyncTraceEnd", long.class, String.class, int.class );
+			}
+		}
+		catch ( Exception e ) {
+			sIsEnabled = null;       //Nothing we can do. Async sections are off
+			Logger.d( "Async trace sections are not available" );
+		}
+	}
+}
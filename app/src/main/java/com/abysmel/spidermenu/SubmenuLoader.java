@@ -0,0 +1,200 @@
+package com.abysmel.spidermenu;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+import android.util.SparseArray;
+
+import com.abysmel.spidermenu.SpiderMenu.SpiderMenuItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads the submenus of the menu items through a {@link SubmenuProvider} on a background executor, and keeps the
+ * latest ones in an LRU cache keyed by the item id. SpiderMenu prefetches the submenu of an item as soon as it is
+ * touched, so by the time the click completes the next level is usually ready.
+ *
+ * Items that carry a submenu of their own (e.g. from a menu resource) do not go through the provider. Everything
+ * but the provider call runs on the main thread, and the listeners are called on the main thread.
+ */
+public class SubmenuLoader {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * Default number of submenus to cache
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 16;
+
+	/**
+	 * The provider
+	 */
+	private final SubmenuProvider mProvider;
+
+	/**
+	 * The executor to run the provider on
+	 */
+	private final Executor mExecutor;
+
+	/**
+	 * The loaded submenus, by item id
+	 */
+	private final LruCache<Integer, List<SpiderMenuItem>> mCache;
+
+	/**
+	 * The listeners waiting for the loads in flight, by item id. An entry with no listeners is a prefetch
+	 */
+	private final SparseArray<ArrayList<SubmenuLoadListener>> mPendingLoads = new SparseArray<>();
+
+	/**
+	 * Handler to get back on the main thread
+	 */
+	private final Handler mHandler = new Handler( Looper.getMainLooper() );
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Constructor. Runs the provider on the AsyncTask thread pool
+	 *
+	 * @param provider
+	 *      The provider
+	 */
+	public SubmenuLoader( SubmenuProvider provider ) {
+		this( provider, AsyncTask.THREAD_POOL_EXECUTOR, DEFAULT_CACHE_SIZE );
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param provider
+	 *      The provider
+	 * @param executor
+	 *      The executor to run the provider on
+	 * @param nCacheSize
+	 *      The number of submenus to cache
+	 */
+	public SubmenuLoader( SubmenuProvider provider, Executor executor, int nCacheSize ) {
+		mProvider = provider;
+		mExecutor = executor;
+		mCache = new LruCache<>( nCacheSize );
+	}
+
+	/**
+	 * Start loading the submenu of an item, if it is not cached or loading already
+	 *
+	 * @param item
+	 *      The item
+	 */
+	public void prefetch( SpiderMenuItem item ) {
+		if(item.hasSubMenu() || (mCache.get( item.getID() ) != null) || (mPendingLoads.get( item.getID() ) != null))
+			return;
+
+		mPendingLoads.put( item.getID(), new ArrayList<SubmenuLoadListener>() );
+		startLoad( item );
+	}
+
+	/**
+	 * Get the submenu of an item. The listener is called right away if the submenu is ready, else once it is
+	 * loaded. A load that was prefetched is joined, not started again
+	 *
+	 * @param item
+	 *      The item
+	 * @param listener
+	 *      The listener
+	 */
+	public void load( SpiderMenuItem item, SubmenuLoadListener listener ) {
+		List<SpiderMenuItem> submenu = getCachedSubmenu( item );
+		if(submenu != null) {
+			listener.onSubmenuLoaded( item, submenu );
+			return;
+		}
+
+		prefetch( item );
+		mPendingLoads.get( item.getID() ).add( listener );
+	}
+
+	/**
+	 * Get the submenu of an item, if it is ready
+	 *
+	 * @param item
+	 *      The item
+	 * @return
+	 *      The submenu, or null if it is not loaded yet
+	 */
+	public List<SpiderMenuItem> getCachedSubmenu( SpiderMenuItem item ) {
+		return (item.hasSubMenu()) ? item.getMenuItemList() : mCache.get( item.getID() );
+	}
+
+	/**
+	 * Drop the listeners of the loads in flight. The loads still complete and are cached
+	 */
+	public void cancelPendingListeners() {
+		for(int nCtr = 0; nCtr < mPendingLoads.size(); ++nCtr)
+			mPendingLoads.valueAt( nCtr ).clear();
+	}
+
+	/**
+	 * Drop the cached submenus
+	 */
+	public void clearCache() {
+		mCache.evictAll();
+	}
+
+	/**
+	 * Run the provider in the background and deliver the result on the main thread
+	 */
+	private void startLoad( final SpiderMenuItem item ) {
+		mExecutor.execute( new Runnable() {
+			@Override
+			public void run() {
+				List<SpiderMenuItem> submenu = null;
+				try {
+					submenu = mProvider.loadSubmenu( item );
+				}
+				catch ( RuntimeException e ) {
+					Logger.e( "Loading the submenu failed: %s", e );
+				}
+
+				final List<SpiderMenuItem> result = submenu;
+				mHandler.post( new Runnable() {
+					@Override
+					public void run() {
+						onLoadFinished( item, result );
+					}
+				} );
+			}
+		} );
+	}
+
+	/**
+	 * Cache the submenu and notify the listeners. Failed loads are not cached, so that they are tried again
+	 */
+	private void onLoadFinished( SpiderMenuItem item, List<SpiderMenuItem> submenu ) {
+		ArrayList<SubmenuLoadListener> listeners = mPendingLoads.get( item.getID() );
+		mPendingLoads.remove( item.getID() );
+
+		if(submenu != null)
+			mCache.put( item.getID(), submenu );
+
+		if(listeners != null) {
+			for(SubmenuLoadListener listener : listeners)
+				listener.onSubmenuLoaded( item, submenu );
+		}
+	}
+
+	///////////////////////////////////////// INTERFACES ///////////////////////////////////////////
+	/**
+	 * Provides the submenus. Called on a background thread
+	 */
+	public interface SubmenuProvider {
+		List<SpiderMenuItem> loadSubmenu(SpiderMenuItem item);
+	}
+
+	/**
+	 * Submenu load listener. Called on the main thread, with a null submenu if the load failed
+	 */
+	public interface SubmenuLoadListener {
+		void onSubmenuLoaded(SpiderMenuItem item, List<SpiderMenuItem> submenu);
+	}
+}
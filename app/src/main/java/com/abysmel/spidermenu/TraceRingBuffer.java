@@ -0,0 +1,216 @@
+package com.abysmel.spidermenu;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free, fixed-size ring buffer of (timestamp, event id, int args) trace events. Cheap enough to be written
+ * from the measure, layout, draw and animation paths: a write is an atomic increment and a few array stores, and
+ * nothing is allocated or formatted till the buffer is dumped.
+ *
+ * Writers claim a slot with an atomic increment and publish it by storing its sequence number last. A reader
+ * skips the slots whose sequence does not match, i.e. the ones that were overwritten or are still being written
+ * while dumping, so the dump is a consistent best-effort snapshot of the latest events.
+ */
+public final class TraceRingBuffer {
+	////////////////////////////////////// CLASS MEMBERS ///////////////////////////////////////////
+	/**
+	 * Event IDs
+	 */
+	public static final int EVENT_MEASURE = 1;
+	public static final int EVENT_LAYOUT = 2;
+	public static final int EVENT_DRAW = 3;            //Children drawn, children skipped
+	public static final int EVENT_OPEN_START = 4;
+	public static final int EVENT_RADIAL_OUT = 5;
+	public static final int EVENT_SPRING_UPDATE = 6;
+	public static final int EVENT_SPRING_REST = 7;
+	public static final int EVENT_CLOSE_START = 8;
+	public static final int EVENT_CLICK = 9;
+	public static final int EVENT_LEVEL_CACHE_HIT = 10;      //Level id, cached bytes
+	public static final int EVENT_LEVEL_CACHE_MISS = 11;     //Level id, cached bytes
+	public static final int EVENT_LEVEL_CACHE_EVICT = 12;    //Level id, cached bytes
+	public static final int EVENT_QUALITY_CHANGE = 13;       //Quality level, 1 if adaptive
+
+	/**
+	 * Event names for the dump, indexed by the event id
+	 */
+	private static final String[] EVENT_NAMES = {
+			"?", "measure", "layout", "draw", "open", "radialOut", "springUpdate", "springRest", "close", "click",
+			"levelCacheHit", "levelCacheMiss", "levelCacheEvict", "qualityChange"
+	};
+
+	/**
+	 * The slot mask. The capacity is a power of two
+	 */
+	private final int mnMask;
+
+	/**
+	 * The event columns
+	 */
+	private final long[] mTimestamps;
+	private final int[] mEventIDs;
+	private final int[] mArgs1;
+	private final int[] mArgs2;
+
+	/**
+	 * The sequence number that was last published to every slot (+ 1, so that 0 means never written)
+	 */
+	private final AtomicLongArray mSequences;
+
+	/**
+	 * The next sequence number to be written
+	 */
+	private final AtomicLong mWriteIndex = new AtomicLong( 0 );
+
+	////////////////////////////////////// CLASS METHODS ///////////////////////////////////////////
+
+	/**
+	 * Constructor
+	 *
+	 * @param nCapacity
+	 *      The number of events to keep. Rounded up to a power of two
+	 */
+	public TraceRingBuffer( int nCapacity ) {
+		int nSize = Integer.highestOneBit( Math.max( 2, nCapacity ) - 1 ) << 1;
+		mnMask = nSize - 1;
+		mTimestamps = new long[nSize];
+		mEventIDs = new int[nSize];
+		mArgs1 = new int[nSize];
+		mArgs2 = new int[nSize];
+		mSequences = new AtomicLongArray( nSize );
+	}
+
+	/**
+	 * Record an event
+	 *
+	 * @param nEventID
+	 *      One of the EVENT_* values
+	 * @param nArg1
+	 *      First argument
+	 * @param nArg2
+	 *      Second argument
+	 */
+	public void record( int nEventID, int nArg1, int nArg2 ) {
+		long nSequence = mWriteIndex.getAndIncrement();
+		int nSlot = (int) (nSequence & mnMask);
+
+		mSequences.set( nSlot, 0 );         //Unpublish while writing
+		mTimestamps[nSlot] = System.nanoTime();
+		mEventIDs[nSlot] = nEventID;
+		mArgs1[nSlot] = nArg1;
+		mArgs2[nSlot] = nArg2;
+		mSequences.lazySet( nSlot, nSequence + 1 );
+	}
+
+	/**
+	 * Get the capacity of the buffer
+	 *
+	 * @return
+	 *      The number of events that are kept
+	 */
+	public int getCapacity() {
+		return mnMask + 1;
+	}
+
+	/**
+	 * Get the number of events recorded so far, including the overwritten ones
+	 *
+	 * @return
+	 *      The number of events
+	 */
+	public long getRecordedCount() {
+		return mWriteIndex.get();
+	}
+
+	/**
+	 * Drop all the events
+	 */
+	public void clear() {
+		for(int nSlot = 0; nSlot <= mnMask; ++nSlot)
+			mSequences.set( nSlot, 0 );
+	}
+
+	/**
+	 * Copy the latest events, oldest first, into the given arrays
+	 *
+	 * @param timestamps
+	 *      The timestamps in nanoseconds
+	 * @param eventIDs
+	 *      The event ids
+	 * @param args1
+	 *      The first arguments
+	 * @param args2
+	 *      The second arguments
+	 * @return
+	 *      The number of events copied. At most the length of the smallest array
+	 */
+	public int snapshot( long[] timestamps, int[] eventIDs, int[] args1, int[] args2 ) {
+		int nMax = Math.min( Math.min( timestamps.length, eventIDs.length ), Math.min( args1.length, args2.length ) );
+		long nEnd = mWriteIndex.get();
+		long nStart = Math.max( 0, nEnd - Math.min( nMax, getCapacity() ) );
+		int nCount = 0;
+
+		for(long nSequence = nStart; nSequence < nEnd; ++nSequence) {
+			int nSlot = (int) (nSequence & mnMask);
+			if(mSequences.get( nSlot ) != nSequence + 1)
+				continue;
+
+			long nTimestamp = mTimestamps[nSlot];
+			int nEventID = mEventIDs[nSlot];
+			int nArg1 = mArgs1[nSlot];
+			int nArg2 = mArgs2[nSlot];
+
+			/*
+			Overwritten while copying. Drop it
+			 */
+			if(mSequences.get( nSlot ) != nSequence + 1)
+				continue;
+
+			timestamps[nCount] = nTimestamp;
+			eventIDs[nCount] = nEventID;
+			args1[nCount] = nArg1;
+			args2[nCount] = nArg2;
+			nCount++;
+		}
+
+		return nCount;
+	}
+
+	/**
+	 * Dump the latest events, oldest first, one per line. Timestamps are relative to the oldest event
+	 *
+	 * @return
+	 *      The dump
+	 */
+	public String dump() {
+		int nCapacity = getCapacity();
+		long[] timestamps = new long[nCapacity];
+		int[] eventIDs = new int[nCapacity];
+		int[] args1 = new int[nCapacity];
+		int[] args2 = new int[nCapacity];
+		int nCount = snapshot( timestamps, eventIDs, args1, args2 );
+
+		StringBuilder builder = new StringBuilder( nCount * 48 );
+		for(int nCtr = 0; nCtr < nCount; ++nCtr) {
+			builder.append( '+' ).append( (timestamps[nCtr] - timestamps[0]) / 1000 ).append( "us " )
+					.append( getEventName( eventIDs[nCtr] ) )
+					.append( ' ' ).append( args1[nCtr] )
+					.append( ' ' ).append( args2[nCtr] )
+					.append( '\n' );
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Get the name of an event
+	 *
+	 * @param nEventID
+	 *      The event id
+	 * @return
+	 *      The name, or the id for unknown events
+	 */
+	private static String getEventName( int nEventID ) {
+		return ((nEventID > 0) && (nEventID < EVENT_NAMES.length)) ? EVENT_NAMES[nEventID] : ("event" + nEventID);
+	}
+}
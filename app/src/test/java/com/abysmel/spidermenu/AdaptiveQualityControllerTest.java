@@ -0,0 +1,141 @@
+package com.abysmel.spidermenu;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the adaptive quality steps, fed with the frame times of a 60 Hz display
+ */
+public class AdaptiveQualityControllerTest {
+	private static final long FRAME_NANOS = 1000000000L / 60;
+
+	private AdaptiveQualityController mController;
+	private long mnFrameTimeNanos;
+
+	@Before
+	public void setUp() throws Exception {
+		mController = new AdaptiveQualityController();
+		mController.setRefreshRate( 60 );
+		mnFrameTimeNanos = 1000000000L;
+		mController.onFrame( mnFrameTimeNanos );
+	}
+
+	@Test
+	public void smoothFrames_keepTheFullQuality() throws Exception {
+		assertFalse( feed( 10 * AdaptiveQualityController.WINDOW_FRAMES, FRAME_NANOS ) );
+		assertEquals( AdaptiveQualityController.QUALITY_FULL, mController.getLevel() );
+		assertTrue( mController.isShadowBlurred() );
+		assertTrue( mController.isAntiAliasedInMotion() );
+		assertEquals( 350, mController.scaleDuration( 350 ) );
+	}
+
+	@Test
+	public void missedFrames_stepDownOneLevelAtATime() throws Exception {
+		assertTrue( feedTillChange( 2 * FRAME_NANOS ) );
+		assertEquals( AdaptiveQualityController.QUALITY_FLAT_SHADOWS, mController.getLevel() );
+		assertFalse( mController.isShadowBlurred() );
+		assertTrue( mController.isAntiAliasedInMotion() );
+
+		assertTrue( feedTillChange( 2 * FRAME_NANOS ) );
+		assertEquals( AdaptiveQualityController.QUALITY_ALIASED_MOTION, mController.getLevel() );
+		assertFalse( mController.isAntiAliasedInMotion() );
+
+		assertTrue( feedTillChange( 2 * FRAME_NANOS ) );
+		assertEquals( AdaptiveQualityController.QUALITY_SHORT_ANIMATIONS, mController.getLevel() );
+		assertEquals( 175, mController.scaleDuration( 350 ) );
+
+		assertFalse( feed( 10 * AdaptiveQualityController.WINDOW_FRAMES, 2 * FRAME_NANOS ) );
+		assertEquals( AdaptiveQualityController.QUALITY_SHORT_ANIMATIONS, mController.getLevel() );
+	}
+
+	@Test
+	public void headroom_restoresTheQuality() throws Exception {
+		feedTillChange( 2 * FRAME_NANOS );
+		feedTillChange( 2 * FRAME_NANOS );
+		assertEquals( AdaptiveQualityController.QUALITY_ALIASED_MOTION, mController.getLevel() );
+
+		assertTrue( feedTillChange( FRAME_NANOS ) );
+		assertEquals( AdaptiveQualityController.QUALITY_FLAT_SHADOWS, mController.getLevel() );
+		assertTrue( feedTillChange( FRAME_NANOS ) );
+		assertEquals( AdaptiveQualityController.QUALITY_FULL, mController.getLevel() );
+		assertEquals( 2, mController.getStepDownCount() );
+		assertEquals( 2, mController.getStepUpCount() );
+	}
+
+	@Test
+	public void relapse_doublesTheWaitBeforeTheNextStepUp() throws Exception {
+		feedTillChange( 2 * FRAME_NANOS );
+		int nFirstWait = countFramesTillChange( FRAME_NANOS );
+
+		/*
+		Missing frames right after the step up brings the level down again, and the next step up takes twice as long
+		 */
+		feedTillChange( 2 * FRAME_NANOS );
+		assertEquals( AdaptiveQualityController.QUALITY_FLAT_SHADOWS, mController.getLevel() );
+		assertEquals( 2 * nFirstWait, countFramesTillChange( FRAME_NANOS ) );
+	}
+
+	@Test
+	public void pauses_areNotMissedFrames() throws Exception {
+		for(int nCtr = 0; nCtr < 20; ++nCtr) {
+			feed( 5, FRAME_NANOS );
+			mController.onMotionEnd();
+			mnFrameTimeNanos += 1000000000L;
+			mController.onFrame( mnFrameTimeNanos );
+		}
+		assertEquals( AdaptiveQualityController.QUALITY_FULL, mController.getLevel() );
+	}
+
+	@Test
+	public void manualLevel_stopsTheAdaptationTillAuto() throws Exception {
+		mController.setLevel( AdaptiveQualityController.QUALITY_SHORT_ANIMATIONS );
+		assertFalse( mController.isAdaptive() );
+		assertEquals( 0, mController.getStepDownCount() );
+		assertFalse( feed( 10 * AdaptiveQualityController.WINDOW_FRAMES, FRAME_NANOS ) );
+		assertEquals( AdaptiveQualityController.QUALITY_SHORT_ANIMATIONS, mController.getLevel() );
+
+		mController.setLevel( AdaptiveQualityController.QUALITY_AUTO );
+		assertTrue( mController.isAdaptive() );
+		assertEquals( AdaptiveQualityController.QUALITY_SHORT_ANIMATIONS, mController.getLevel() );
+		assertTrue( feedTillChange( FRAME_NANOS ) );
+		assertEquals( AdaptiveQualityController.QUALITY_ALIASED_MOTION, mController.getLevel() );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void unknownLevel_isRejected() throws Exception {
+		mController.setLevel( 4 );
+	}
+
+	/**
+	 * Feed frames of the given length, and tell if the level changed on any of them
+	 */
+	private boolean feed( int nFrames, long nFrameNanos ) {
+		boolean bChanged = false;
+		for(int nCtr = 0; nCtr < nFrames; ++nCtr) {
+			mnFrameTimeNanos += nFrameNanos;
+			bChanged |= mController.onFrame( mnFrameTimeNanos );
+		}
+		return bChanged;
+	}
+
+	private boolean feedTillChange( long nFrameNanos ) {
+		return countFramesTillChange( nFrameNanos ) > 0;
+	}
+
+	/**
+	 * Feed frames of the given length till the level changes, for at most 100 windows
+	 *
+	 * @return
+	 *      The frames it took, or 0 if the level did not change
+	 */
+	private int countFramesTillChange( long nFrameNanos ) {
+		for(int nCtr = 1; nCtr <= 100 * AdaptiveQualityController.WINDOW_FRAMES; ++nCtr) {
+			mnFrameTimeNanos += nFrameNanos;
+			if(mController.onFrame( mnFrameTimeNanos ))
+				return nCtr;
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,198 @@
+package com.abysmel.spidermenu;
+
+import com.facebook.rebound.BaseSpringSystem;
+import com.facebook.rebound.Spring;
+import com.facebook.rebound.SpringConfig;
+import com.facebook.rebound.SpringListener;
+import com.facebook.rebound.SpringLooper;
+import com.facebook.rebound.SpringUtil;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the closed form spring, against Rebound, and a benchmark of the many item bounce against Rebound
+ */
+public class AnalyticSpringTest {
+	private static final double FRAME_MILLIS = 1000.0 / 60;
+
+	/**
+	 * The default center and radial springs of SpiderMenuConfig
+	 */
+	private static final double[][] CONFIGS = { { 400, 10 }, { 200, 10 } };
+
+	@Test
+	public void spring_startsAtZeroAndRestsAtOne() throws Exception {
+		AnalyticSpring spring = new AnalyticSpring( 200, 10 );
+		assertEquals( 0, spring.getValue( 0 ), 0 );
+		assertEquals( 0, spring.getVelocity( 0 ), 0 );
+		assertEquals( 1, spring.getValue( spring.getSettleTime() ), 0 );
+		assertEquals( 0, spring.getVelocity( spring.getSettleTime() ), 0 );
+		assertTrue( spring.getSettleTime() < AnalyticSpring.MAX_SETTLE_TIME );
+	}
+
+	@Test
+	public void value_onlyDependsOnTheTime() throws Exception {
+		AnalyticSpring spring = new AnalyticSpring( 400, 10 );
+		double nValue = spring.getValue( 0.1234 );
+		spring.getValue( 0.5 );
+		spring.getValue( 0.01 );
+		assertEquals( nValue, spring.getValue( 0.1234 ), 0 );
+		assertEquals( nValue, new AnalyticSpring( 400, 10 ).getValue( 0.1234 ), 0 );
+	}
+
+	@Test
+	public void underdampedSpring_followsRebound() throws Exception {
+		for(double[] config : CONFIGS) {
+			AnalyticSpring analyticSpring = new AnalyticSpring( config[0], config[1] );
+			BaseSpringSystem system = createSpringSystem();
+			Spring reboundSpring = system.createSpring().setSpringConfig( new SpringConfig( config[0], config[1] ) );
+			reboundSpring.setEndValue( 1 );
+
+			int nFrame = 0;
+			while(!reboundSpring.isAtRest()) {
+				system.loop( FRAME_MILLIS );
+				double nTime = (++nFrame * FRAME_MILLIS) / 1000;
+				assertEquals( reboundSpring.getCurrentValue(), analyticSpring.getValue( nTime ), 0.02 );
+			}
+
+			/*
+			The spring settles between the last frame Rebound sees it moving and the frame it sees it at rest
+			 */
+			assertTrue( analyticSpring.getSettleTime() >= ((nFrame - 1) * FRAME_MILLIS) / 1000 );
+			assertTrue( analyticSpring.getSettleTime() <= (nFrame * FRAME_MILLIS) / 1000 );
+		}
+	}
+
+	@Test
+	public void dampedSprings_doNotOvershoot() throws Exception {
+		for(AnalyticSpring spring : new AnalyticSpring[] { new AnalyticSpring( 100, 20 ), new AnalyticSpring( 100, 40 ) }) {
+			double nPrevious = 0;
+			for(double nTime = 0; nTime < spring.getSettleTime(); nTime += 0.005) {
+				double nValue = spring.getValue( nTime );
+				assertTrue( nValue >= nPrevious );
+				assertTrue( nValue <= 1 );
+				nPrevious = nValue;
+			}
+			assertEquals( 1, spring.getValue( spring.getSettleTime() - 1e-6 ), 2 * AnalyticSpring.REST_DISPLACEMENT_THRESHOLD );
+		}
+	}
+
+	@Test
+	public void springWithoutFriction_isCapped() throws Exception {
+		assertEquals( AnalyticSpring.MAX_SETTLE_TIME, new AnalyticSpring( 200, 0 ).getSettleTime(), 0 );
+	}
+
+	/**
+	 * Prints the cost of a 50 item bounce per item and frame, with Rebound and with the closed form spring. Ignored,
+	 * since wall clock times depend on the machine: run it on its own
+	 */
+	@Ignore( "Benchmark" )
+	@Test
+	public void manyItemBounce_benchmarkAgainstRebound() throws Exception {
+		int nItems = 50;
+		int nRuns = 200;
+		float[] scales = new float[nItems];
+
+		long nReboundNanos = 0;
+		long nReboundItemFrames = 0;
+		long nAnalyticNanos = 0;
+		long nAnalyticItemFrames = 0;
+		for(int nRun = 0; nRun < nRuns * 2; ++nRun) {
+			boolean bMeasure = (nRun >= nRuns);         //The first half warms up
+
+			/*
+			Rebound: every spring is integrated on every frame, and its listener maps the value to the scale
+			 */
+			BaseSpringSystem system = createSpringSystem();
+			Spring[] springs = new Spring[nItems];
+			for(int nCtr = 0; nCtr < nItems; ++nCtr) {
+				springs[nCtr] = system.createSpring().setSpringConfig( new SpringConfig( 200, 10 ) );
+				springs[nCtr].addListener( new ScaleListener( scales, nCtr ) );
+				springs[nCtr].setEndValue( 1 );
+			}
+
+			long nStart = System.nanoTime();
+			int nFrames = 0;
+			while(!allAtRest( springs )) {
+				system.loop( FRAME_MILLIS );
+				nFrames++;
+			}
+			if(bMeasure) {
+				nReboundNanos += System.nanoTime() - nStart;
+				nReboundItemFrames += (long) nFrames * nItems;
+			}
+
+			/*
+			Analytic: every item is evaluated at the frame time, till the precomputed settle time
+			 */
+			AnalyticSpring spring = new AnalyticSpring( 200, 10 );
+			nStart = System.nanoTime();
+			nFrames = 0;
+			for(double nTime = 0; nTime < spring.getSettleTime(); nTime += FRAME_MILLIS / 1000) {
+				for(int nCtr = 0; nCtr < nItems; ++nCtr)
+					scales[nCtr] = (float) (0.8 + (0.2 * spring.getValue( nTime )));
+				nFrames++;
+			}
+			if(bMeasure) {
+				nAnalyticNanos += System.nanoTime() - nStart;
+				nAnalyticItemFrames += (long) nFrames * nItems;
+			}
+		}
+
+		System.out.println( String.format( "Spring bounce, %d items: Rebound %.1f ns, analytic %.1f ns per item per frame",
+				nItems, (double) nReboundNanos / nReboundItemFrames, (double) nAnalyticNanos / nAnalyticItemFrames ) );
+	}
+
+	private static BaseSpringSystem createSpringSystem() {
+		return new BaseSpringSystem( new SpringLooper() {
+			@Override
+			public void start() {
+			}
+
+			@Override
+			public void stop() {
+			}
+		} );
+	}
+
+	private static boolean allAtRest( Spring[] springs ) {
+		for(Spring spring : springs) {
+			if(!spring.isAtRest())
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Maps the spring value to a scale, as SpiderMenu did with Rebound
+	 */
+	private static class ScaleListener implements SpringListener {
+		private final float[] mScales;
+		private final int mnItem;
+
+		ScaleListener( float[] scales, int nItem ) {
+			mScales = scales;
+			mnItem = nItem;
+		}
+
+		@Override
+		public void onSpringUpdate( Spring spring ) {
+			mScales[mnItem] = (float) SpringUtil.mapValueFromRangeToRange( spring.getCurrentValue(), 0.0d, 1.0d, 0.8d, 1.0d );
+		}
+
+		@Override
+		public void onSpringAtRest( Spring spring ) {
+		}
+
+		@Override
+		public void onSpringActivate( Spring spring ) {
+		}
+
+		@Override
+		public void onSpringEndStateChange( Spring spring ) {
+		}
+	}
+}
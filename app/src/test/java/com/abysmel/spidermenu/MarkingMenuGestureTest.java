@@ -0,0 +1,48 @@
+package com.abysmel.spidermenu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the marking menu drag velocity and prediction
+ */
+public class MarkingMenuGestureTest {
+	@Test
+	public void flick_isPredictedAhead() throws Exception {
+		MarkingMenuGesture gesture = flickRight();
+		gesture.addMovement( 60, 0, 60 );
+
+		assertEquals( 1000, gesture.getVelocityX(), 0.1 );
+		assertEquals( 0, gesture.getVelocityY(), 0.1 );
+		assertEquals( 160, gesture.getPredictedDistance(), 0.1 );
+	}
+
+	@Test
+	public void pauseThenRelease_hasNoVelocity() throws Exception {
+		MarkingMenuGesture gesture = flickRight();
+		gesture.addMovement( 50, 0, 350 );
+
+		assertEquals( 0, gesture.getSpeed(), 0 );
+		assertEquals( gesture.getDistance(), gesture.getPredictedDistance(), 0 );
+		assertEquals( 0, gesture.getPredictedAngle(), 0.01 );
+	}
+
+	@Test
+	public void angles_areClockwiseFromTheXAxis() throws Exception {
+		assertEquals( 90, MarkingMenuGesture.getAngle( 0, 10 ), 0.01 );
+		assertEquals( 270, MarkingMenuGesture.getAngle( 0, -10 ), 0.01 );
+		assertEquals( 20, MarkingMenuGesture.getAngleDifference( 350, 10 ), 0.01 );
+	}
+
+	/**
+	 * A drag to the right at 1000 pixels per second, sampled every 10 milliseconds
+	 */
+	private static MarkingMenuGesture flickRight() {
+		MarkingMenuGesture gesture = new MarkingMenuGesture();
+		gesture.start( 0, 0, 0, 0, 0 );
+		for(int nTime = 10; nTime <= 50; nTime += 10)
+			gesture.addMovement( nTime, 0, nTime );
+		return gesture;
+	}
+}
@@ -0,0 +1,119 @@
+package com.abysmel.spidermenu;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the weighted radial layout solver, and a microbenchmark of a 50 item solve
+ */
+public class RadialLayoutSolverTest {
+	@Test
+	public void itemsThatFit_keepTheConfiguredRadius() throws Exception {
+		RadialLayoutSolver.Solution solution = RadialLayoutSolver.compute( 1000, 40, new float[] { 1, 2, 1 }, true );
+		assertEquals( 80, solution.mnLargestRadius );
+		assertArrayEquals( new int[] { 40, 80, 40 }, solution.mRadii );
+		assertEquals( 500 - 160, solution.mnVirtualCircumferenceRadius );
+	}
+
+	@Test
+	public void crowdedItems_shrinkTillTheyFitWithSpacing() throws Exception {
+		float[] weights = new float[12];
+		Arrays.fill( weights, 1 );
+		weights[0] = 3;
+		RadialLayoutSolver.Solution solution = RadialLayoutSolver.compute( 600, 200, weights, true );
+
+		double nOrbit = 300 - solution.mnLargestRadius;
+		double nTotalAngle = 0;
+		for(int nRadius : solution.mRadii)
+			nTotalAngle += 2 * Math.asin( nRadius / nOrbit );
+		assertTrue( (nTotalAngle * 13 / 12) <= (2 * Math.PI) );
+		assertTrue( solution.mRadii[0] > solution.mRadii[1] );
+		assertTrue( solution.mnVirtualCircumferenceRadius >= 0 );
+	}
+
+	@Test
+	public void fixedLayout_keepsTheConfiguredRadiusEvenIfItemsOverlap() throws Exception {
+		RadialLayoutSolver.Solution solution = RadialLayoutSolver.compute( 300, 100, new float[] { 1, 1, 1, 1, 1, 1 }, false );
+		assertEquals( 100, solution.mRadii[0] );
+	}
+
+	@Test
+	public void equalWeights_areSpreadEvenlyFromTheTop() throws Exception {
+		RadialLayoutSolver.Solution solution = RadialLayoutSolver.compute( 800, 50, new float[] { 1, 1, 1, 1 }, true );
+		assertEquals( 270, solution.mAngles[0], 0.01 );
+		assertEquals( 0, solution.mAngles[1], 0.01 );
+		assertEquals( 90, solution.mAngles[2], 0.01 );
+		assertEquals( 180, solution.mAngles[3], 0.01 );
+	}
+
+	@Test
+	public void neighbours_haveEqualGapsBetweenTheirEdges() throws Exception {
+		RadialLayoutSolver.Solution solution = RadialLayoutSolver.compute( 800, 40, new float[] { 2, 1, 1.5f }, true );
+		double nOrbit = 400 - solution.mnLargestRadius;
+		double[] gaps = new double[3];
+		for(int nCtr = 0; nCtr < 3; ++nCtr) {
+			int nNext = (nCtr + 1) % 3;
+			double nDistance = (solution.mAngles[nNext] - solution.mAngles[nCtr] + 360) % 360;
+			gaps[nCtr] = Math.toRadians( nDistance ) - Math.asin( solution.mRadii[nCtr] / nOrbit ) - Math.asin( solution.mRadii[nNext] / nOrbit );
+		}
+		assertEquals( gaps[0], gaps[1], 0.001 );
+		assertEquals( gaps[1], gaps[2], 0.001 );
+	}
+
+	@Test
+	public void equalInputs_shareTheCachedSolution() throws Exception {
+		RadialLayoutSolver.clearCache();
+		float[] weights = { 1, 2, 3 };
+		RadialLayoutSolver.Solution solution = RadialLayoutSolver.solve( 500, 60, weights, true );
+		weights[0] = 5;
+		assertSame( solution, RadialLayoutSolver.solve( 500, 60, new float[] { 1, 2, 3 }, true ) );
+		assertNotSame( solution, RadialLayoutSolver.solve( 501, 60, new float[] { 1, 2, 3 }, true ) );
+	}
+
+	@Test
+	public void fiftyItems_fitTheCircleInOrder() throws Exception {
+		float[] weights = new float[50];
+		for(int nCtr = 0; nCtr < weights.length; ++nCtr)
+			weights[nCtr] = 1 + (nCtr % 3);
+		RadialLayoutSolver.Solution solution = RadialLayoutSolver.compute( 1080, 120, weights, true );
+
+		double nOrbit = 540 - solution.mnLargestRadius;
+		double nTotalAngle = 0;
+		for(int nCtr = 0; nCtr < weights.length; ++nCtr) {
+			assertTrue( solution.mRadii[nCtr] > 0 );
+			nTotalAngle += 2 * Math.asin( solution.mRadii[nCtr] / nOrbit );
+		}
+		assertTrue( nTotalAngle <= (2 * Math.PI) );
+
+		double nSweep = 0;
+		for(int nCtr = 1; nCtr < weights.length; ++nCtr)
+			nSweep += (solution.mAngles[nCtr] - solution.mAngles[nCtr - 1] + 360) % 360;
+		assertTrue( nSweep < 360 );
+	}
+
+	/**
+	 * Prints the time of a 50 item solve. Ignored, since wall clock times depend on the machine: run it on its own
+	 */
+	@Ignore( "Benchmark" )
+	@Test
+	public void fiftyItems_solveBenchmark() throws Exception {
+		float[] weights = new float[50];
+		for(int nCtr = 0; nCtr < weights.length; ++nCtr)
+			weights[nCtr] = 1 + (nCtr % 3);
+
+		int nIterations = 20000;
+		for(int nCtr = 0; nCtr < nIterations; ++nCtr)
+			RadialLayoutSolver.compute( 1080 + (nCtr & 1), 120, weights, true );
+
+		long nStart = System.nanoTime();
+		for(int nCtr = 0; nCtr < nIterations; ++nCtr)
+			RadialLayoutSolver.compute( 1080 + (nCtr & 1), 120, weights, true );
+		double nMicrosPerSolve = (System.nanoTime() - nStart) / 1000.0 / nIterations;
+
+		System.out.println( String.format( "RadialLayoutSolver: %.2f us per 50 item solve", nMicrosPerSolve ) );
+	}
+}
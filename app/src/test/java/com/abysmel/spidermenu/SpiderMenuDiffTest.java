@@ -0,0 +1,51 @@
+package com.abysmel.spidermenu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the menu item diff
+ */
+public class SpiderMenuDiffTest {
+	@Test
+	public void sameItems_haveNoChanges() throws Exception {
+		SpiderMenuDiff diff = SpiderMenuDiff.calculate( new int[] { 1, 2, 3 }, new int[] { 1, 2, 3 } );
+		assertFalse( diff.hasStructuralChanges() );
+		assertEquals( 2, diff.getOldPosition( 2 ) );
+	}
+
+	@Test
+	public void insertionsAndRemovals_areReportedByPosition() throws Exception {
+		SpiderMenuDiff diff = SpiderMenuDiff.calculate( new int[] { 1, 2, 3 }, new int[] { 1, 4, 3 } );
+		assertEquals( 1, diff.getInsertedCount() );
+		assertEquals( 1, diff.getRemovedCount() );
+		assertEquals( 0, diff.getMovedCount() );
+		assertTrue( diff.isInserted( 1 ) );
+		assertTrue( diff.isRemoved( 1 ) );
+		assertFalse( diff.isRemoved( 2 ) );
+	}
+
+	@Test
+	public void movingOneItem_movesOnlyThatItem() throws Exception {
+		SpiderMenuDiff diff = SpiderMenuDiff.calculate( new int[] { 1, 2, 3, 4, 5 }, new int[] { 2, 3, 4, 5, 1 } );
+		assertEquals( 1, diff.getMovedCount() );
+		assertTrue( diff.isMoved( 4 ) );
+		assertEquals( 0, diff.getOldPosition( 4 ) );
+	}
+
+	@Test
+	public void reversedItems_keepOneInPlace() throws Exception {
+		SpiderMenuDiff diff = SpiderMenuDiff.calculate( new int[] { 1, 2, 3, 4 }, new int[] { 4, 3, 2, 1 } );
+		assertEquals( 3, diff.getMovedCount() );
+		assertEquals( 0, diff.getInsertedCount() );
+		assertEquals( 0, diff.getRemovedCount() );
+	}
+
+	@Test
+	public void emptyOldList_insertsEverything() throws Exception {
+		SpiderMenuDiff diff = SpiderMenuDiff.calculate( new int[0], new int[] { 7, 8 } );
+		assertEquals( 2, diff.getInsertedCount() );
+		assertEquals( 0, diff.getMovedCount() );
+	}
+}
@@ -0,0 +1,88 @@
+package com.abysmel.spidermenu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the trace ring buffer
+ */
+public class TraceRingBufferTest {
+	@Test
+	public void capacity_isRoundedUpToPowerOfTwo() throws Exception {
+		assertEquals( 8, new TraceRingBuffer( 5 ).getCapacity() );
+		assertEquals( 8, new TraceRingBuffer( 8 ).getCapacity() );
+		assertEquals( 2, new TraceRingBuffer( 0 ).getCapacity() );
+	}
+
+	@Test
+	public void snapshot_returnsEventsOldestFirst() throws Exception {
+		TraceRingBuffer buffer = new TraceRingBuffer( 4 );
+		buffer.record( TraceRingBuffer.EVENT_MEASURE, 1, 2 );
+		buffer.record( TraceRingBuffer.EVENT_LAYOUT, 3, 4 );
+
+		long[] timestamps = new long[4];
+		int[] eventIDs = new int[4];
+		int[] args1 = new int[4];
+		int[] args2 = new int[4];
+		assertEquals( 2, buffer.snapshot( timestamps, eventIDs, args1, args2 ) );
+		assertEquals( TraceRingBuffer.EVENT_MEASURE, eventIDs[0] );
+		assertEquals( TraceRingBuffer.EVENT_LAYOUT, eventIDs[1] );
+		assertEquals( 3, args1[1] );
+		assertEquals( 4, args2[1] );
+		assertTrue( timestamps[1] >= timestamps[0] );
+	}
+
+	@Test
+	public void snapshot_keepsOnlyTheLatestEventsWhenWrapped() throws Exception {
+		TraceRingBuffer buffer = new TraceRingBuffer( 4 );
+		for(int nCtr = 0; nCtr < 10; ++nCtr)
+			buffer.record( TraceRingBuffer.EVENT_DRAW, nCtr, 0 );
+
+		long[] timestamps = new long[4];
+		int[] eventIDs = new int[4];
+		int[] args1 = new int[4];
+		int[] args2 = new int[4];
+		assertEquals( 4, buffer.snapshot( timestamps, eventIDs, args1, args2 ) );
+		assertArrayEquals( new int[] { 6, 7, 8, 9 }, args1 );
+		assertEquals( 10, buffer.getRecordedCount() );
+	}
+
+	@Test
+	public void clear_dropsAllEvents() throws Exception {
+		TraceRingBuffer buffer = new TraceRingBuffer( 4 );
+		buffer.record( TraceRingBuffer.EVENT_CLICK, 1, 0 );
+		buffer.clear();
+
+		assertEquals( "", buffer.dump() );
+	}
+
+	@Test
+	public void record_fromManyThreadsKeepsTheCount() throws Exception {
+		final TraceRingBuffer buffer = new TraceRingBuffer( 64 );
+		Thread[] threads = new Thread[4];
+		for(int nCtr = 0; nCtr < threads.length; ++nCtr) {
+			threads[nCtr] = new Thread( new Runnable() {
+				@Override
+				public void run() {
+					for(int nEvent = 0; nEvent < 1000; ++nEvent)
+						buffer.record( TraceRingBuffer.EVENT_SPRING_UPDATE, nEvent, 0 );
+				}
+			} );
+			threads[nCtr].start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+
+		/*
+		A writer lapped by a faster one on the same slot leaves it unpublished, so the dump can have fewer lines than the
+		capacity, but every line is a whole event. The timestamps are taken after the sequence, so they may be a bit out
+		of order
+		 */
+		assertEquals( 4000, buffer.getRecordedCount() );
+		String[] lines = buffer.dump().split( "\n" );
+		assertTrue( (lines.length > 0) && (lines.length <= 64) );
+		for(String line : lines)
+			assertTrue( line, line.matches( "\\+-?\\d+us springUpdate \\d+ 0" ) );
+	}
+}